@@ -0,0 +1,116 @@
+package com.petsafe.qr.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petsafe.qr.dto.PetResponse;
+import com.petsafe.qr.dto.PublicPetResponse;
+import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Conversão entidade -> DTO e serialização JSON do que o scan público e o painel do tutor devolvem.
+// "photo" alterna entre foto com variantes (regex + mapa de URLs) e pet sem foto
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PetMappingBenchmark {
+    
+    @Param({"true", "false"})
+    private boolean photo;
+    
+    private ObjectMapper objectMapper;
+    private Pet pet;
+    private PetResponse petResponse;
+    private PublicPetResponse publicPetResponse;
+    private List<PetResponse> dashboard;
+    
+    @Setup
+    public void setUp() {
+        // Mesmos módulos e padrões que o Spring Boot registra no ObjectMapper da aplicação
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        
+        User owner = new User();
+        owner.setId(UUID.randomUUID());
+        owner.setName("Tutor do Rex");
+        owner.setEmail("tutor@example.com");
+        owner.setPhone("11999999999");
+        
+        pet = new Pet();
+        pet.setId(UUID.randomUUID());
+        pet.setName("Rex");
+        pet.setSpecies("Cachorro");
+        pet.setBreed("Labrador");
+        pet.setAge(3);
+        pet.setColor("Dourado");
+        pet.setWeight(28.5);
+        pet.setMedicalInfo("Vacinas em dia");
+        pet.setAllergies("Frango");
+        pet.setMedications("Nenhuma");
+        pet.setVetContact("Clínica Vet (11) 3333-3333");
+        pet.setOwnerNotes("Responde pelo nome, é dócil");
+        pet.setPhotoUrl(photo ? "/uploads/pets/ab/cd/" + "ab".repeat(32) + ".jpg" : null);
+        pet.setIsMissing(false);
+        pet.setOwner(owner);
+        pet.setCreatedAt(LocalDateTime.now());
+        pet.setUpdatedAt(LocalDateTime.now());
+        pet.setVersion(1L);
+        
+        petResponse = PetResponse.fromEntity(pet);
+        publicPetResponse = PublicPetResponse.fromEntity(pet);
+        // Um tutor com uma ninhada: a lista de GET /api/pets
+        dashboard = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            dashboard.add(petResponse);
+        }
+    }
+    
+    @Benchmark
+    public PetResponse petResponseFromEntity() {
+        return PetResponse.fromEntity(pet);
+    }
+    
+    @Benchmark
+    public PublicPetResponse publicPetResponseFromEntity() {
+        return PublicPetResponse.fromEntity(pet);
+    }
+    
+    @Benchmark
+    public byte[] serializePetResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(petResponse);
+    }
+    
+    @Benchmark
+    public byte[] serializePublicPetResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(publicPetResponse);
+    }
+    
+    @Benchmark
+    public byte[] serializePetList() throws Exception {
+        return objectMapper.writeValueAsBytes(dashboard);
+    }
+    
+    // Caminho completo do scan: entidade carregada até os bytes da resposta
+    @Benchmark
+    public byte[] mapAndSerializePublicPet() throws Exception {
+        return objectMapper.writeValueAsBytes(PublicPetResponse.fromEntity(pet));
+    }
+}
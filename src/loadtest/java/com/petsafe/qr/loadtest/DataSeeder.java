@@ -0,0 +1,102 @@
+package com.petsafe.qr.loadtest;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// Popula users e pets com INSERTs em lote direto no JDBC: pelo JPA, milhões de linhas levariam
+// mais tempo que o próprio teste. Todos os tutores têm a mesma senha, com o hash calculado uma vez
+final class DataSeeder {
+    
+    private static final int BATCH_SIZE = 10_000;
+    private static final String PASSWORD = "senhaDoTutor123";
+    
+    private static final String[] SPECIES = {"Cachorro", "Gato", "Pássaro", "Coelho"};
+    private static final String[] COLORS = {"Preto", "Branco", "Caramelo", "Cinza", "Dourado", "Tigrado"};
+    private static final String[] BREEDS = {"SRD", "Labrador", "Poodle", "Siamês", "Persa", "Beagle", "Shih Tzu"};
+    
+    private static final String INSERT_USER =
+            "INSERT INTO users (id, name, email, password, phone, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PET =
+            "INSERT INTO pets (id, name, species, breed, age, color, weight, medical_info, owner_notes, is_missing, "
+                    + "owner_id, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    
+    DataSeeder(DataSource dataSource, PasswordEncoder passwordEncoder) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.passwordEncoder = passwordEncoder;
+    }
+    
+    SeededData seed(LoadTestConfig config) {
+        SeededData data = new SeededData(config.users(), config.petsPerUser(), PASSWORD);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String hash = passwordEncoder.encode(PASSWORD);
+        // 1 em cada N pets marcado como perdido, espalhado pelos tutores
+        long missingEvery = config.missingRatio() > 0 ? Math.max(1, Math.round(1 / config.missingRatio())) : Long.MAX_VALUE;
+        
+        long start = System.nanoTime();
+        insert("usuários", data.users(), INSERT_USER, (ps, user) -> {
+            ps.setObject(1, SeededData.userId(user));
+            ps.setString(2, "Tutor " + user);
+            ps.setString(3, SeededData.email(user));
+            ps.setString(4, hash);
+            ps.setString(5, String.format("119%08d", user % 100_000_000));
+            ps.setTimestamp(6, now);
+        });
+        insert("pets", data.pets(), INSERT_PET, (ps, pet) -> {
+            int variant = (int) (pet % 997);
+            ps.setObject(1, SeededData.petId(pet));
+            ps.setString(2, "Pet " + pet);
+            ps.setString(3, SPECIES[variant % SPECIES.length]);
+            ps.setString(4, BREEDS[variant % BREEDS.length]);
+            ps.setInt(5, 1 + variant % 15);
+            ps.setString(6, COLORS[variant % COLORS.length]);
+            ps.setDouble(7, 2 + variant % 40);
+            ps.setString(8, "Vacinas em dia");
+            ps.setString(9, "Dócil, atende pelo nome");
+            ps.setBoolean(10, pet % missingEvery == 0);
+            ps.setObject(11, SeededData.userId(data.ownerOf(pet)));
+            ps.setTimestamp(12, now);
+            ps.setTimestamp(13, now);
+        });
+        System.out.printf("Massa de dados: %d usuários e %d pets em %.1fs%n",
+                data.users(), data.pets(), (System.nanoTime() - start) / 1e9);
+        return data;
+    }
+    
+    private void insert(String label, long rows, String sql, RowWriter writer) {
+        long reportEvery = Math.max(BATCH_SIZE, rows / 10);
+        for (long offset = 0; offset < rows; offset += BATCH_SIZE) {
+            long first = offset;
+            int size = (int) Math.min(BATCH_SIZE, rows - offset);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    writer.write(ps, first + i);
+                }
+                
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+            long done = offset + size;
+            if (done % reportEvery < BATCH_SIZE || done == rows) {
+                System.out.printf("  %s: %d/%d%n", label, done, rows);
+            }
+        }
+    }
+    
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(PreparedStatement ps, long row) throws SQLException;
+    }
+}
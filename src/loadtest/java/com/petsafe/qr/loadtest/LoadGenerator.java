@@ -0,0 +1,179 @@
+package com.petsafe.qr.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Gera a carga em um dos dois modelos e devolve as latências por operação.
+// No modelo aberto a latência conta a partir do instante em que a requisição DEVERIA ter saído:
+// se o servidor atrasa, as chegadas seguintes não esperam por ele (sem coordinated omission)
+final class LoadGenerator {
+    
+    private final Workload workload;
+    private final LoadTestConfig config;
+    
+    LoadGenerator(Workload workload, LoadTestConfig config) {
+        this.workload = workload;
+        this.config = config;
+    }
+    
+    Stats run(Duration duration) throws InterruptedException {
+        Stats stats = new Stats();
+        long start = System.nanoTime();
+        if (config.model() == LoadTestConfig.Model.CLOSED) {
+            runClosed(stats, start + duration.toNanos());
+        } else {
+            runOpen(stats, start + duration.toNanos());
+        }
+        stats.elapsedNanos = System.nanoTime() - start;
+        return stats;
+    }
+    
+    private void runClosed(Stats stats, long deadline) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(config.concurrency(), threads("loadtest-user-"));
+        for (int i = 0; i < config.concurrency(); i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    Operation operation = workload.next();
+                    call(stats, operation, System.nanoTime());
+                    if (!config.thinkTime().isZero()) {
+                        LockSupport.parkNanos(config.thinkTime().toNanos());
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        awaitTermination(workers);
+    }
+    
+    // Uma thread marca o ritmo; cada chegada vai para o pool, que cresce até max-in-flight.
+    // Passando disso o próprio cliente saturou e a chegada é contada como descartada
+    private void runOpen(Stats stats, long deadline) throws InterruptedException {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(0, config.maxInFlight(), 30, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threads("loadtest-arrival-"));
+        long interval = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        long next = System.nanoTime();
+        while (next < deadline) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long intended = next;
+            Operation operation = workload.next();
+            try {
+                pool.execute(() -> call(stats, operation, intended));
+            } catch (RejectedExecutionException ex) {
+                stats.dropped.increment();
+            }
+            next += interval;
+        }
+        pool.shutdown();
+        awaitTermination(pool);
+    }
+    
+    private void call(Stats stats, Operation operation, long startNanos) {
+        OperationStats target = stats.of(operation);
+        try {
+            int status = workload.execute(operation);
+            long latencyMicros = (System.nanoTime() - startNanos) / 1_000;
+            if (status >= 200 && status < 300) {
+                target.latency.recordValue(latencyMicros);
+                target.ok.increment();
+            } else if (status == 503 || status == 429) {
+                // Recusa por bulkhead/limite adaptativo: carga além da capacidade, não defeito
+                target.rejected.increment();
+            } else {
+                target.errors.increment();
+                target.lastError = "HTTP " + status;
+            }
+        } catch (IOException ex) {
+            target.errors.increment();
+            target.lastError = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void awaitTermination(ExecutorService executor) throws InterruptedException {
+        // As requisições em voo têm até o timeout do cliente para terminar
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    static final class Stats {
+        private final Map<Operation, OperationStats> operations = new EnumMap<>(Operation.class);
+        private final LongAdder dropped = new LongAdder();
+        private long elapsedNanos;
+        
+        private Stats() {
+            for (Operation operation : Operation.values()) {
+                operations.put(operation, new OperationStats());
+            }
+        }
+        
+        OperationStats of(Operation operation) {
+            return operations.get(operation);
+        }
+        
+        long dropped() {
+            return dropped.sum();
+        }
+        
+        double elapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+    }
+    
+    static final class OperationStats {
+        // Microssegundos, 3 dígitos significativos; o histograma cresce sozinho até o maior valor visto
+        private final Recorder latency = new Recorder(3);
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private volatile String lastError;
+        
+        Histogram histogram() {
+            return latency.getIntervalHistogram();
+        }
+        
+        long ok() {
+            return ok.sum();
+        }
+        
+        long rejected() {
+            return rejected.sum();
+        }
+        
+        long errors() {
+            return errors.sum();
+        }
+        
+        String lastError() {
+            return lastError;
+        }
+    }
+}
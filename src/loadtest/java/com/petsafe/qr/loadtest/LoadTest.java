@@ -0,0 +1,55 @@
+package com.petsafe.qr.loadtest;
+
+import com.petsafe.qr.PetSafeQrApplication;
+import com.petsafe.qr.security.JwtTokenProvider;
+import com.petsafe.qr.service.PetSearchService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.nio.file.Path;
+
+// Teste de carga ponta a ponta: sobe a aplicação inteira com H2 em memória (perfil loadtest),
+// popula milhões de tutores e pets e dispara o mix de operações pelo HTTP real, com bulkheads,
+// limite adaptativo, cache e filtros ligados como em produção.
+//   mvn -Ploadtest -DskipTests verify
+//   mvn -Ploadtest -DskipTests verify -Dloadtest.model=open -Dloadtest.rate=2000 -Dloadtest.users=200000
+public final class LoadTest {
+    
+    private LoadTest() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PetSafeQrApplication.class)
+                .profiles("loadtest")
+                .run(args);
+        try {
+            SeededData data = new DataSeeder(context.getBean(DataSource.class), context.getBean(PasswordEncoder.class))
+                    .seed(config);
+            // O índice de perdidos foi montado na subida, com o banco ainda vazio
+            context.getBean(PetSearchService.class).loadMissingPetIndex();
+            
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Workload workload = new Workload(URI.create("http://localhost:" + port), data,
+                    context.getBean(JwtTokenProvider.class), config);
+            LoadGenerator generator = new LoadGenerator(workload, config);
+            
+            // Aquecimento: JIT, pools, cache de segundo nível e o limite adaptativo se acomodam
+            System.out.printf("Aquecimento por %ds...%n", config.warmup().toSeconds());
+            generator.run(config.warmup());
+            System.out.printf("Medição por %ds...%n", config.duration().toSeconds());
+            Report report = Report.of(config, generator.run(config.duration()));
+            
+            report.print(System.out);
+            Path reportPath = Path.of(config.report());
+            report.write(reportPath);
+            System.out.println("Relatório salvo em " + reportPath.toAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.petsafe.qr.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Parâmetros do teste de carga, lidos de -Dloadtest.* (o perfil loadtest do pom repassa cada um)
+record LoadTestConfig(
+        int users,
+        int petsPerUser,
+        double missingRatio,
+        Model model,
+        int concurrency,
+        int rate,
+        int maxInFlight,
+        Duration thinkTime,
+        Duration warmup,
+        Duration duration,
+        double zipfExponent,
+        Map<Operation, Integer> mix,
+        String report) {
+    
+    // closed: "concurrency" usuários em laço, cada um só envia a próxima depois da resposta.
+    // open: chegadas a "rate" req/s independentes das respostas, como tráfego real de QR Code
+    enum Model {
+        CLOSED, OPEN
+    }
+    
+    LoadTestConfig {
+        if (users < 1 || petsPerUser < 1) {
+            throw new IllegalArgumentException("loadtest.users e loadtest.pets-per-user precisam ser maiores que zero");
+        }
+        if (concurrency < 1 || rate < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("loadtest.concurrency, loadtest.rate e loadtest.max-in-flight precisam ser maiores que zero");
+        }
+    }
+    
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.users", 1_000_000),
+                Integer.getInteger("loadtest.pets-per-user", 2),
+                Double.parseDouble(System.getProperty("loadtest.missing-ratio", "0.01")),
+                Model.valueOf(System.getProperty("loadtest.model", "closed").toUpperCase()),
+                Integer.getInteger("loadtest.concurrency", 64),
+                Integer.getInteger("loadtest.rate", 500),
+                Integer.getInteger("loadtest.max-in-flight", 1000),
+                Duration.parse(System.getProperty("loadtest.think-time", "PT0S")),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT30S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT2M")),
+                Double.parseDouble(System.getProperty("loadtest.zipf-exponent", "1.1")),
+                parseMix(System.getProperty("loadtest.mix", "scan:80,login:3,list:9,update:5,upload:3")),
+                System.getProperty("loadtest.report", "target/loadtest-report.json"));
+    }
+    
+    // "scan:80,login:3" -> pesos relativos; operação ausente fica com peso 0
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Entrada inválida em loadtest.mix: " + entry);
+            }
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("loadtest.mix precisa de ao menos uma operação com peso positivo");
+        }
+        return weights;
+    }
+    
+    long pets() {
+        return (long) users * petsPerUser;
+    }
+}
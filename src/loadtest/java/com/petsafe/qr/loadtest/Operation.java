@@ -0,0 +1,20 @@
+package com.petsafe.qr.loadtest;
+
+// Operações do mix; o nome é o usado em loadtest.mix e no relatório
+enum Operation {
+    SCAN("GET /api/public/pet/{uuid}"),
+    LOGIN("POST /api/auth/login"),
+    LIST("GET /api/pets"),
+    UPDATE("PUT /api/pets/{id}"),
+    UPLOAD("PUT /api/pets/{id}/photo");
+    
+    private final String route;
+    
+    Operation(String route) {
+        this.route = route;
+    }
+    
+    String route() {
+        return route;
+    }
+}
@@ -0,0 +1,95 @@
+package com.petsafe.qr.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Vazão e percentis por operação: tabela no console e JSON para comparar execuções
+record Report(LoadTestConfig config, double elapsedSeconds, long dropped, List<OperationResult> operations,
+              OperationResult total) {
+    
+    record OperationResult(String operation, String route, long ok, long rejected, long errors,
+                           double throughput, double p50Ms, double p90Ms, double p99Ms, double p999Ms,
+                           double maxMs, String lastError) {
+    }
+    
+    static Report of(LoadTestConfig config, LoadGenerator.Stats stats) {
+        List<OperationResult> operations = new ArrayList<>();
+        Histogram all = new Histogram(3);
+        long ok = 0;
+        long rejected = 0;
+        long errors = 0;
+        for (Operation operation : Operation.values()) {
+            LoadGenerator.OperationStats operationStats = stats.of(operation);
+            Histogram histogram = operationStats.histogram();
+            if (histogram.getTotalCount() == 0 && operationStats.rejected() == 0 && operationStats.errors() == 0) {
+                continue;
+            }
+            all.add(histogram);
+            ok += operationStats.ok();
+            rejected += operationStats.rejected();
+            errors += operationStats.errors();
+            operations.add(result(operation.name().toLowerCase(), operation.route(), histogram, operationStats.ok(),
+                    operationStats.rejected(), operationStats.errors(), operationStats.lastError(), stats.elapsedSeconds()));
+        }
+        OperationResult total = result("total", "", all, ok, rejected, errors, null, stats.elapsedSeconds());
+        return new Report(config, stats.elapsedSeconds(), stats.dropped(), operations, total);
+    }
+    
+    private static OperationResult result(String name, String route, Histogram histogram, long ok, long rejected,
+                                          long errors, String lastError, double seconds) {
+        return new OperationResult(name, route, ok, rejected, errors, ok / seconds,
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getTotalCount() == 0 ? 0 : histogram.getMaxValue() / 1000.0, lastError);
+    }
+    
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+    
+    void print(PrintStream out) {
+        out.printf("%nModelo %s, %s, %.1fs medidos%n", config.model().name().toLowerCase(),
+                config.model() == LoadTestConfig.Model.CLOSED
+                        ? config.concurrency() + " usuários simultâneos"
+                        : config.rate() + " chegadas/s",
+                elapsedSeconds);
+        out.printf("%-8s %10s %10s %9s %9s %9s %9s %9s %9s %8s%n",
+                "Operação", "ok", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "máx ms", "503/429", "erros");
+        for (OperationResult result : operations) {
+            print(out, result);
+        }
+        print(out, total);
+        if (dropped > 0) {
+            out.printf("%d chegadas descartadas: o cliente atingiu max-in-flight (%d)%n", dropped, config.maxInFlight());
+        }
+        for (OperationResult result : operations) {
+            if (result.lastError() != null) {
+                out.printf("Último erro em %s: %s%n", result.operation(), result.lastError());
+            }
+        }
+    }
+    
+    private static void print(PrintStream out, OperationResult result) {
+        out.printf("%-8s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9d %8d%n",
+                result.operation(), result.ok(), result.throughput(), result.p50Ms(), result.p90Ms(), result.p99Ms(),
+                result.p999Ms(), result.maxMs(), result.rejected(), result.errors());
+    }
+    
+    void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper()
+                .findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .writeValue(path.toFile(), this);
+    }
+}
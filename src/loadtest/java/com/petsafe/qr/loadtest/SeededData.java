@@ -0,0 +1,34 @@
+package com.petsafe.qr.loadtest;
+
+import java.util.UUID;
+
+// Ids determinísticos: o gerador deriva usuário, pet e dono de um índice, sem guardar milhões de UUIDs
+record SeededData(int users, int petsPerUser, String password) {
+    
+    private static final long USER_MSB = 0x5EED_0000_0000_4000L;
+    private static final long PET_MSB = 0x5EED_0001_0000_4000L;
+    
+    static UUID userId(long user) {
+        return new UUID(USER_MSB, user);
+    }
+    
+    static UUID petId(long pet) {
+        return new UUID(PET_MSB, pet);
+    }
+    
+    static String email(long user) {
+        return "tutor" + user + "@loadtest.petsafe.com";
+    }
+    
+    long pets() {
+        return (long) users * petsPerUser;
+    }
+    
+    long ownerOf(long pet) {
+        return pet / petsPerUser;
+    }
+    
+    long petOf(long user, int index) {
+        return user * petsPerUser + index;
+    }
+}
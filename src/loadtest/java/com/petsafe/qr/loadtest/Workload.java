@@ -0,0 +1,151 @@
+package com.petsafe.qr.loadtest;
+
+import com.petsafe.qr.security.JwtTokenProvider;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Sorteia a operação pelo mix e executa a requisição HTTP. Scans escolhem o pet por Zipf; as
+// operações do tutor escolhem o usuário de forma uniforme e usam um JWT emitido localmente, para
+// que só o LOGIN pague o BCrypt
+final class Workload {
+    
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    // Fotos distintas (ruído aleatório): cada upload gera um hash novo em vez de cair na deduplicação
+    private static final int PHOTOS = 32;
+    private static final int PHOTO_SIZE = 256;
+    // Espalha os pets mais quentes pela tabela em vez de concentrá-los nos primeiros tutores
+    private static final long SCATTER = 2_654_435_761L;
+    
+    private final HttpClient client;
+    private final URI baseUri;
+    private final SeededData data;
+    private final JwtTokenProvider tokenProvider;
+    private final ZipfSampler scanSampler;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final List<byte[]> photos = new ArrayList<>();
+    
+    Workload(URI baseUri, SeededData data, JwtTokenProvider tokenProvider, LoadTestConfig config) throws IOException {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .build();
+        this.baseUri = baseUri;
+        this.data = data;
+        this.tokenProvider = tokenProvider;
+        this.scanSampler = new ZipfSampler((int) Math.min(Integer.MAX_VALUE, data.pets()), config.zipfExponent());
+        
+        List<Operation> enabled = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Operation, Integer> entry : config.mix().entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                enabled.add(entry.getKey());
+                cumulative.add(total);
+            }
+        }
+        this.operations = enabled.toArray(Operation[]::new);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+        
+        if (config.mix().getOrDefault(Operation.UPLOAD, 0) > 0) {
+            for (int i = 0; i < PHOTOS; i++) {
+                photos.add(randomPng());
+            }
+        }
+    }
+    
+    Operation next() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+    
+    // Status HTTP da resposta; falha de conexão ou timeout sobe como exceção
+    int execute(Operation operation) throws IOException, InterruptedException {
+        HttpRequest request = switch (operation) {
+            case SCAN -> get("/api/public/pet/" + SeededData.petId(hotPet())).build();
+            case LOGIN -> {
+                long user = randomUser();
+                String body = "{\"email\":\"" + SeededData.email(user) + "\",\"password\":\"" + data.password() + "\"}";
+                yield request("/api/auth/login")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+            case LIST -> authenticated(get("/api/pets"), randomUser()).build();
+            case UPDATE -> {
+                long user = randomUser();
+                String body = "{\"ownerNotes\":\"Atualizado em " + System.currentTimeMillis() + "\"}";
+                yield authenticated(request("/api/pets/" + randomPetOf(user)), user)
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+            case UPLOAD -> {
+                long user = randomUser();
+                byte[] photo = photos.get(ThreadLocalRandom.current().nextInt(photos.size()));
+                yield authenticated(request("/api/pets/" + randomPetOf(user) + "/photo"), user)
+                        .header("Content-Type", "image/png")
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(photo))
+                        .build();
+            }
+        };
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+    
+    private long hotPet() {
+        long rank = scanSampler.sample() - 1;
+        return Math.floorMod(rank * SCATTER, data.pets());
+    }
+    
+    private long randomUser() {
+        return ThreadLocalRandom.current().nextLong(data.users());
+    }
+    
+    private UUID randomPetOf(long user) {
+        return SeededData.petId(data.petOf(user, ThreadLocalRandom.current().nextInt(data.petsPerUser())));
+    }
+    
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(TIMEOUT);
+    }
+    
+    private HttpRequest.Builder get(String path) {
+        return request(path).GET();
+    }
+    
+    private HttpRequest.Builder authenticated(HttpRequest.Builder builder, long user) {
+        return builder.header("Authorization", "Bearer " + tokenProvider.generateTokenFromUserId(SeededData.userId(user)));
+    }
+    
+    private static byte[] randomPng() throws IOException {
+        BufferedImage image = new BufferedImage(PHOTO_SIZE, PHOTO_SIZE, BufferedImage.TYPE_INT_RGB);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int y = 0; y < PHOTO_SIZE; y++) {
+            for (int x = 0; x < PHOTO_SIZE; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
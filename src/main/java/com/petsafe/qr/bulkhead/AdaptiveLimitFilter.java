@@ -0,0 +1,60 @@
+package com.petsafe.qr.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+
+// Recusa com 503 o que passa do limite adaptativo antes de qualquer fila (bulkhead, pool, Tomcat).
+// A latência é medida por rota do controller (método + padrão do mapeamento), conhecida só
+// depois que o DispatcherServlet resolveu o handler; sem handler vale a classe de rota.
+// O despacho de volta de uma requisição assíncrona não passa aqui (padrão do OncePerRequestFilter):
+// a vaga pega no primeiro despacho só é devolvida quando a resposta termina
+public class AdaptiveLimitFilter extends OncePerRequestFilter {
+    
+    private final AdaptiveLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+    
+    public AdaptiveLimitFilter(AdaptiveLimiter limiter, ObjectMapper objectMapper) {
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RouteClass routeClass = RouteClass.of(urlPathHelper.getPathWithinApplication(request));
+        if (!limiter.tryAcquire(routeClass)) {
+            BulkheadFilter.writeOverloaded(request, response, objectMapper);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean threw = true;
+        try {
+            filterChain.doFilter(request, response);
+            threw = false;
+        } finally {
+            // Resposta assíncrona (exportação): a vaga e a latência vão até o fim da escrita
+            boolean failed = threw;
+            BulkheadFilter.whenComplete(request, () -> {
+                if (failed || response.getStatus() >= 500) {
+                    limiter.releaseWithoutSample();
+                } else {
+                    limiter.release(route(request, routeClass), System.nanoTime() - start);
+                }
+            });
+        }
+    }
+    
+    private static String route(HttpServletRequest request, RouteClass routeClass) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? routeClass.key() : request.getMethod() + " " + pattern;
+    }
+}
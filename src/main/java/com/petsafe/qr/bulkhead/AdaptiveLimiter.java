@@ -0,0 +1,184 @@
+package com.petsafe.qr.bulkhead;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Limite de requisições em andamento que se ajusta pela latência (gradiente, no estilo Vegas).
+// A cada janela (~limite amostras) compara a latência média de cada rota com a latência base dela,
+// a menor média recente. Passou de tolerance x base (Postgres lento, fila de conexões): o limite
+// encolhe na mesma proporção e o excesso é recusado na hora. Dentro da tolerância e com o limite
+// em uso, cresce raiz(limite).
+// Cada rota tem a própria base para que um endpoint naturalmente lento (exportação) não pareça
+// congestionamento, e a média da janela (não a amostra mínima) evita que um acerto de cache vire base.
+// Leitura pública de QR Code pode ocupar o limite inteiro; as outras classes só até nonPublicShare
+// dele, então são as primeiras a receber 503.
+// A amostra de cada requisição só soma em contadores sem lock; o lock fica com quem fecha a janela
+// (uma vez a cada ~limite amostras), e quem chega enquanto isso segue sem esperar
+@ManagedResource(objectName = "com.petsafe.qr:type=AdaptiveLimiter,name=adaptiveLimiter",
+        description = "Limite adaptativo de requisições simultâneas")
+public class AdaptiveLimiter {
+    
+    private static final int MIN_WINDOW_SAMPLES = 20;
+    
+    // A base é a menor média das últimas 500 a 1000 janelas: se o banco fica mais lento de vez, o
+    // limite volta a crescer depois disso a partir da nova base
+    private static final int BASELINE_WINDOWS = 500;
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double nonPublicShare;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final Map<String, RouteLatency> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger windowSamples = new AtomicInteger();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final ReentrantLock windowLock = new ReentrantLock();
+    private volatile double limit;
+    
+    // tolerance: quanto a latência pode passar da base antes de o limite encolher (1.5 = 50%)
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                           double nonPublicShare) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.nonPublicShare = nonPublicShare;
+    }
+    
+    public boolean tryAcquire(RouteClass routeClass) {
+        int allowed = routeClass == RouteClass.PUBLIC ? (int) limit : Math.max(1, (int) (limit * nonPublicShare));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    // Requisição terminou normalmente: a latência entra na conta do limite
+    public void release(String route, long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        onSample(route, rttNanos, current);
+    }
+    
+    // Erro do servidor: um 5xx rápido não é sinal de folga, então não vira amostra
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+    
+    private void onSample(String route, long rttNanos, int inFlightAtFinish) {
+        RouteLatency latency = routes.get(route);
+        if (latency == null) {
+            latency = routes.computeIfAbsent(route, key -> new RouteLatency());
+        }
+        latency.add(rttNanos);
+        windowMaxInFlight.accumulateAndGet(inFlightAtFinish, Math::max);
+        if (windowSamples.incrementAndGet() >= windowSize() && windowLock.tryLock()) {
+            try {
+                // Outra thread pode ter fechado a janela entre o incremento e o lock
+                if (windowSamples.get() >= windowSize()) {
+                    closeWindow();
+                }
+            } finally {
+                windowLock.unlock();
+            }
+        }
+    }
+    
+    private double windowSize() {
+        return Math.max(MIN_WINDOW_SAMPLES, limit);
+    }
+    
+    // Só roda com windowLock: a base de cada rota e o limite têm um único escritor
+    private void closeWindow() {
+        windowSamples.set(0);
+        int maxInFlight = windowMaxInFlight.getAndSet(0);
+        // Razão base/média de cada rota, ponderada pelo número de amostras
+        double ratioSum = 0;
+        long samples = 0;
+        for (RouteLatency latency : routes.values()) {
+            long window = latency.window.getAndSet(0);
+            long count = window & RouteLatency.COUNT_MASK;
+            if (count > 0) {
+                ratioSum += latency.closeWindow(window >>> RouteLatency.COUNT_BITS, count) * count;
+                samples += count;
+            }
+        }
+        if (samples == 0) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * ratioSum / samples));
+        double newLimit;
+        if (gradient < 1.0) {
+            newLimit = limit * gradient;
+        } else if (maxInFlight >= limit / 2) {
+            newLimit = limit + Math.sqrt(limit);
+        } else {
+            // Com menos da metade do limite em uso a latência não diz nada sobre a capacidade
+            newLimit = limit;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + newLimit * smoothing));
+    }
+    
+    @ManagedAttribute(description = "Requisições simultâneas permitidas agora")
+    public int getLimit() {
+        return (int) limit;
+    }
+    
+    @ManagedAttribute(description = "Requisições em andamento")
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    @ManagedAttribute(description = "Requisições recusadas com 503")
+    public long getRejectedCalls() {
+        return rejected.sum();
+    }
+    
+    // Menor média por janela em dois baldes de BASELINE_WINDOWS: o balde antigo expira inteiro.
+    // window recebe as amostras de qualquer thread; o resto só é tocado por closeWindow
+    private static final class RouteLatency {
+        // Soma da janela em microssegundos nos bits altos e contagem nos 20 baixos, num único long:
+        // closeWindow lê e zera as duas juntas. Com contadores separados uma amostra podia deixar a
+        // soma numa janela e a contagem na seguinte, e a média baixa falsa virava base
+        private static final int COUNT_BITS = 20;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+        
+        private final AtomicLong window = new AtomicLong();
+        private int windowsInBucket;
+        private double currentMin = Double.MAX_VALUE;
+        private double previousMin = Double.MAX_VALUE;
+        
+        private void add(long rttNanos) {
+            window.addAndGet((TimeUnit.NANOSECONDS.toMicros(rttNanos) << COUNT_BITS) + 1);
+        }
+        
+        // Fecha a janela da rota e devolve base / média (1 = sem fila)
+        private double closeWindow(long sum, long count) {
+            double average = (double) sum / count;
+            currentMin = Math.min(currentMin, average);
+            if (++windowsInBucket >= BASELINE_WINDOWS) {
+                previousMin = currentMin;
+                currentMin = Double.MAX_VALUE;
+                windowsInBucket = 0;
+            }
+            double baseline = Math.min(currentMin, previousMin);
+            return baseline / average;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.petsafe.qr.bulkhead;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Vagas de uma classe de rota: requisições em andamento e conexões do banco seguradas ao mesmo tempo.
+// Quem não consegue vaga em maxWait é recusado na hora, em vez de entrar na fila comum e atrasar
+// as outras classes. A classe da requisição atual fica em uma ThreadLocal para o BulkheadDataSource
+@ManagedResource(description = "Limite de concorrência de uma classe de rota")
+public class Bulkhead {
+    
+    private static final ThreadLocal<Bulkhead> CURRENT = new ThreadLocal<>();
+    
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final int connectionQuota;
+    private final long maxWaitNanos;
+    private final long connectionMaxWaitNanos;
+    private final Semaphore calls;
+    private final Semaphore connections;
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder rejectedConnections = new LongAdder();
+    
+    // connectionQuota 0 = sem cota própria, só o limite do pool
+    public Bulkhead(String name, int maxConcurrentCalls, int connectionQuota, Duration maxWait) {
+        this(name, maxConcurrentCalls, connectionQuota, maxWait, maxWait);
+    }
+    
+    // connectionMaxWait pode ser maior que maxWait: várias requisições dividem cada conexão da cota,
+    // e uma delas esperar o fim de uma transação curta é normal
+    public Bulkhead(String name, int maxConcurrentCalls, int connectionQuota, Duration maxWait,
+                    Duration connectionMaxWait) {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.connectionQuota = connectionQuota;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.connectionMaxWaitNanos = connectionMaxWait.toNanos();
+        this.calls = new Semaphore(maxConcurrentCalls);
+        this.connections = connectionQuota > 0 ? new Semaphore(connectionQuota) : null;
+    }
+    
+    public static Bulkhead current() {
+        return CURRENT.get();
+    }
+    
+    static void bind(Bulkhead bulkhead) {
+        CURRENT.set(bulkhead);
+    }
+    
+    static void unbind() {
+        CURRENT.remove();
+    }
+    
+    // Leva o bulkhead da requisição para a thread que executa a tarefa (o corpo de um
+    // StreamingResponseBody roda no executor do Spring MVC e abre a própria transação)
+    public static Runnable propagate(Runnable task) {
+        Bulkhead bulkhead = CURRENT.get();
+        if (bulkhead == null) {
+            return task;
+        }
+        return () -> {
+            Bulkhead previous = CURRENT.get();
+            CURRENT.set(bulkhead);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+    
+    public boolean tryEnter() {
+        if (acquire(calls, maxWaitNanos)) {
+            return true;
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+    
+    public void exit() {
+        calls.release();
+    }
+    
+    boolean hasConnectionQuota() {
+        return connections != null;
+    }
+    
+    boolean tryAcquireConnection() {
+        if (acquire(connections, connectionMaxWaitNanos)) {
+            return true;
+        }
+        rejectedConnections.increment();
+        return false;
+    }
+    
+    void releaseConnection() {
+        connections.release();
+    }
+    
+    private static boolean acquire(Semaphore semaphore, long timeoutNanos) {
+        try {
+            return semaphore.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    @ManagedAttribute(description = "Requisições simultâneas permitidas")
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+    
+    @ManagedAttribute(description = "Requisições em andamento")
+    public int getActiveCalls() {
+        return maxConcurrentCalls - calls.availablePermits();
+    }
+    
+    @ManagedAttribute(description = "Fração das vagas de requisição ocupadas")
+    public double getSaturation() {
+        return maxConcurrentCalls == 0 ? 1.0 : (double) getActiveCalls() / maxConcurrentCalls;
+    }
+    
+    @ManagedAttribute(description = "Requisições recusadas com 503")
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+    
+    @ManagedAttribute(description = "Conexões do banco reservadas para a classe (0 = sem cota)")
+    public int getConnectionQuota() {
+        return connectionQuota;
+    }
+    
+    @ManagedAttribute(description = "Conexões do banco em uso pela classe")
+    public int getActiveConnections() {
+        return connections == null ? 0 : connectionQuota - connections.availablePermits();
+    }
+    
+    @ManagedAttribute(description = "Pedidos de conexão recusados por cota esgotada")
+    public long getRejectedConnections() {
+        return rejectedConnections.sum();
+    }
+}
@@ -0,0 +1,82 @@
+package com.petsafe.qr.bulkhead;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Divide o pool único em cotas por classe de rota: cada conexão entregue ocupa uma vaga do bulkhead
+// da requisição até ser fechada. Com as cotas somando no máximo o tamanho do pool, o painel do tutor
+// sempre encontra conexão livre mesmo com as leituras públicas no limite, e vice-versa.
+// Fora de requisição (migrações, jobs agendados) não há bulkhead e a conexão sai direto do pool
+public class BulkheadDataSource extends DelegatingDataSource {
+    
+    public BulkheadDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return withQuota(super::getConnection);
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return withQuota(() -> super.getConnection(username, password));
+    }
+    
+    private Connection withQuota(ConnectionOpener opener) throws SQLException {
+        Bulkhead bulkhead = Bulkhead.current();
+        if (bulkhead == null || !bulkhead.hasConnectionQuota()) {
+            return opener.open();
+        }
+        if (!bulkhead.tryAcquireConnection()) {
+            throw new SQLTransientConnectionException("Cota de conexões do bulkhead " + bulkhead.getName() + " esgotada");
+        }
+        try {
+            return releasingOnClose(opener.open(), bulkhead);
+        } catch (SQLException | RuntimeException ex) {
+            bulkhead.releaseConnection();
+            throw ex;
+        }
+    }
+    
+    private static Connection releasingOnClose(Connection target, Bulkhead bulkhead) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getTargetConnection":
+                            return target;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            if (released.compareAndSet(false, true)) {
+                                bulkhead.releaseConnection();
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+    
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open() throws SQLException;
+    }
+}
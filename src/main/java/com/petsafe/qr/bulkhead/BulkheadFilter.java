@@ -0,0 +1,121 @@
+package com.petsafe.qr.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petsafe.qr.dto.ErrorResponse;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+// Primeiro filtro da cadeia, antes do JWT (que já consulta o banco): uma enxurrada de leituras de
+// QR Code ou de tentativas de login esgota só as vagas da própria classe.
+// Uma requisição assíncrona (exportação com StreamingResponseBody) segura a vaga até o fim da
+// resposta, não só até o controller devolver o corpo
+public class BulkheadFilter extends OncePerRequestFilter {
+    
+    public static final String OVERLOADED_MESSAGE = "Servidor ocupado; tente novamente em instantes";
+    
+    private static final String BULKHEAD_ATTRIBUTE = BulkheadFilter.class.getName() + ".bulkhead";
+    
+    private final BulkheadRegistry bulkheads;
+    private final ObjectMapper objectMapper;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+    
+    public BulkheadFilter(BulkheadRegistry bulkheads, ObjectMapper objectMapper) {
+        this.bulkheads = bulkheads;
+        this.objectMapper = objectMapper;
+    }
+    
+    // O despacho de volta de uma requisição assíncrona também passa aqui, para reaplicar o bulkhead
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            // A vaga já é da requisição desde o primeiro despacho
+            doFilterBound((Bulkhead) request.getAttribute(BULKHEAD_ATTRIBUTE), request, response, filterChain);
+            return;
+        }
+        Bulkhead bulkhead = bulkheads.get(RouteClass.of(urlPathHelper.getPathWithinApplication(request)));
+        if (!bulkhead.tryEnter()) {
+            writeOverloaded(request, response, objectMapper);
+            return;
+        }
+        request.setAttribute(BULKHEAD_ATTRIBUTE, bulkhead);
+        try {
+            doFilterBound(bulkhead, request, response, filterChain);
+        } finally {
+            whenComplete(request, bulkhead::exit);
+        }
+    }
+    
+    private static void doFilterBound(Bulkhead bulkhead, HttpServletRequest request, HttpServletResponse response,
+                                      FilterChain filterChain) throws ServletException, IOException {
+        Bulkhead.bind(bulkhead);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Bulkhead.unbind();
+        }
+    }
+    
+    // Roda agora, ou quando a resposta assíncrona terminar (inclusive por erro ou timeout, que
+    // também terminam em onComplete)
+    static void whenComplete(HttpServletRequest request, Runnable action) {
+        if (!request.isAsyncStarted()) {
+            action.run();
+            return;
+        }
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                action.run();
+            }
+            
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+            
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+            
+            // Um novo startAsync descarta os listeners registrados: este precisa se registrar de novo
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+                event.getAsyncContext().addListener(this);
+            }
+        });
+    }
+    
+    // Mesma resposta para bulkhead cheio e limite adaptativo: 503 com Retry-After
+    static void writeOverloaded(HttpServletRequest request, HttpServletResponse response, ObjectMapper objectMapper)
+            throws IOException {
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                OVERLOADED_MESSAGE,
+                request.getRequestURI()
+        );
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
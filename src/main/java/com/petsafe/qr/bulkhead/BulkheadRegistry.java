@@ -0,0 +1,26 @@
+package com.petsafe.qr.bulkhead;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+public class BulkheadRegistry {
+    
+    private final Map<RouteClass, Bulkhead> bulkheads;
+    
+    public BulkheadRegistry(Map<RouteClass, Bulkhead> bulkheads) {
+        if (bulkheads.size() != RouteClass.values().length) {
+            throw new IllegalArgumentException("Todas as classes de rota precisam de um bulkhead");
+        }
+        this.bulkheads = Collections.unmodifiableMap(new EnumMap<>(bulkheads));
+    }
+    
+    public Bulkhead get(RouteClass routeClass) {
+        return bulkheads.get(routeClass);
+    }
+    
+    public Collection<Bulkhead> all() {
+        return bulkheads.values();
+    }
+}
@@ -0,0 +1,37 @@
+package com.petsafe.qr.bulkhead;
+
+import com.petsafe.qr.config.SecurityConfig;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Locale;
+
+// Classes de tráfego com limites próprios, a partir das mesmas listas de rotas do SecurityConfig.
+// Tudo que não é público nem autenticação é tráfego de tutor logado
+public enum RouteClass {
+    PUBLIC(SecurityConfig.PUBLIC_ROUTES),
+    AUTH(SecurityConfig.AUTH_ROUTES),
+    OWNER();
+    
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+    
+    private final String[] patterns;
+    
+    RouteClass(String... patterns) {
+        this.patterns = patterns;
+    }
+    
+    public static RouteClass of(String path) {
+        for (RouteClass routeClass : values()) {
+            for (String pattern : routeClass.patterns) {
+                if (MATCHER.match(pattern, path)) {
+                    return routeClass;
+                }
+            }
+        }
+        return OWNER;
+    }
+    
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
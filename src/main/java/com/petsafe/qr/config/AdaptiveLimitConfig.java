@@ -0,0 +1,38 @@
+package com.petsafe.qr.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petsafe.qr.bulkhead.AdaptiveLimitFilter;
+import com.petsafe.qr.bulkhead.AdaptiveLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Limite adaptativo pela latência (app.limiter.*), na frente dos bulkheads. Desligado com app.limiter.enabled=false
+@Configuration
+@ConditionalOnProperty(name = "app.limiter.enabled", havingValue = "true", matchIfMissing = true)
+public class AdaptiveLimitConfig {
+    
+    @Bean
+    public AdaptiveLimiter adaptiveLimiter(
+            @Value("${app.limiter.initial-limit:50}") int initialLimit,
+            @Value("${app.limiter.min-limit:8}") int minLimit,
+            @Value("${app.limiter.max-limit:400}") int maxLimit,
+            @Value("${app.limiter.tolerance:1.5}") double tolerance,
+            @Value("${app.limiter.smoothing:0.2}") double smoothing,
+            @Value("${app.limiter.non-public-share:0.8}") double nonPublicShare) {
+        return new AdaptiveLimiter(initialLimit, minLimit, maxLimit, tolerance, smoothing, nonPublicShare);
+    }
+    
+    // Antes do bulkhead: o que vai ser recusado não chega a esperar max-wait por uma vaga
+    @Bean
+    public FilterRegistrationBean<AdaptiveLimitFilter> adaptiveLimitFilter(AdaptiveLimiter adaptiveLimiter,
+                                                                           ObjectMapper objectMapper) {
+        FilterRegistrationBean<AdaptiveLimitFilter> registration =
+                new FilterRegistrationBean<>(new AdaptiveLimitFilter(adaptiveLimiter, objectMapper));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+}
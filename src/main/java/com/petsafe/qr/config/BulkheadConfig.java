@@ -0,0 +1,104 @@
+package com.petsafe.qr.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petsafe.qr.bulkhead.Bulkhead;
+import com.petsafe.qr.bulkhead.BulkheadDataSource;
+import com.petsafe.qr.bulkhead.BulkheadFilter;
+import com.petsafe.qr.bulkhead.BulkheadRegistry;
+import com.petsafe.qr.bulkhead.RouteClass;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.support.ObjectNameManager;
+
+import javax.management.MalformedObjectNameException;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Um bulkhead por classe de rota (app.bulkhead.<public|owner|auth>.*), cada um com seu limite de
+// requisições simultâneas e sua cota de conexões do pool. A cota é uma fração (db-pool-share) de
+// spring.datasource.hikari.maximum-pool-size, para acompanhar o pool quando ele for redimensionado.
+// Desligado com app.bulkhead.enabled=false
+@Configuration
+@ConditionalOnProperty(name = "app.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class BulkheadConfig {
+    
+    // Padrão do Hikari quando maximum-pool-size não é definido
+    private static final int DEFAULT_POOL_SIZE = 10;
+    
+    @Bean
+    public BulkheadRegistry bulkheadRegistry(Environment environment, ObjectProvider<MBeanExporter> mbeanExporter)
+            throws MalformedObjectNameException {
+        Duration maxWait = environment.getProperty("app.bulkhead.max-wait", Duration.class, Duration.ofMillis(20));
+        Duration connectionMaxWait = environment.getProperty("app.bulkhead.connection-max-wait", Duration.class, maxWait);
+        int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class,
+                DEFAULT_POOL_SIZE);
+        Map<RouteClass, Bulkhead> bulkheads = new EnumMap<>(RouteClass.class);
+        for (RouteClass routeClass : RouteClass.values()) {
+            String prefix = "app.bulkhead." + routeClass.key() + ".";
+            double poolShare = environment.getProperty(prefix + "db-pool-share", Double.class, 0.0);
+            Bulkhead bulkhead = new Bulkhead(routeClass.key(),
+                    environment.getProperty(prefix + "max-concurrent", Integer.class, 100),
+                    connectionQuota(poolSize, poolShare),
+                    maxWait,
+                    connectionMaxWait);
+            bulkheads.put(routeClass, bulkhead);
+            // Saturação e recusas de cada classe ficam visíveis no JConsole/VisualVM
+            MBeanExporter exporter = mbeanExporter.getIfAvailable();
+            if (exporter != null) {
+                exporter.registerManagedResource(bulkhead,
+                        ObjectNameManager.getInstance("com.petsafe.qr:type=Bulkhead,name=" + routeClass.key()));
+            }
+        }
+        return new BulkheadRegistry(bulkheads);
+    }
+    
+    // Arredonda para baixo (a soma das frações nunca passa do pool), mas uma classe com fração não
+    // fica sem nenhuma conexão; 0 = sem cota própria
+    static int connectionQuota(int poolSize, double poolShare) {
+        if (poolShare <= 0) {
+            return 0;
+        }
+        return Math.max(1, (int) Math.floor(poolSize * poolShare));
+    }
+    
+    // O corpo de um StreamingResponseBody roda no executor assíncrono do Spring MVC: a transação
+    // da exportação precisa do bulkhead da requisição para usar a cota de conexões da classe
+    @Bean
+    public TaskDecorator bulkheadTaskDecorator() {
+        return Bulkhead::propagate;
+    }
+    
+    // Antes do Spring Security: a requisição recusada não chega a validar o JWT nem a buscar o usuário
+    @Bean
+    public FilterRegistrationBean<BulkheadFilter> bulkheadFilter(BulkheadRegistry bulkheadRegistry,
+                                                                 ObjectMapper objectMapper) {
+        FilterRegistrationBean<BulkheadFilter> registration =
+                new FilterRegistrationBean<>(new BulkheadFilter(bulkheadRegistry, objectMapper));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+    
+    // static: o post-processor precisa existir antes de o DataSource ser criado
+    @Bean
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+                    return new BulkheadDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
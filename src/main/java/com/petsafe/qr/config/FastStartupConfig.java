@@ -0,0 +1,48 @@
+package com.petsafe.qr.config;
+
+import com.petsafe.qr.controller.PublicController;
+import jdk.jfr.Recording;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.Schedules;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+// Perfil fast-startup: com spring.main.lazy-initialization o contexto sobe sem criar os beans que
+// ninguém pediu ainda. Ficam de fora da inicialização tardia:
+// - beans com @Scheduled: o agendamento só é registrado quando o bean é criado, e um bean
+//   preguiçoso nunca seria
+// - beans com @EventListener: o índice de pets perdidos precisa estar pronto antes do primeiro scan
+// - o caminho do scan do QR Code (PublicController e o que ele puxa), que é o que o autoscaling
+//   precisa servir logo ao subir
+// - a gravação contínua do JFR, que só registra a partir de quando for criada
+@Configuration
+@Profile("fast-startup")
+public class FastStartupConfig {
+    
+    private static final List<Class<?>> EAGER_TYPES = List.of(PublicController.class, Recording.class);
+    
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (EAGER_TYPES.stream().anyMatch(type -> type.isAssignableFrom(beanType)) || hasCallbacks(beanType));
+    }
+    
+    private static boolean hasCallbacks(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                isCallback(method) ? Boolean.TRUE : null).isEmpty();
+    }
+    
+    private static boolean isCallback(Method method) {
+        return AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                || AnnotatedElementUtils.hasAnnotation(method, Schedules.class)
+                || AnnotatedElementUtils.hasAnnotation(method, EventListener.class);
+    }
+}
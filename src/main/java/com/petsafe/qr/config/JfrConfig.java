@@ -0,0 +1,96 @@
+package com.petsafe.qr.config;
+
+import com.petsafe.qr.exception.GlobalExceptionHandler;
+import com.petsafe.qr.jfr.ExceptionHandledEventInterceptor;
+import com.petsafe.qr.jfr.PetServiceEventInterceptor;
+import com.petsafe.qr.service.PetService;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Eventos do JFR nos pontos que não emitem sozinhos (PetService e GlobalExceptionHandler) e, com
+// app.jfr.enabled=true, uma gravação contínua com o perfil default do JDK mais jfr/petsafe.jfc.
+// Sem gravação ativa os eventos ficam desligados e o custo é um teste de flag por chamada
+@org.springframework.context.annotation.Configuration
+public class JfrConfig {
+    
+    public static final String SETTINGS = "jfr/petsafe.jfc";
+    
+    @Bean
+    public static AbstractAdvisingBeanPostProcessor petServiceJfrEvents() {
+        return advising(PetService.class, new PetServiceEventInterceptor(),
+                method -> Modifier.isPublic(method.getModifiers()));
+    }
+    
+    @Bean
+    public static AbstractAdvisingBeanPostProcessor exceptionHandlerJfrEvents() {
+        return advising(GlobalExceptionHandler.class, new ExceptionHandledEventInterceptor(),
+                method -> method.isAnnotationPresent(ExceptionHandler.class));
+    }
+    
+    // Mantida até o desligamento; o stop grava o arquivo em app.jfr.dir
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(name = "app.jfr.enabled", havingValue = "true")
+    public Recording continuousRecording(@Value("${app.jfr.dir:jfr}") String dir,
+                                         @Value("${app.jfr.max-age:PT6H}") Duration maxAge)
+            throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        try (Reader reader = new InputStreamReader(new ClassPathResource(SETTINGS).getInputStream(),
+                StandardCharsets.UTF_8)) {
+            settings.putAll(Configuration.create(reader).getSettings());
+        }
+        Recording recording = new Recording(settings);
+        recording.setName("petsafe");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setDumpOnExit(true);
+        recording.setDestination(Files.createDirectories(Paths.get(dir)).resolve("petsafe.jfr"));
+        recording.start();
+        return recording;
+    }
+    
+    // Entra antes dos advisors existentes: no PetService a duração inclui o commit da transação
+    private static AbstractAdvisingBeanPostProcessor advising(Class<?> type, MethodInterceptor interceptor,
+                                                              MethodFilter methods) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return type.isAssignableFrom(targetClass) && method.getDeclaringClass() == type && methods.matches(method);
+            }
+        };
+        AbstractAdvisingBeanPostProcessor postProcessor = new AbstractAdvisingBeanPostProcessor() {
+            {
+                this.advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
+            }
+        };
+        postProcessor.setBeforeExistingAdvisors(true);
+        postProcessor.setProxyTargetClass(true);
+        return postProcessor;
+    }
+    
+    @FunctionalInterface
+    private interface MethodFilter {
+        boolean matches(Method method);
+    }
+}
@@ -0,0 +1,47 @@
+package com.petsafe.qr.config;
+
+import com.petsafe.qr.metrics.HandlerObservationConvention;
+import com.petsafe.qr.metrics.RequestMetricsFilter;
+import com.petsafe.qr.metrics.RequestQueryCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Métricas próprias além das do Actuator (HTTP, Hikari, Hibernate, JVM); tudo sai em /actuator/prometheus
+@Configuration
+public class MetricsConfig {
+    
+    @Bean
+    public HandlerObservationConvention handlerObservationConvention() {
+        return new HandlerObservationConvention();
+    }
+    
+    @Bean
+    public RequestQueryCounter requestQueryCounter() {
+        return new RequestQueryCounter();
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer requestQueryCounterCustomizer(RequestQueryCounter requestQueryCounter) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, requestQueryCounter);
+            properties.put(AvailableSettings.INTERCEPTOR, requestQueryCounter);
+        };
+    }
+    
+    // Depois do limite adaptativo e dos bulkheads: requisição recusada na borda não tem consulta para contar
+    @Bean
+    public FilterRegistrationBean<RequestMetricsFilter> requestMetricsFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.query-budget.max-statements:0}") int statementBudget) {
+        FilterRegistrationBean<RequestMetricsFilter> registration =
+                new FilterRegistrationBean<>(new RequestMetricsFilter(meterRegistry, statementBudget));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
@@ -0,0 +1,169 @@
+package com.petsafe.qr.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Transações readOnly vão para uma réplica (rodízio entre as que estão de pé); todo o resto vai
+// para o primário. Precisa ficar atrás de um LazyConnectionDataSourceProxy, senão a conexão é
+// pedida antes de a transação publicar o flag readOnly.
+// Depois de uma escrita, as leituras do mesmo usuário ficam no primário por max-lag: assim quem
+// acabou de salvar o pet não recebe da réplica a versão antiga
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements Closeable {
+    
+    // Chave da TransactionSynchronization que registra a escrita, uma por transação
+    private static final Object WRITE_MARKER = new Object();
+    
+    // Acima disso os registros vencidos são varridos a cada nova escrita
+    private static final int PRUNE_THRESHOLD = 10_000;
+    
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final Duration retryAfter;
+    private final Clock clock;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Instant> lastWrites = new ConcurrentHashMap<>();
+    
+    public ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                      Duration maxLag, Duration retryAfter) {
+        this(primary, replicas, maxLag, retryAfter, Clock.systemUTC());
+    }
+    
+    ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                               Duration maxLag, Duration retryAfter, Clock clock) {
+        this.primary = primary;
+        for (DataSource replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+        this.maxLag = maxLag;
+        this.retryAfter = retryAfter;
+        this.clock = clock;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+    
+    private Connection connect(ConnectionOpener opener) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWriteOnCommit();
+            return opener.open(primary);
+        }
+        if (wroteRecently(currentUser())) {
+            return opener.open(primary);
+        }
+        // Réplica fora do ar não derruba a leitura: cai para o primário e fica fora do rodízio por retry-after
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (replica.downUntil.isAfter(clock.instant())) {
+                continue;
+            }
+            try {
+                return opener.open(replica.dataSource);
+            } catch (SQLException | RuntimeException ex) {
+                replica.downUntil = clock.instant().plus(retryAfter);
+                log.warn("Réplica indisponível, leituras vão para o primário por {}: {}", retryAfter, ex.getMessage());
+            }
+        }
+        return opener.open(primary);
+    }
+    
+    // Só conta depois do commit: uma transação revertida não mudou nada que a réplica precise alcançar
+    private void recordWriteOnCommit() {
+        String user = currentUser();
+        if (user == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_MARKER)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_MARKER, user);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordWrite(user);
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_MARKER);
+            }
+        });
+    }
+    
+    void recordWrite(String user) {
+        Instant now = clock.instant();
+        lastWrites.put(user, now);
+        if (lastWrites.size() > PRUNE_THRESHOLD) {
+            Instant cutoff = now.minus(maxLag);
+            lastWrites.values().removeIf(written -> written.isBefore(cutoff));
+        }
+    }
+    
+    private boolean wroteRecently(String user) {
+        if (user == null) {
+            return false;
+        }
+        Instant written = lastWrites.get(user);
+        return written != null && written.plus(maxLag).isAfter(clock.instant());
+    }
+    
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+    
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+    
+    private static final class Replica {
+        private final DataSource dataSource;
+        private volatile Instant downUntil = Instant.MIN;
+        
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.petsafe.qr.config;
 
 import com.petsafe.qr.security.JwtAuthenticationFilter;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -16,7 +20,9 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -30,6 +36,18 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SecurityConfig {
     
+    // Também definem as classes de rota dos bulkheads (RouteClass)
+    public static final String[] AUTH_ROUTES = {"/api/auth/**"};
+    public static final String[] PUBLIC_ROUTES = {"/api/public/**", "/p/**", "/uploads/**"};
+    
+    // Health para o balanceador; aberto em qualquer porta
+    private static final String HEALTH_ROUTE = "/actuator/health";
+    
+    // Scrape do Prometheus: só na porta do Actuator (management.server.port, que não deve ser exposta
+    // fora da rede interna) ou de um endereço de app.metrics.allowed-addresses. Na porta pública
+    // (ou sem porta separada e sem lista) é recusado
+    private static final String METRICS_ROUTE = "/actuator/prometheus";
+    
     private final UserDetailsService userDetailsService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     
@@ -52,16 +70,19 @@ public class SecurityConfig {
     }
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           @Value("${management.server.port:}") Integer managementPort,
+                                           @Value("${app.metrics.allowed-addresses:}") List<String> metricsAddresses)
+            throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/auth/**").permitAll()
-                        .requestMatchers("/api/public/**").permitAll()
-                        .requestMatchers("/p/**").permitAll()
-                        .requestMatchers("/uploads/**").permitAll()
+                        .requestMatchers(AUTH_ROUTES).permitAll()
+                        .requestMatchers(PUBLIC_ROUTES).permitAll()
+                        .requestMatchers(HEALTH_ROUTE).permitAll()
+                        .requestMatchers(METRICS_ROUTE).access(internalOnly(managementPort, metricsAddresses))
                         .anyRequest().authenticated()
                 )
                 .authenticationProvider(authenticationProvider())
@@ -70,6 +91,20 @@ public class SecurityConfig {
         return http.build();
     }
     
+    private static AuthorizationManager<RequestAuthorizationContext> internalOnly(Integer managementPort,
+                                                                                  List<String> allowedAddresses) {
+        List<IpAddressMatcher> addresses = allowedAddresses.stream()
+                .filter(address -> !address.isBlank())
+                .map(address -> new IpAddressMatcher(address.trim()))
+                .toList();
+        return (authentication, context) -> {
+            HttpServletRequest request = context.getRequest();
+            boolean onManagementPort = managementPort != null && request.getLocalPort() == managementPort;
+            return new AuthorizationDecision(onManagementPort
+                    || addresses.stream().anyMatch(address -> address.matches(request)));
+        };
+    }
+    
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
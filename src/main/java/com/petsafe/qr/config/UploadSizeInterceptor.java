@@ -0,0 +1,39 @@
+package com.petsafe.qr.config;
+
+import com.petsafe.qr.exception.PayloadTooLargeException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// Recusa uploads cujo Content-Length já passa do limite antes de ler um byte do corpo.
+// Com o multipart resolvido de forma preguiçosa, isso roda antes de o Tomcat gravar o arquivo
+// temporário; o 413 sai na hora e o conector descarta o resto em vez de bufferizar 10MB
+public class UploadSizeInterceptor implements HandlerInterceptor {
+    
+    // Fronteiras e cabeçalhos das partes do multipart
+    private static final long MULTIPART_OVERHEAD = 64 * 1024;
+    
+    private final DataSize maxPhotoSize;
+    
+    public UploadSizeInterceptor(DataSize maxPhotoSize) {
+        this.maxPhotoSize = maxPhotoSize;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long length = request.getContentLengthLong();
+        if (length < 0) {
+            // Chunked: o limite é aplicado enquanto o stream é copiado
+            return true;
+        }
+        String contentType = request.getContentType();
+        boolean multipart = contentType != null && contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE);
+        long limit = maxPhotoSize.toBytes() + (multipart ? MULTIPART_OVERHEAD : 0);
+        if (length > limit) {
+            throw new PayloadTooLargeException("Arquivo excede o tamanho máximo de " + maxPhotoSize.toMegabytes() + "MB");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package com.petsafe.qr.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Configuration;
+
+// Com spring.threads.virtual.enabled o Spring Boot põe requisições do Tomcat, @Scheduled e tarefas
+// assíncronas em threads virtuais, mas só a partir do Java 21; abaixo disso a opção é ignorada em
+// silêncio. Aqui a subida falha para que ninguém ache que está no modo virtual sem estar
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+    
+    @PostConstruct
+    void checkJavaVersion() {
+        if (!JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            throw new IllegalStateException("spring.threads.virtual.enabled exige Java 21 ou superior (atual: "
+                    + System.getProperty("java.version") + "); compile e rode com o perfil virtual-threads");
+        }
+        log.info("Requisições e tarefas assíncronas rodando em threads virtuais");
+    }
+}
@@ -1,15 +1,37 @@
 package com.petsafe.qr.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.nio.file.Paths;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
     
+    @Value("${app.storage.photo-dir:uploads/pets}")
+    private String photoDir;
+    
+    @Value("${app.upload.max-photo-size:10MB}")
+    private DataSize maxPhotoSize;
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new UploadSizeInterceptor(maxPhotoSize))
+                .addPathPatterns("/api/pets/*/photo", "/api/pets/*/photo/uploads/*");
+    }
+    
+    // Fotos endereçadas por conteúdo (ab/cd/<hash>) são atendidas pelo PhotoController;
+    // aqui ficam só os arquivos antigos com nome petId_timestamp
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        String photoLocation = Paths.get(photoDir).toAbsolutePath().toUri().toString();
+        registry.addResourceHandler("/uploads/pets/**")
+                .addResourceLocations(photoLocation.endsWith("/") ? photoLocation : photoLocation + "/");
         registry.addResourceHandler("/uploads/**")
                 .addResourceLocations("file:uploads/");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package com.petsafe.qr.controller;
+
+// Intervalo inclusivo de um cabeçalho Range. Só um intervalo é suportado: pedidos com vários
+// (multipart/byteranges) recebem o arquivo inteiro, o que a RFC 9110 permite
+record ByteRange(long start, long end) {
+    
+    static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+    
+    long length() {
+        return end - start + 1;
+    }
+    
+    // null = ignorar o cabeçalho e responder 200 com o arquivo inteiro
+    static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (spec.contains(",") || dash < 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        try {
+            if (first.isEmpty()) {
+                // Sufixo: "bytes=-500" são os últimos 500 bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+            long start = Long.parseLong(first);
+            if (start >= size) {
+                return UNSATISFIABLE;
+            }
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            return end < start ? null : new ByteRange(start, end);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
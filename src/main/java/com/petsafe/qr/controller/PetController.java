@@ -3,16 +3,22 @@ package com.petsafe.qr.controller;
 import com.petsafe.qr.dto.PetCreateRequest;
 import com.petsafe.qr.dto.PetResponse;
 import com.petsafe.qr.dto.PetUpdateRequest;
+import com.petsafe.qr.exception.PreconditionFailedException;
 import com.petsafe.qr.security.UserPrincipal;
+import com.petsafe.qr.service.PetExportFormat;
+import com.petsafe.qr.service.PetExportService;
 import com.petsafe.qr.service.PetService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.util.List;
@@ -24,6 +30,7 @@ import java.util.UUID;
 public class PetController {
     
     private final PetService petService;
+    private final PetExportService petExportService;
     
     @PostMapping
     public ResponseEntity<PetResponse> createPet(
@@ -40,21 +47,35 @@ public class PetController {
         return ResponseEntity.ok(pets);
     }
     
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPets(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        PetExportFormat exportFormat = PetExportFormat.fromParameter(format);
+        UUID userId = currentUser.getId();
+        StreamingResponseBody body = out -> petExportService.exportPets(userId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"pets." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<PetResponse> getPetById(
             @PathVariable UUID id,
             @AuthenticationPrincipal UserPrincipal currentUser) {
         PetResponse pet = petService.getPetById(id, currentUser.getId());
-        return ResponseEntity.ok(pet);
+        return withETag(pet);
     }
     
     @PutMapping("/{id}")
     public ResponseEntity<PetResponse> updatePet(
             @PathVariable UUID id,
             @Valid @RequestBody PetUpdateRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @AuthenticationPrincipal UserPrincipal currentUser) {
-        PetResponse response = petService.updatePet(id, request, currentUser.getId());
-        return ResponseEntity.ok(response);
+        PetResponse response = petService.updatePet(id, request, currentUser.getId(), parseIfMatch(ifMatch));
+        return withETag(response);
     }
     
     @DeleteMapping("/{id}")
@@ -68,9 +89,10 @@ public class PetController {
     @PatchMapping("/{id}/missing")
     public ResponseEntity<PetResponse> toggleMissing(
             @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @AuthenticationPrincipal UserPrincipal currentUser) {
-        PetResponse response = petService.toggleMissing(id, currentUser.getId());
-        return ResponseEntity.ok(response);
+        PetResponse response = petService.toggleMissing(id, currentUser.getId(), parseIfMatch(ifMatch));
+        return withETag(response);
     }
     
     @PostMapping(value = "/{id}/photo", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -79,6 +101,45 @@ public class PetController {
             @RequestParam("file") MultipartFile file,
             @AuthenticationPrincipal UserPrincipal currentUser) throws IOException {
         PetResponse response = petService.uploadPhoto(id, file, currentUser.getId());
-        return ResponseEntity.ok(response);
+        return withETag(response);
+    }
+    
+    // Corpo cru (image/*): o stream da requisição vai direto para o armazenamento, sem o
+    // arquivo temporário que o multipart cria antes de chegar ao controller. O tipo real é
+    // conferido pelos primeiros bytes, o Content-Type só filtra a rota
+    @PutMapping(value = "/{id}/photo", consumes = {
+            MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp", "image/heic"})
+    public ResponseEntity<PetResponse> uploadPhotoStream(
+            @PathVariable UUID id,
+            HttpServletRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) throws IOException {
+        PetResponse response = petService.uploadPhoto(id, request.getInputStream(), currentUser.getId());
+        return withETag(response);
+    }
+    
+    private static ResponseEntity<PetResponse> withETag(PetResponse pet) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (pet.getVersion() != null) {
+            builder.eTag("\"" + pet.getVersion() + "\"");
+        }
+        return builder.body(pet);
+    }
+    
+    // Aceita "3" ou "\"3\""; "*" equivale a não enviar o cabeçalho. If-Match usa comparação forte
+    // (RFC 9110), então uma tag fraca W/"3" nunca confere e a resposta é 412
+    private static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            throw new PreconditionFailedException("If-Match com ETag fraca nunca confere: " + ifMatch);
+        }
+        tag = tag.replace("\"", "");
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException ex) {
+            throw new PreconditionFailedException("If-Match inválido: " + ifMatch);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,231 @@
+package com.petsafe.qr.controller;
+
+import com.petsafe.qr.exception.ResourceNotFoundException;
+import com.petsafe.qr.service.HotPhotoCache;
+import com.petsafe.qr.service.PhotoStorageService;
+import com.petsafe.qr.service.PhotoVariantService;
+import com.petsafe.qr.storage.PhotoObject;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Entrega das fotos endereçadas por conteúdo. O nome do arquivo é o hash dos bytes, então a
+// resposta nunca muda: cache imutável de um ano, ETag forte e suporte a Range
+@RestController
+@RequiredArgsConstructor
+public class PhotoController {
+    
+    private static final Pattern FILENAME = Pattern.compile("([0-9a-f]{64})(_[a-z]+)?\\.[a-z0-9]{1,5}");
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    
+    // Atributos do conector do Tomcat: com eles o corpo é enviado pelo kernel via sendfile
+    // depois que o servlet retorna, sem passar os bytes pela JVM
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+    
+    private static final boolean TOMCAT_PRESENT = ClassUtils.isPresent(
+            "org.apache.catalina.connector.CoyoteOutputStream", PhotoController.class.getClassLoader());
+    
+    private final PhotoStorageService photoStorageService;
+    private final HotPhotoCache hotPhotoCache;
+    private final PhotoVariantService photoVariantService;
+    
+    @GetMapping("/uploads/pets/{shard1:[0-9a-f][0-9a-f]}/{shard2:[0-9a-f][0-9a-f]}/{filename}")
+    public void servePhoto(
+            @PathVariable String shard1,
+            @PathVariable String shard2,
+            @PathVariable String filename,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        Matcher matcher = FILENAME.matcher(filename);
+        if (!matcher.matches() || !matcher.group(1).startsWith(shard1 + shard2)) {
+            throw new ResourceNotFoundException("Foto não encontrada");
+        }
+        String hash = matcher.group(1);
+        String key = shard1 + "/" + shard2 + "/" + filename;
+        
+        // Cache quente primeiro: no acerto nem o backend é consultado
+        ByteBuffer cached = hotPhotoCache.get(key);
+        String servedKey = key;
+        boolean provisional = false;
+        long size;
+        if (cached != null) {
+            size = cached.remaining();
+        } else {
+            Optional<PhotoObject> object = photoStorageService.head(key);
+            if (object.isEmpty()) {
+                // Variante ainda não gerada: entrega o original, mas sem cache para não fixar o tamanho
+                // errado, e pede a geração de novo caso o pedido original tenha sido descartado
+                if (matcher.group(2) == null) {
+                    throw new ResourceNotFoundException("Foto não encontrada");
+                }
+                servedKey = photoStorageService.findOriginal(hash)
+                        .orElseThrow(() -> new ResourceNotFoundException("Foto não encontrada"));
+                object = photoStorageService.head(servedKey);
+                provisional = true;
+                if (object.isPresent()) {
+                    photoVariantService.scheduleVariants(PhotoStorageService.URL_PREFIX + servedKey);
+                }
+            }
+            size = object.orElseThrow(() -> new ResourceNotFoundException("Foto não encontrada")).size();
+            
+            // Backend com URL assinada (S3): o cliente baixa direto do bucket e os bytes não passam
+            // pela JVM. O redirecionamento vale menos que a assinatura, para nunca apontar para uma expirada
+            Optional<URI> signed = photoStorageService.signedUrl(servedKey);
+            if (signed.isPresent()) {
+                response.setStatus(HttpStatus.FOUND.value());
+                response.setHeader(HttpHeaders.LOCATION, signed.get().toString());
+                response.setHeader(HttpHeaders.CACHE_CONTROL, provisional ? "no-cache"
+                        : "private, max-age=" + photoStorageService.getSignedUrlTtl().dividedBy(2).toSeconds());
+                return;
+            }
+            if (!provisional) {
+                cached = hotPhotoCache.admit(key, size, () -> photoStorageService.open(key));
+            }
+        }
+        
+        String etag = "\"" + filename.substring(0, filename.lastIndexOf('.')) + "\"";
+        response.setContentType(PhotoStorageService.contentTypeOf(provisional ? servedKey : filename));
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (provisional) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        } else {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
+        }
+        
+        ByteRange range = new ByteRange(0, size - 1);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null || (!provisional && ifRange.trim().equals(etag))) {
+            ByteRange requested = ByteRange.parse(request.getHeader(HttpHeaders.RANGE), size);
+            if (requested == ByteRange.UNSATISFIABLE) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            if (requested != null) {
+                range = requested;
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + size);
+            }
+        }
+        
+        response.setContentLengthLong(range.length());
+        if ("HEAD".equals(request.getMethod()) || range.length() == 0) {
+            return;
+        }
+        if (cached != null) {
+            write(cached.position((int) range.start()).limit((int) range.end() + 1), response);
+            return;
+        }
+        Optional<Path> file = photoStorageService.localPath(servedKey);
+        if (file.isPresent()) {
+            transfer(file.get(), range, request, response);
+        } else {
+            // Backend remoto sem URL assinada: só o trecho pedido é buscado e repassado em stream
+            try (InputStream in = photoStorageService.open(servedKey, range.start(), range.length())) {
+                in.transferTo(response.getOutputStream());
+            }
+        }
+    }
+    
+    private static void transfer(Path file, ByteRange range, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (range.length() >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
+        // Sem sendfile (outro container, arquivo pequeno): transferTo copia direto do page cache
+        // para o canal de saída, sem buffer intermediário na aplicação
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+    
+    // O buffer do cache é direto: no Tomcat vai do ByteBuffer para o socket sem passar por byte[]
+    private static void write(ByteBuffer body, HttpServletResponse response) throws IOException {
+        // Commit pelo wrapper, para que filtros que escrevem cabeçalhos no commit (Spring Security) rodem
+        response.flushBuffer();
+        ServletResponse inner = response;
+        while (inner instanceof ServletResponseWrapper wrapper) {
+            inner = wrapper.getResponse();
+        }
+        OutputStream out = inner.getOutputStream();
+        if (TOMCAT_PRESENT && TomcatOutput.write(out, body)) {
+            return;
+        }
+        WritableByteChannel channel = Channels.newChannel(out);
+        while (body.hasRemaining()) {
+            channel.write(body);
+        }
+    }
+    
+    // Isolado numa classe própria para que a referência ao Tomcat só seja resolvida quando ele existe
+    private static final class TomcatOutput {
+        static boolean write(OutputStream out, ByteBuffer body) throws IOException {
+            if (out instanceof CoyoteOutputStream coyote) {
+                coyote.write(body);
+                return true;
+            }
+            return false;
+        }
+    }
+    
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,103 @@
+package com.petsafe.qr.controller;
+
+import com.petsafe.qr.dto.PetResponse;
+import com.petsafe.qr.dto.UploadSessionRequest;
+import com.petsafe.qr.dto.UploadSessionResponse;
+import com.petsafe.qr.exception.BadRequestException;
+import com.petsafe.qr.security.UserPrincipal;
+import com.petsafe.qr.service.PhotoUploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Protocolo de upload retomável:
+//   POST   /api/pets/{id}/photo/uploads               abre a sessão (tamanho, tipo, SHA-256)
+//   PUT    /api/pets/{id}/photo/uploads/{uploadId}    envia um pedaço com Content-Range: bytes início-fim/total
+//   GET    /api/pets/{id}/photo/uploads/{uploadId}    consulta o offset para retomar após uma queda
+//   POST   /api/pets/{id}/photo/uploads/{uploadId}/complete   confere o checksum e troca a foto
+//   DELETE /api/pets/{id}/photo/uploads/{uploadId}    cancela
+@RestController
+@RequestMapping("/api/pets/{id}/photo/uploads")
+@RequiredArgsConstructor
+public class PhotoUploadController {
+    
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+    
+    private final PhotoUploadSessionService photoUploadSessionService;
+    
+    @PostMapping
+    public ResponseEntity<UploadSessionResponse> createSession(
+            @PathVariable UUID id,
+            @Valid @RequestBody UploadSessionRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) throws IOException {
+        UploadSessionResponse response = photoUploadSessionService.createSession(id, request, currentUser.getId());
+        return ResponseEntity.created(URI.create("/api/pets/" + id + "/photo/uploads/" + response.getId()))
+                .body(response);
+    }
+    
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionResponse> getSession(
+            @PathVariable UUID id,
+            @PathVariable UUID uploadId,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(photoUploadSessionService.getSession(id, uploadId, currentUser.getId()));
+    }
+    
+    // Sem Content-Range o pedaço é anexado no início; o corpo é lido em stream direto para o arquivo
+    @PutMapping(value = "/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<UploadSessionResponse> uploadChunk(
+            @PathVariable UUID id,
+            @PathVariable UUID uploadId,
+            @RequestHeader(value = HttpHeaders.CONTENT_RANGE, required = false) String contentRange,
+            HttpServletRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) throws IOException {
+        long start = parseStart(contentRange);
+        UploadSessionResponse response = photoUploadSessionService.appendChunk(
+                id, uploadId, start, request.getInputStream(), currentUser.getId());
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<PetResponse> complete(
+            @PathVariable UUID id,
+            @PathVariable UUID uploadId,
+            @AuthenticationPrincipal UserPrincipal currentUser) throws IOException {
+        PetResponse pet = photoUploadSessionService.complete(id, uploadId, currentUser.getId());
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (pet.getVersion() != null) {
+            builder.eTag("\"" + pet.getVersion() + "\"");
+        }
+        return builder.body(pet);
+    }
+    
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> cancel(
+            @PathVariable UUID id,
+            @PathVariable UUID uploadId,
+            @AuthenticationPrincipal UserPrincipal currentUser) throws IOException {
+        photoUploadSessionService.cancel(id, uploadId, currentUser.getId());
+        return ResponseEntity.noContent().build();
+    }
+    
+    private static long parseStart(String contentRange) {
+        if (contentRange == null || contentRange.isBlank()) {
+            return 0;
+        }
+        Matcher matcher = CONTENT_RANGE.matcher(contentRange.trim());
+        if (!matcher.matches()) {
+            throw new BadRequestException("Content-Range inválido: " + contentRange);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -1,11 +1,17 @@
 package com.petsafe.qr.controller;
 
+import com.petsafe.qr.dto.FoundPetMatchResponse;
+import com.petsafe.qr.dto.FoundReportRequest;
+import com.petsafe.qr.dto.MissingPetSearchResponse;
 import com.petsafe.qr.dto.PublicPetResponse;
+import com.petsafe.qr.service.PetSearchService;
 import com.petsafe.qr.service.PetService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -14,10 +20,30 @@ import java.util.UUID;
 public class PublicController {
     
     private final PetService petService;
+    private final PetSearchService petSearchService;
     
     @GetMapping("/pet/{uuid}")
     public ResponseEntity<PublicPetResponse> getPublicPet(@PathVariable UUID uuid) {
         PublicPetResponse pet = petService.getPublicPet(uuid);
         return ResponseEntity.ok(pet);
     }
-}
\ No newline at end of file
+    
+    @GetMapping("/missing-pets")
+    public ResponseEntity<MissingPetSearchResponse> searchMissingPets(
+            @RequestParam(required = false) List<String> species,
+            @RequestParam(required = false) List<String> color,
+            @RequestParam(required = false) List<String> breed,
+            @RequestParam(defaultValue = "all") String match,
+            @RequestParam(defaultValue = "20") int limit) {
+        MissingPetSearchResponse response = petSearchService.searchMissing(species, color, breed, match, limit);
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/found-reports")
+    public ResponseEntity<List<FoundPetMatchResponse>> reportFoundPet(
+            @Valid @RequestBody FoundReportRequest request,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<FoundPetMatchResponse> matches = petSearchService.matchFoundReport(request, limit);
+        return ResponseEntity.ok(matches);
+    }
+}
@@ -0,0 +1,35 @@
+package com.petsafe.qr.dto;
+
+import com.petsafe.qr.search.FoundPetMatch;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FoundPetMatchResponse {
+    private UUID id;
+    private String name;
+    private String species;
+    private String breed;
+    private String color;
+    private String photoUrl;
+    private double score;
+    private Double distanceKm;
+    
+    public static FoundPetMatchResponse fromMatch(FoundPetMatch match) {
+        FoundPetMatchResponse response = new FoundPetMatchResponse();
+        response.setId(match.pet().id());
+        response.setName(match.pet().name());
+        response.setSpecies(match.pet().species());
+        response.setBreed(match.pet().breed());
+        response.setColor(match.pet().color());
+        response.setPhotoUrl(match.pet().photoUrl());
+        response.setScore(Math.round(match.score() * 1000) / 1000.0);
+        response.setDistanceKm(match.distanceKm() != null ? Math.round(match.distanceKm() * 10) / 10.0 : null);
+        return response;
+    }
+}
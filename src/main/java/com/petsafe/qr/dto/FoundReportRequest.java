@@ -0,0 +1,31 @@
+package com.petsafe.qr.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FoundReportRequest {
+    @NotBlank(message = "Espécie é obrigatória")
+    private String species;
+    
+    private String breed;
+    private String color;
+    
+    @Pattern(regexp = "(?i)small|medium|large", message = "Porte deve ser SMALL, MEDIUM ou LARGE")
+    private String size;
+    
+    @DecimalMin(value = "-90.0", message = "Latitude inválida")
+    @DecimalMax(value = "90.0", message = "Latitude inválida")
+    private Double latitude;
+    
+    @DecimalMin(value = "-180.0", message = "Longitude inválida")
+    @DecimalMax(value = "180.0", message = "Longitude inválida")
+    private Double longitude;
+}
@@ -0,0 +1,17 @@
+package com.petsafe.qr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MissingPetSearchResponse {
+    private int total;
+    private List<MissingPetSummary> pets;
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,24 @@
+package com.petsafe.qr.dto;
+
+import com.petsafe.qr.search.IndexedPet;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MissingPetSummary {
+    private UUID id;
+    private String name;
+    private String species;
+    private String breed;
+    private String color;
+    private String photoUrl;
+    
+    public static MissingPetSummary fromIndexed(IndexedPet pet) {
+        return new MissingPetSummary(pet.id(), pet.name(), pet.species(), pet.breed(), pet.color(), pet.photoUrl());
+    }
+}
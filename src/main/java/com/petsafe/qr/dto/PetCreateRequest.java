@@ -1,5 +1,7 @@
 package com.petsafe.qr.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -25,4 +27,12 @@ public class PetCreateRequest {
     private String medications;
     private String vetContact;
     private String ownerNotes;
+    
+    @DecimalMin(value = "-90.0", message = "Latitude inválida")
+    @DecimalMax(value = "90.0", message = "Latitude inválida")
+    private Double lastSeenLatitude;
+    
+    @DecimalMin(value = "-180.0", message = "Longitude inválida")
+    @DecimalMax(value = "180.0", message = "Longitude inválida")
+    private Double lastSeenLongitude;
 }
\ No newline at end of file
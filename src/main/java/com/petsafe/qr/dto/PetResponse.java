@@ -1,11 +1,14 @@
 package com.petsafe.qr.dto;
 
 import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.jfr.DtoMappingEvent;
+import com.petsafe.qr.service.PhotoVariant;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.UUID;
 
 @Data
@@ -25,14 +28,21 @@ public class PetResponse {
     private String vetContact;
     private String ownerNotes;
     private String photoUrl;
+    private Map<String, String> photoVariants;
     private String qrCodeUrl;
     private Boolean isMissing;
+    private Double lastSeenLatitude;
+    private Double lastSeenLongitude;
     private UUID ownerId;
     private String ownerName;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
     
+    // Medido no JFR porque o acesso ao owner pode disparar a carga lazy dentro da conversão
     public static PetResponse fromEntity(Pet pet) {
+        DtoMappingEvent event = new DtoMappingEvent();
+        event.begin();
         PetResponse response = new PetResponse();
         response.setId(pet.getId());
         response.setName(pet.getName());
@@ -47,12 +57,21 @@ public class PetResponse {
         response.setVetContact(pet.getVetContact());
         response.setOwnerNotes(pet.getOwnerNotes());
         response.setPhotoUrl(pet.getPhotoUrl());
+        response.setPhotoVariants(PhotoVariant.urlsFor(pet.getPhotoUrl()));
         response.setQrCodeUrl(pet.getQrCodeUrl());
         response.setIsMissing(pet.getIsMissing());
+        response.setLastSeenLatitude(pet.getLastSeenLatitude());
+        response.setLastSeenLongitude(pet.getLastSeenLongitude());
         response.setOwnerId(pet.getOwner().getId());
         response.setOwnerName(pet.getOwner().getName());
         response.setCreatedAt(pet.getCreatedAt());
         response.setUpdatedAt(pet.getUpdatedAt());
+        response.setVersion(pet.getVersion());
+        if (event.shouldCommit()) {
+            event.dto = "PetResponse";
+            event.petId = String.valueOf(pet.getId());
+            event.commit();
+        }
         return response;
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.petsafe.qr.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,4 +21,12 @@ public class PetUpdateRequest {
     private String medications;
     private String vetContact;
     private String ownerNotes;
+    
+    @DecimalMin(value = "-90.0", message = "Latitude inválida")
+    @DecimalMax(value = "90.0", message = "Latitude inválida")
+    private Double lastSeenLatitude;
+    
+    @DecimalMin(value = "-180.0", message = "Longitude inválida")
+    @DecimalMax(value = "180.0", message = "Longitude inválida")
+    private Double lastSeenLongitude;
 }
\ No newline at end of file
@@ -1,10 +1,13 @@
 package com.petsafe.qr.dto;
 
 import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.jfr.DtoMappingEvent;
+import com.petsafe.qr.service.PhotoVariant;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
 import java.util.UUID;
 
 @Data
@@ -24,11 +27,17 @@ public class PublicPetResponse {
     private String vetContact;
     private String ownerNotes;
     private String photoUrl;
+    private Map<String, String> photoVariants;
     private Boolean isMissing;
+    private Double lastSeenLatitude;
+    private Double lastSeenLongitude;
     private String ownerName;
     private String ownerPhone;
     
+    // Medido no JFR porque o acesso ao owner pode disparar a carga lazy dentro da conversão
     public static PublicPetResponse fromEntity(Pet pet) {
+        DtoMappingEvent event = new DtoMappingEvent();
+        event.begin();
         PublicPetResponse response = new PublicPetResponse();
         response.setId(pet.getId());
         response.setName(pet.getName());
@@ -43,9 +52,20 @@ public class PublicPetResponse {
         response.setVetContact(pet.getVetContact());
         response.setOwnerNotes(pet.getOwnerNotes());
         response.setPhotoUrl(pet.getPhotoUrl());
+        response.setPhotoVariants(PhotoVariant.urlsFor(pet.getPhotoUrl()));
         response.setIsMissing(pet.getIsMissing());
+        // A última localização só é pública enquanto o pet está desaparecido; fora disso é o endereço do tutor
+        if (Boolean.TRUE.equals(pet.getIsMissing())) {
+            response.setLastSeenLatitude(pet.getLastSeenLatitude());
+            response.setLastSeenLongitude(pet.getLastSeenLongitude());
+        }
         response.setOwnerName(pet.getOwner().getName());
         response.setOwnerPhone(pet.getOwner().getPhone());
+        if (event.shouldCommit()) {
+            event.dto = "PublicPetResponse";
+            event.petId = String.valueOf(pet.getId());
+            event.commit();
+        }
         return response;
     }
 }
\ No newline at end of file
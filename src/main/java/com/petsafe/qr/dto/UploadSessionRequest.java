@@ -0,0 +1,25 @@
+package com.petsafe.qr.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionRequest {
+    @NotNull(message = "Tamanho do arquivo é obrigatório")
+    @Positive(message = "Tamanho do arquivo inválido")
+    private Long size;
+    
+    @NotBlank(message = "Tipo do arquivo é obrigatório")
+    private String contentType;
+    
+    @NotBlank(message = "Checksum SHA-256 é obrigatório")
+    @Pattern(regexp = "[0-9a-fA-F]{64}", message = "Checksum SHA-256 inválido")
+    private String sha256;
+}
@@ -0,0 +1,18 @@
+package com.petsafe.qr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponse {
+    private UUID id;
+    private Long offset;
+    private Long size;
+    private LocalDateTime expiresAt;
+}
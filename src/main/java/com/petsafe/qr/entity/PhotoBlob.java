@@ -0,0 +1,34 @@
+package com.petsafe.qr.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// Um arquivo físico por conteúdo (SHA-256); refCount conta quantos pets apontam para ele
+@Entity
+@Table(name = "photo_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoBlob {
+    @Id
+    @Column(length = 64)
+    private String hash;
+    
+    @Column(nullable = false)
+    private String path;
+    
+    @Column(nullable = false)
+    private Long size;
+    
+    @Column(nullable = false)
+    private Integer refCount;
+    
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,7 @@
+package com.petsafe.qr.exception;
+
+public class PayloadTooLargeException extends BadRequestException {
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
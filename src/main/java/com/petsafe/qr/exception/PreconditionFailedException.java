@@ -0,0 +1,7 @@
+package com.petsafe.qr.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
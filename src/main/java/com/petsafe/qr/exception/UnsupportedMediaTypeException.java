@@ -0,0 +1,7 @@
+package com.petsafe.qr.exception;
+
+public class UnsupportedMediaTypeException extends BadRequestException {
+    public UnsupportedMediaTypeException(String message) {
+        super(message);
+    }
+}
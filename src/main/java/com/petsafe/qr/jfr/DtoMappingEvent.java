@@ -0,0 +1,24 @@
+package com.petsafe.qr.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.petsafe.qr.DtoMapping")
+@Label("DTO Mapping")
+@Description("Conversão de entidade em DTO de resposta")
+@Category({"PetSafe", "Service"})
+@Enabled(false)
+@StackTrace(false)
+public class DtoMappingEvent extends Event {
+    
+    @Label("DTO")
+    public String dto;
+    
+    @Label("Pet Id")
+    public String petId;
+}
@@ -0,0 +1,28 @@
+package com.petsafe.qr.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Só o tipo da exceção: a mensagem pode trazer email ou outros dados do usuário
+@Name("com.petsafe.qr.ExceptionHandled")
+@Label("Exception Handled")
+@Description("Exceção convertida em resposta HTTP pelo GlobalExceptionHandler")
+@Category({"PetSafe", "Web"})
+@Enabled(false)
+@StackTrace(false)
+public class ExceptionHandledEvent extends Event {
+    
+    @Label("Exception")
+    public String exception;
+    
+    @Label("Status")
+    public int status;
+    
+    @Label("URI")
+    public String uri;
+}
@@ -0,0 +1,35 @@
+package com.petsafe.qr.jfr;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.http.ResponseEntity;
+
+// Envolve os @ExceptionHandler do GlobalExceptionHandler: tipo da exceção, status devolvido e URI
+public class ExceptionHandledEventInterceptor implements MethodInterceptor {
+    
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        ExceptionHandledEvent event = new ExceptionHandledEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        event.begin();
+        Object result = invocation.proceed();
+        event.end();
+        if (event.shouldCommit()) {
+            for (Object argument : invocation.getArguments()) {
+                if (argument instanceof Throwable ex) {
+                    event.exception = ex.getClass().getName();
+                } else if (argument instanceof HttpServletRequest request) {
+                    event.uri = request.getRequestURI();
+                }
+            }
+            if (result instanceof ResponseEntity<?> response) {
+                event.status = response.getStatusCode().value();
+            }
+            event.commit();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,26 @@
+package com.petsafe.qr.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Eventos do JFR da aplicação: todos desligados por padrão (custo de um teste de flag por chamada)
+// e ligados pelo jfr/petsafe.jfc ou por app.jfr.enabled. Ids vão como texto; o JFR não tem UUID
+@Name("com.petsafe.qr.JwtValidation")
+@Label("JWT Validation")
+@Description("Verificação de assinatura e validade do token")
+@Category({"PetSafe", "Security"})
+@Enabled(false)
+@StackTrace(false)
+public class JwtValidationEvent extends Event {
+    
+    @Label("Valid")
+    public boolean valid;
+    
+    @Label("User Id")
+    public String userId;
+}
@@ -0,0 +1,31 @@
+package com.petsafe.qr.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Um por método público do PetService, emitido pelo JfrConfig sem tocar no serviço
+@Name("com.petsafe.qr.PetServiceOperation")
+@Label("Pet Service Operation")
+@Description("Chamada de um método do PetService")
+@Category({"PetSafe", "Service"})
+@Enabled(false)
+@StackTrace(false)
+public class PetServiceEvent extends Event {
+    
+    @Label("Operation")
+    public String operation;
+    
+    @Label("Pet Id")
+    public String petId;
+    
+    @Label("User Id")
+    public String userId;
+    
+    @Label("Exception")
+    public String exception;
+}
@@ -0,0 +1,59 @@
+package com.petsafe.qr.jfr;
+
+import com.petsafe.qr.dto.PetResponse;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Envolve cada método do PetService num PetServiceEvent. Com o evento desligado só custa o teste
+// de isEnabled; os ids saem dos parâmetros petId/userId (ou do PetResponse devolvido, no create)
+public class PetServiceEventInterceptor implements MethodInterceptor {
+    
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+    
+    // Posição de petId e userId em cada método, -1 quando não existe
+    private final Map<Method, int[]> idPositions = new ConcurrentHashMap<>();
+    
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        PetServiceEvent event = new PetServiceEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        event.begin();
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable ex) {
+            event.exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                Method method = invocation.getMethod();
+                Object[] arguments = invocation.getArguments();
+                int[] positions = idPositions.computeIfAbsent(method, PetServiceEventInterceptor::positions);
+                event.operation = method.getName();
+                event.petId = positions[0] >= 0 ? String.valueOf(arguments[positions[0]])
+                        : result instanceof PetResponse pet ? String.valueOf(pet.getId()) : null;
+                event.userId = positions[1] >= 0 ? String.valueOf(arguments[positions[1]]) : null;
+                event.commit();
+            }
+        }
+    }
+    
+    private static int[] positions(Method method) {
+        String[] names = PARAMETER_NAMES.getParameterNames(method);
+        if (names == null) {
+            return new int[]{-1, -1};
+        }
+        return new int[]{Arrays.asList(names).indexOf("petId"), Arrays.asList(names).indexOf("userId")};
+    }
+}
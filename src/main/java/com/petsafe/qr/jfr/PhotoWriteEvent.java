@@ -0,0 +1,30 @@
+package com.petsafe.qr.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// deduplicated = o conteúdo já existia e nada foi enviado ao backend
+@Name("com.petsafe.qr.PhotoWrite")
+@Label("Photo Write")
+@Description("Gravação de foto no backend de armazenamento")
+@Category({"PetSafe", "Storage"})
+@Enabled(false)
+@StackTrace(false)
+public class PhotoWriteEvent extends Event {
+    
+    @Label("Key")
+    public String key;
+    
+    @Label("Size")
+    @DataAmount
+    public long size;
+    
+    @Label("Deduplicated")
+    public boolean deduplicated;
+}
@@ -0,0 +1,24 @@
+package com.petsafe.qr.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.petsafe.qr.UserPrincipalLoad")
+@Label("User Principal Load")
+@Description("Carga do usuário autenticado a partir do banco")
+@Category({"PetSafe", "Security"})
+@Enabled(false)
+@StackTrace(false)
+public class UserPrincipalLoadEvent extends Event {
+    
+    @Label("User Id")
+    public String userId;
+    
+    @Label("Found")
+    public boolean found;
+}
@@ -0,0 +1,26 @@
+package com.petsafe.qr.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Nome do método de controller que atendeu a requisição (ex.: PublicController.getPublicPet), usado
+// como tag das métricas. "none" quando nenhum controller foi resolvido (404, arquivo estático, 503 na borda)
+public final class HandlerNames {
+    
+    public static final String NONE = "none";
+    
+    private HandlerNames() {
+    }
+    
+    public static String of(HttpServletRequest request) {
+        if (request == null) {
+            return NONE;
+        }
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,15 @@
+package com.petsafe.qr.metrics;
+
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+// Acrescenta a tag handler ao http.server.requests: o histograma de latência sai por método de
+// controller, e não só pelo template da URI
+public class HandlerObservationConvention extends DefaultServerRequestObservationConvention {
+    
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and("handler", HandlerNames.of(context.getCarrier()));
+    }
+}
@@ -0,0 +1,59 @@
+package com.petsafe.qr.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Registra por requisição quantos comandos SQL rodaram e quantas entidades foram carregadas, com a
+// mesma tag handler do http.server.requests. Um N+1 aparece como cauda longa em petsafe.db.queries.
+// Com statementBudget > 0, a requisição que passar do orçamento gera um WARN com o handler e a URI
+@Slf4j
+public class RequestMetricsFilter extends OncePerRequestFilter {
+    
+    // Contagem final fica na requisição, para os testes conferirem o orçamento de cada endpoint
+    public static final String STATEMENTS_ATTRIBUTE = RequestMetricsFilter.class.getName() + ".statements";
+    
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+    
+    public RequestMetricsFilter(MeterRegistry meterRegistry, int statementBudget) {
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestQueryCounter.Counts counts = RequestQueryCounter.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestQueryCounter.end();
+            request.setAttribute(STATEMENTS_ATTRIBUTE, counts.queries);
+            String handler = HandlerNames.of(request);
+            if (statementBudget > 0 && counts.queries > statementBudget) {
+                meterRegistry.counter("petsafe.db.query.budget.exceeded", "handler", handler).increment();
+                log.warn("{} {} ({}) executou {} comandos SQL, acima do orçamento de {}; {} entidades carregadas",
+                        request.getMethod(), request.getRequestURI(), handler, counts.queries, statementBudget,
+                        counts.entityLoads);
+            }
+            DistributionSummary.builder("petsafe.db.queries")
+                    .description("Comandos SQL por requisição")
+                    .tag("handler", handler)
+                    .register(meterRegistry)
+                    .record(counts.queries);
+            DistributionSummary.builder("petsafe.db.entity.loads")
+                    .description("Entidades carregadas por requisição")
+                    .tag("handler", handler)
+                    .register(meterRegistry)
+                    .record(counts.entityLoads);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.petsafe.qr.metrics;
+
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+// Conta os comandos SQL e as entidades carregadas pela thread da requisição. Registrado no Hibernate
+// como StatementInspector e Interceptor; fora de uma requisição (jobs, variantes) não conta nada
+public class RequestQueryCounter implements StatementInspector, Interceptor {
+    
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+    
+    static Counts begin() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+    
+    static void end() {
+        CURRENT.remove();
+    }
+    
+    @Override
+    public String inspect(String sql) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.queries++;
+        }
+        return sql;
+    }
+    
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.entityLoads++;
+        }
+        return false;
+    }
+    
+    static final class Counts {
+        int queries;
+        int entityLoads;
+    }
+}
@@ -1,13 +1,54 @@
 package com.petsafe.qr.repository;
 
 import com.petsafe.qr.entity.Pet;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface PetRepository extends JpaRepository<Pet, UUID> {
+public interface PetRepository extends JpaRepository<Pet, UUID>, PetRepositoryCustom {
+    // O owner vem no mesmo SELECT: o PetResponse.fromEntity lê nome e id dele para cada pet
+    @EntityGraph(attributePaths = "owner")
     List<Pet> findByOwnerId(UUID ownerId);
-}
\ No newline at end of file
+    
+    // Cursor forward-only: o driver entrega as linhas em lotes de fetchSize em vez de materializar a lista
+    @Query("SELECT p FROM Pet p JOIN FETCH p.owner WHERE p.owner.id = :ownerId ORDER BY p.createdAt")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Pet> streamByOwnerId(@Param("ownerId") UUID ownerId);
+    
+    @Query("SELECT p FROM Pet p WHERE p.isMissing = true")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Pet> streamMissing();
+    
+    // Referências a fotos de um shard do armazenamento (ex.: "/uploads/pets/ab/%"), para a coleta de órfãos
+    @Query("SELECT p.photoUrl FROM Pet p WHERE p.photoUrl LIKE :prefix")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<String> streamPhotoUrlsLike(@Param("prefix") String prefix);
+    
+    // Quais destas URLs ainda são referenciadas: a coleta de órfãos confere os arquivos antigos em lotes
+    @Query("SELECT p.photoUrl FROM Pet p WHERE p.photoUrl IN :urls")
+    List<String> findReferencedPhotoUrls(@Param("urls") Collection<String> urls);
+    
+    boolean existsByPhotoUrl(String photoUrl);
+    
+    boolean existsByPhotoUrlStartingWith(String prefix);
+}
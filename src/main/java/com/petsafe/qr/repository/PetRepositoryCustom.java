@@ -0,0 +1,16 @@
+package com.petsafe.qr.repository;
+
+import com.petsafe.qr.entity.Pet;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PetRepositoryCustom {
+    Optional<Pet> toggleMissing(UUID id, UUID ownerId, Long expectedVersion);
+    
+    Optional<DeletedPet> deleteByIdAndOwnerId(UUID id, UUID ownerId);
+    
+    // O que o DELETE devolve do pet removido; photoUrl é null quando ele não tinha foto
+    record DeletedPet(String photoUrl, long version) {
+    }
+}
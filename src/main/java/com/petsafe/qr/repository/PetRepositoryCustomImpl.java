@@ -0,0 +1,107 @@
+package com.petsafe.qr.repository;
+
+import com.petsafe.qr.entity.Pet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class PetRepositoryCustomImpl implements PetRepositoryCustom {
+    
+    private static final String TOGGLE_MISSING =
+            "UPDATE pets SET is_missing = NOT is_missing, version = version + 1, updated_at = :now " +
+            "WHERE id = :id AND owner_id = :ownerId";
+    
+    private static final String DELETE = "DELETE FROM pets WHERE id = :id AND owner_id = :ownerId";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private Boolean supportsReturning;
+    
+    // Um único statement: a verificação de dono, a inversão e a leitura do resultado acontecem atomicamente
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<Pet> toggleMissing(UUID id, UUID ownerId, Long expectedVersion) {
+        String update = expectedVersion != null ? TOGGLE_MISSING + " AND version = :version" : TOGGLE_MISSING;
+        String sql = supportsReturning()
+                ? update + " RETURNING *"
+                : "SELECT * FROM FINAL TABLE (" + update + ")";
+        
+        // O pet devolvido ainda não foi commitado e não pode ir para o cache de segundo nível
+        Query query = entityManager.createNativeQuery(sql, Pet.class)
+                .unwrap(NativeQuery.class)
+                .setCacheMode(CacheMode.IGNORE)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", id)
+                .setParameter("ownerId", ownerId);
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        
+        Optional<Pet> toggled = ((List<Pet>) query.getResultList()).stream().findFirst();
+        toggled.ifPresent(pet -> lockCachedPet(id, pet.getVersion() - 1));
+        return toggled;
+    }
+    
+    // Um DELETE em JPQL faria o Hibernate esvaziar a região inteira do Pet no cache. Como consulta que
+    // devolve linhas ele não faz isso, e só a entrada deste pet é travada como no toggle. A foto vem
+    // na mesma linha devolvida, sem uma leitura antes do DELETE
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<DeletedPet> deleteByIdAndOwnerId(UUID id, UUID ownerId) {
+        String sql = supportsReturning()
+                ? DELETE + " RETURNING photo_url, version"
+                : "SELECT photo_url, version FROM OLD TABLE (" + DELETE + ")";
+        
+        List<Object[]> rows = entityManager.createNativeQuery(sql)
+                .setParameter("id", id)
+                .setParameter("ownerId", ownerId)
+                .getResultList();
+        Optional<DeletedPet> deleted = rows.stream()
+                .findFirst()
+                .map(row -> new DeletedPet((String) row[0], ((Number) row[1]).longValue()));
+        deleted.ifPresent(pet -> lockCachedPet(id, pet.version()));
+        return deleted;
+    }
+    
+    // O UPDATE nativo não passa pelo ciclo de vida da entidade, então o Hibernate não invalidaria o Pet
+    // no cache de segundo nível. A entrada é travada como o próprio Hibernate faz num update ou delete:
+    // com a versão anterior à escrita. Até o fim da transação ninguém grava nela, e depois do destravamento
+    // o cache continua recusando essa versão (ou uma mais velha) até o timeout da trava, então uma leitura
+    // de réplica atrasada não recoloca ali o pet de antes do toggle ou da remoção
+    private void lockCachedPet(UUID id, long previousVersion) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        SessionFactoryImplementor factory = session.getFactory();
+        EntityPersister persister = factory.getMappingMetamodel().getEntityDescriptor(Pet.class);
+        EntityDataAccess cacheAccess = persister.getCacheAccessStrategy();
+        if (cacheAccess == null) {
+            return;
+        }
+        Object key = cacheAccess.generateCacheKey(id, persister, factory, session.getTenantIdentifier());
+        SoftLock lock = cacheAccess.lockItem(session, key, previousVersion);
+        session.getActionQueue().registerProcess((success, completed) -> cacheAccess.unlockItem(completed, key, lock));
+    }
+    
+    // PostgreSQL usa RETURNING; o H2 dos testes usa as tabelas delta FINAL TABLE/OLD TABLE equivalentes
+    private boolean supportsReturning() {
+        if (supportsReturning == null) {
+            supportsReturning = entityManager.unwrap(Session.class)
+                    .doReturningWork(connection -> connection.getMetaData().getDatabaseProductName())
+                    .equals("PostgreSQL");
+        }
+        return supportsReturning;
+    }
+}
@@ -0,0 +1,25 @@
+package com.petsafe.qr.repository;
+
+import com.petsafe.qr.entity.PhotoBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PhotoBlobRepository extends JpaRepository<PhotoBlob, String>, PhotoBlobRepositoryCustom {
+    Optional<PhotoBlob> findByPath(String path);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM PhotoBlob b WHERE b.hash = :hash")
+    Optional<PhotoBlob> findByHashForUpdate(@Param("hash") String hash);
+    
+    @Modifying
+    @Query("UPDATE PhotoBlob b SET b.refCount = b.refCount - 1 WHERE b.path = :path AND b.refCount > 0")
+    int decrementRefCount(@Param("path") String path);
+}
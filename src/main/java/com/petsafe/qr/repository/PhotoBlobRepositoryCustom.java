@@ -0,0 +1,5 @@
+package com.petsafe.qr.repository;
+
+public interface PhotoBlobRepositoryCustom {
+    String acquire(String hash, String path, long size);
+}
@@ -0,0 +1,86 @@
+package com.petsafe.qr.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDateTime;
+
+public class PhotoBlobRepositoryCustomImpl implements PhotoBlobRepositoryCustom {
+    
+    private static final String UPSERT_POSTGRESQL =
+            "INSERT INTO photo_blobs (hash, path, size, ref_count, created_at) VALUES (:hash, :path, :size, 1, :now) " +
+            "ON CONFLICT (hash) DO UPDATE SET ref_count = photo_blobs.ref_count + 1 RETURNING path";
+    
+    private static final String DUPLICATE_KEY = "23505";
+    
+    private static final String UPSERT_H2 =
+            "SELECT path FROM FINAL TABLE (MERGE INTO photo_blobs b " +
+            "USING (VALUES (CAST(? AS VARCHAR(64)), CAST(? AS VARCHAR(255)), CAST(? AS BIGINT), CAST(? AS TIMESTAMP(6)))) " +
+            "s (hash, path, size, created_at) ON b.hash = s.hash " +
+            "WHEN MATCHED THEN UPDATE SET ref_count = b.ref_count + 1 " +
+            "WHEN NOT MATCHED THEN INSERT (hash, path, size, ref_count, created_at) VALUES (s.hash, s.path, s.size, 1, s.created_at))";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private Boolean postgres;
+    
+    // Cria a linha com uma referência ou soma uma à existente num único statement: dois uploads do
+    // mesmo conteúdo novo em paralelo não colidem na chave primária, o segundo espera o primeiro e
+    // incrementa. A linha fica travada até o commit, o que segura a coleta de órfãos (deleteOrphan).
+    // Devolve o caminho gravado, que pode ser o de um upload anterior com outra extensão
+    @Override
+    public String acquire(String hash, String path, long size) {
+        if (!postgres()) {
+            return entityManager.unwrap(Session.class)
+                    .doReturningWork(connection -> mergeH2(connection, hash, path, size));
+        }
+        return (String) entityManager.createNativeQuery(UPSERT_POSTGRESQL)
+                .setParameter("hash", hash)
+                .setParameter("path", path)
+                .setParameter("size", size)
+                .setParameter("now", LocalDateTime.now())
+                .getSingleResult();
+    }
+    
+    // O MERGE do H2 não é atômico como o ON CONFLICT: quem perde a corrida espera o commit do outro e
+    // falha com chave duplicada. Volta ao savepoint e repete uma vez, agora encontrando a linha
+    private static String mergeH2(Connection connection, String hash, String path, long size) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_H2)) {
+                statement.setString(1, hash);
+                statement.setString(2, path);
+                statement.setLong(3, size);
+                statement.setObject(4, LocalDateTime.now());
+                try (ResultSet result = statement.executeQuery()) {
+                    result.next();
+                    String storedPath = result.getString(1);
+                    connection.releaseSavepoint(savepoint);
+                    return storedPath;
+                }
+            } catch (SQLException ex) {
+                connection.rollback(savepoint);
+                if (attempt > 1 || !DUPLICATE_KEY.equals(ex.getSQLState())) {
+                    throw ex;
+                }
+            }
+        }
+    }
+    
+    // PostgreSQL usa INSERT ... ON CONFLICT; o H2 dos testes usa MERGE dentro da tabela delta FINAL TABLE
+    private boolean postgres() {
+        if (postgres == null) {
+            postgres = entityManager.unwrap(Session.class)
+                    .doReturningWork(connection -> connection.getMetaData().getDatabaseProductName())
+                    .equals("PostgreSQL");
+        }
+        return postgres;
+    }
+}
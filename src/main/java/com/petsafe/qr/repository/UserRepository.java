@@ -1,7 +1,10 @@
 package com.petsafe.qr.repository;
 
 import com.petsafe.qr.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,6 +12,10 @@ import java.util.UUID;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
+    // Login: o cache de consultas guarda o id e a entidade vem da região de User; qualquer escrita
+    // em users invalida o resultado
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
+    
     Boolean existsByEmail(String email);
 }
\ No newline at end of file
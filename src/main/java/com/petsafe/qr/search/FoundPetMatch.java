@@ -0,0 +1,4 @@
+package com.petsafe.qr.search;
+
+public record FoundPetMatch(IndexedPet pet, double score, Double distanceKm) {
+}
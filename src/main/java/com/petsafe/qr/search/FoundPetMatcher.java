@@ -0,0 +1,239 @@
+package com.petsafe.qr.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+// Pontua os pets perdidos contra o relato de quem encontrou um animal, por similaridade de atributos
+@Component
+@RequiredArgsConstructor
+public class FoundPetMatcher {
+    
+    static final double MIN_SCORE = 0.35;
+    
+    private static final double SPECIES_WEIGHT = 0.30;
+    private static final double BREED_WEIGHT = 0.25;
+    private static final double COLOR_WEIGHT = 0.20;
+    private static final double SIZE_WEIGHT = 0.15;
+    private static final double LOCATION_WEIGHT = 0.10;
+    private static final double UNKNOWN = 0.5;
+    private static final double JARO_WINKLER_FLOOR = 0.7;
+    private static final double LOCATION_DECAY_KM = 5.0;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    
+    private final MissingPetIndex missingPetIndex;
+    
+    public List<FoundPetMatch> match(FoundPetQuery query, int limit) {
+        IndexedPet[] candidates = missingPetIndex.snapshot();
+        
+        // Os valores distintos são poucos: a similaridade textual é calculada uma vez por valor,
+        // e a varredura de cada candidato fica reduzida a consultas em mapas
+        Map<String, Double> speciesScores = textScores(query.speciesKey(), PetFacet.SPECIES);
+        Map<String, Double> breedScores = textScores(query.breedKey(), PetFacet.BREED);
+        Map<String, Double> colorScores = textScores(query.colorKey(), PetFacet.COLOR);
+        
+        TopMatches top = IntStream.range(0, candidates.length).parallel().collect(
+                () -> new TopMatches(limit),
+                (matches, i) -> {
+                    IndexedPet pet = candidates[i];
+                    double score = score(query, pet, speciesScores, breedScores, colorScores);
+                    if (score >= MIN_SCORE) {
+                        matches.offer(pet, score);
+                    }
+                },
+                TopMatches::merge);
+        
+        List<FoundPetMatch> result = new ArrayList<>();
+        for (ScoredPet scored : top.sortedDescending()) {
+            Double distance = query.hasLocation() && scored.pet().latitude() != null && scored.pet().longitude() != null
+                    ? distanceKm(query.latitude(), query.longitude(), scored.pet().latitude(), scored.pet().longitude())
+                    : null;
+            result.add(new FoundPetMatch(scored.pet(), scored.score(), distance));
+        }
+        return result;
+    }
+    
+    double score(FoundPetQuery query, IndexedPet pet, Map<String, Double> speciesScores,
+                 Map<String, Double> breedScores, Map<String, Double> colorScores) {
+        double total = 0;
+        double weights = 0;
+        if (speciesScores != null) {
+            total += SPECIES_WEIGHT * lookup(speciesScores, query.speciesKey(), pet.speciesKey());
+            weights += SPECIES_WEIGHT;
+        }
+        if (breedScores != null) {
+            total += BREED_WEIGHT * lookup(breedScores, query.breedKey(), pet.breedKey());
+            weights += BREED_WEIGHT;
+        }
+        if (colorScores != null) {
+            total += COLOR_WEIGHT * lookup(colorScores, query.colorKey(), pet.colorKey());
+            weights += COLOR_WEIGHT;
+        }
+        if (query.size() != null) {
+            total += SIZE_WEIGHT * sizeSimilarity(query.size(), PetSize.fromWeight(pet.weight()));
+            weights += SIZE_WEIGHT;
+        }
+        if (query.hasLocation()) {
+            total += LOCATION_WEIGHT * locationSimilarity(query, pet);
+            weights += LOCATION_WEIGHT;
+        }
+        return weights == 0 ? 0 : total / weights;
+    }
+    
+    private Map<String, Double> textScores(String queryKey, PetFacet facet) {
+        if (queryKey == null) {
+            return null;
+        }
+        Map<String, Double> scores = new HashMap<>();
+        for (String value : missingPetIndex.distinctValues(facet)) {
+            scores.put(value, textSimilarity(queryKey, value));
+        }
+        return scores;
+    }
+    
+    private static double lookup(Map<String, Double> scores, String queryKey, String petKey) {
+        if (petKey.isEmpty()) {
+            return UNKNOWN;
+        }
+        Double score = scores.get(petKey);
+        return score != null ? score : textSimilarity(queryKey, petKey);
+    }
+    
+    // Melhor entre a similaridade do texto inteiro e a fração de palavras do relato presentes no pet,
+    // para que "golden" case com "golden retriever" e "preta" com "preto e branco". Jaro-Winkler
+    // abaixo de 0.7 é ruído (cachorro/gato dá 0.58), então a escala começa ali
+    static double textSimilarity(String query, String candidate) {
+        if (query.equals(candidate)) {
+            return 1.0;
+        }
+        double whole = Math.max(0, (jaroWinkler(query, candidate) - JARO_WINKLER_FLOOR) / (1 - JARO_WINKLER_FLOOR));
+        String[] queryTokens = query.split(" ");
+        String[] candidateTokens = candidate.split(" ");
+        int matched = 0;
+        for (String queryToken : queryTokens) {
+            for (String candidateToken : candidateTokens) {
+                if (jaroWinkler(queryToken, candidateToken) >= 0.9) {
+                    matched++;
+                    break;
+                }
+            }
+        }
+        double tokens = 0.9 * matched / queryTokens.length;
+        return Math.max(whole, tokens);
+    }
+    
+    static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return 1.0;
+        }
+        int lengthA = a.length();
+        int lengthB = b.length();
+        if (lengthA == 0 || lengthB == 0) {
+            return 0.0;
+        }
+        int window = Math.max(0, Math.max(lengthA, lengthB) / 2 - 1);
+        boolean[] matchedA = new boolean[lengthA];
+        boolean[] matchedB = new boolean[lengthB];
+        int matches = 0;
+        for (int i = 0; i < lengthA; i++) {
+            int start = Math.max(0, i - window);
+            int end = Math.min(i + window + 1, lengthB);
+            for (int j = start; j < end; j++) {
+                if (!matchedB[j] && a.charAt(i) == b.charAt(j)) {
+                    matchedA[i] = true;
+                    matchedB[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < lengthA; i++) {
+            if (matchedA[i]) {
+                while (!matchedB[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matches;
+        double jaro = (m / lengthA + m / lengthB + (m - transpositions / 2.0) / m) / 3.0;
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(lengthA, lengthB)) && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+    
+    private static double sizeSimilarity(PetSize reported, PetSize actual) {
+        if (actual == null) {
+            return UNKNOWN;
+        }
+        int difference = Math.abs(reported.ordinal() - actual.ordinal());
+        return difference == 0 ? 1.0 : difference == 1 ? 0.4 : 0.0;
+    }
+    
+    private static double locationSimilarity(FoundPetQuery query, IndexedPet pet) {
+        if (pet.latitude() == null || pet.longitude() == null) {
+            return UNKNOWN;
+        }
+        double distance = distanceKm(query.latitude(), query.longitude(), pet.latitude(), pet.longitude());
+        return Math.exp(-distance / LOCATION_DECAY_KM);
+    }
+    
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(h));
+    }
+    
+    private record ScoredPet(IndexedPet pet, double score) {
+    }
+    
+    // Heap mínimo limitado por partição da varredura paralela; as partições são mescladas no final
+    private static final class TopMatches {
+        private static final Comparator<ScoredPet> BY_SCORE = Comparator.comparingDouble(ScoredPet::score);
+        
+        private final int limit;
+        private final PriorityQueue<ScoredPet> heap;
+        
+        TopMatches(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, BY_SCORE);
+        }
+        
+        void offer(IndexedPet pet, double score) {
+            if (heap.size() < limit) {
+                heap.add(new ScoredPet(pet, score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.add(new ScoredPet(pet, score));
+            }
+        }
+        
+        void merge(TopMatches other) {
+            other.heap.forEach(scored -> offer(scored.pet(), scored.score()));
+        }
+        
+        List<ScoredPet> sortedDescending() {
+            List<ScoredPet> sorted = new ArrayList<>(heap);
+            sorted.sort(BY_SCORE.reversed());
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.petsafe.qr.search;
+
+public record FoundPetQuery(String speciesKey, String breedKey, String colorKey, PetSize size,
+                            Double latitude, Double longitude) {
+    
+    public static FoundPetQuery of(String species, String breed, String color, PetSize size,
+                                   Double latitude, Double longitude) {
+        return new FoundPetQuery(keyOrNull(species), keyOrNull(breed), keyOrNull(color), size, latitude, longitude);
+    }
+    
+    boolean hasLocation() {
+        return latitude != null && longitude != null;
+    }
+    
+    private static String keyOrNull(String value) {
+        String key = MissingPetIndex.normalize(value);
+        return key.isEmpty() ? null : key;
+    }
+}
@@ -0,0 +1,18 @@
+package com.petsafe.qr.search;
+
+import com.petsafe.qr.entity.Pet;
+
+import java.util.UUID;
+
+public record IndexedPet(UUID id, String name, String species, String breed, String color, String photoUrl,
+                         Double weight, Double latitude, Double longitude,
+                         String speciesKey, String breedKey, String colorKey) {
+    
+    public static IndexedPet from(Pet pet) {
+        return new IndexedPet(pet.getId(), pet.getName(), pet.getSpecies(), pet.getBreed(), pet.getColor(),
+                pet.getPhotoUrl(), pet.getWeight(), pet.getLastSeenLatitude(), pet.getLastSeenLongitude(),
+                MissingPetIndex.normalize(pet.getSpecies()),
+                MissingPetIndex.normalize(pet.getBreed()),
+                MissingPetIndex.normalize(pet.getColor()));
+    }
+}
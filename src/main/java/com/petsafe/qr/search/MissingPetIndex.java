@@ -0,0 +1,257 @@
+package com.petsafe.qr.search;
+
+import com.petsafe.qr.entity.Pet;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Índice invertido em memória dos pets perdidos: cada pet ocupa um slot inteiro denso e cada valor
+// normalizado de espécie, cor e raça aponta para um bitmap comprimido desses slots
+@Slf4j
+@Component
+public class MissingPetIndex {
+    
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> slotsById = new HashMap<>();
+    private final List<IndexedPet> slots = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<PetFacet, Map<String, RoaringBitmap>> postings = new EnumMap<>(PetFacet.class);
+    private final RoaringBitmap live = new RoaringBitmap();
+    private volatile IndexedPet[] snapshot;
+    
+    public MissingPetIndex() {
+        for (PetFacet facet : PetFacet.values()) {
+            postings.put(facet, new HashMap<>());
+        }
+    }
+    
+    // Aplica a alteração só depois do commit, para que um rollback não deixe o índice divergente do banco
+    public void upsert(Pet pet) {
+        UUID id = pet.getId();
+        if (!Boolean.TRUE.equals(pet.getIsMissing())) {
+            afterCommit(() -> removeNow(id));
+            return;
+        }
+        IndexedPet indexed = IndexedPet.from(pet);
+        afterCommit(() -> putNow(indexed));
+    }
+    
+    public void remove(UUID petId) {
+        afterCommit(() -> removeNow(petId));
+    }
+    
+    public void rebuild(Stream<Pet> missingPets) {
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            slots.clear();
+            freeSlots.clear();
+            postings.values().forEach(Map::clear);
+            live.clear();
+            snapshot = null;
+            missingPets.map(IndexedPet::from).forEach(this::putLocked);
+            log.info("Índice de pets perdidos reconstruído com {} pets", live.getCardinality());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Cópia imutável dos pets perdidos para varreduras paralelas; refeita só depois de uma escrita
+    public IndexedPet[] snapshot() {
+        IndexedPet[] current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.readLock().lock();
+        try {
+            current = new IndexedPet[live.getCardinality()];
+            int i = 0;
+            PeekableIntIterator slotIterator = live.getIntIterator();
+            while (slotIterator.hasNext()) {
+                current[i++] = slots.get(slotIterator.next());
+            }
+            snapshot = current;
+            return current;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Set<String> distinctValues(PetFacet facet) {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(postings.get(facet).keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Valores do mesmo facet combinam com OR; facets diferentes com AND (matchAll) ou OR
+    public MissingPetSearchResult search(Map<PetFacet, ? extends Collection<String>> filters, boolean matchAll, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = null;
+            for (Map.Entry<PetFacet, ? extends Collection<String>> filter : filters.entrySet()) {
+                if (filter.getValue() == null || filter.getValue().isEmpty()) {
+                    continue;
+                }
+                RoaringBitmap facetMatches = new RoaringBitmap();
+                Map<String, RoaringBitmap> values = postings.get(filter.getKey());
+                for (String value : filter.getValue()) {
+                    RoaringBitmap bitmap = values.get(normalize(value));
+                    if (bitmap != null) {
+                        facetMatches.or(bitmap);
+                    }
+                }
+                if (result == null) {
+                    result = facetMatches;
+                } else if (matchAll) {
+                    result.and(facetMatches);
+                } else {
+                    result.or(facetMatches);
+                }
+            }
+            if (result == null) {
+                result = live.clone();
+            }
+            
+            List<IndexedPet> pets = new ArrayList<>(Math.min(limit, result.getCardinality()));
+            PeekableIntIterator slotIterator = result.getIntIterator();
+            while (slotIterator.hasNext() && pets.size() < limit) {
+                pets.add(slots.get(slotIterator.next()));
+            }
+            return new MissingPetSearchResult(result.getCardinality(), pets, facetCounts(result));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private Map<PetFacet, Map<String, Integer>> facetCounts(RoaringBitmap result) {
+        Map<PetFacet, Map<String, Integer>> counts = new EnumMap<>(PetFacet.class);
+        for (Map.Entry<PetFacet, Map<String, RoaringBitmap>> facet : postings.entrySet()) {
+            Map<String, Integer> valueCounts = new LinkedHashMap<>();
+            facet.getValue().entrySet().stream()
+                    .map(value -> Map.entry(value.getKey(), RoaringBitmap.andCardinality(result, value.getValue())))
+                    .filter(value -> value.getValue() > 0)
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .forEach(value -> valueCounts.put(value.getKey(), value.getValue()));
+            counts.put(facet.getKey(), valueCounts);
+        }
+        return counts;
+    }
+    
+    private void putNow(IndexedPet pet) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(pet.id());
+            putLocked(pet);
+            snapshot = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void removeNow(UUID id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            snapshot = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void putLocked(IndexedPet pet) {
+        int slot;
+        if (freeSlots.isEmpty()) {
+            slot = slots.size();
+            slots.add(pet);
+        } else {
+            slot = freeSlots.pop();
+            slots.set(slot, pet);
+        }
+        slotsById.put(pet.id(), slot);
+        live.add(slot);
+        for (PetFacet facet : PetFacet.values()) {
+            String value = facet.keyOf(pet);
+            if (!value.isEmpty()) {
+                postings.get(facet).computeIfAbsent(value, key -> new RoaringBitmap()).add(slot);
+            }
+        }
+    }
+    
+    private void removeLocked(UUID id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        IndexedPet pet = slots.get(slot);
+        for (PetFacet facet : PetFacet.values()) {
+            String value = facet.keyOf(pet);
+            RoaringBitmap bitmap = postings.get(facet).get(value);
+            if (bitmap != null) {
+                bitmap.remove(slot);
+                if (bitmap.isEmpty()) {
+                    postings.get(facet).remove(value);
+                }
+            }
+        }
+        live.remove(slot);
+        slots.set(slot, null);
+        freeSlots.push(slot);
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+}
@@ -0,0 +1,7 @@
+package com.petsafe.qr.search;
+
+import java.util.List;
+import java.util.Map;
+
+public record MissingPetSearchResult(int total, List<IndexedPet> pets, Map<PetFacet, Map<String, Integer>> facets) {
+}
@@ -0,0 +1,25 @@
+package com.petsafe.qr.search;
+
+import java.util.function.Function;
+
+public enum PetFacet {
+    SPECIES("species", IndexedPet::speciesKey),
+    COLOR("color", IndexedPet::colorKey),
+    BREED("breed", IndexedPet::breedKey);
+    
+    private final String parameter;
+    private final Function<IndexedPet, String> accessor;
+    
+    PetFacet(String parameter, Function<IndexedPet, String> accessor) {
+        this.parameter = parameter;
+        this.accessor = accessor;
+    }
+    
+    public String getParameter() {
+        return parameter;
+    }
+    
+    String keyOf(IndexedPet pet) {
+        return accessor.apply(pet);
+    }
+}
@@ -0,0 +1,17 @@
+package com.petsafe.qr.search;
+
+public enum PetSize {
+    SMALL,
+    MEDIUM,
+    LARGE;
+    
+    public static PetSize fromWeight(Double weightKg) {
+        if (weightKg == null) {
+            return null;
+        }
+        if (weightKg < 10) {
+            return SMALL;
+        }
+        return weightKg < 25 ? MEDIUM : LARGE;
+    }
+}
@@ -2,6 +2,7 @@ package com.petsafe.qr.security;
 
 import com.petsafe.qr.entity.User;
 import com.petsafe.qr.exception.ResourceNotFoundException;
+import com.petsafe.qr.jfr.UserPrincipalLoadEvent;
 import com.petsafe.qr.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,6 +11,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -27,9 +29,19 @@ public class CustomUserDetailsService implements UserDetailsService {
         return UserPrincipal.create(user);
     }
     
+    // Roda em toda requisição autenticada (JwtAuthenticationFilter); o evento do JFR mostra quando
+    // o cache de segundo nível não está segurando essa leitura
     @Transactional
     public UserDetails loadUserById(UUID id) {
-        User user = userRepository.findById(id)
+        UserPrincipalLoadEvent event = new UserPrincipalLoadEvent();
+        event.begin();
+        Optional<User> found = userRepository.findById(id);
+        if (event.shouldCommit()) {
+            event.userId = id.toString();
+            event.found = found.isPresent();
+            event.commit();
+        }
+        User user = found
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado com id: " + id));
         
         return UserPrincipal.create(user);
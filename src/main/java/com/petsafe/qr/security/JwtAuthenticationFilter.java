@@ -1,5 +1,8 @@
 package com.petsafe.qr.security;
 
+import com.petsafe.qr.jfr.JwtValidationEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,6 +25,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtTokenProvider tokenProvider;
     private final CustomUserDetailsService userDetailsService;
+    private final MeterRegistry meterRegistry;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -30,8 +34,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                UUID userId = tokenProvider.getUserIdFromToken(jwt);
+            UUID userId = StringUtils.hasText(jwt) ? verify(jwt) : null;
+            if (userId != null) {
                 UserDetails userDetails = userDetailsService.loadUserById(userId);
                 
                 UsernamePasswordAuthenticationToken authentication =
@@ -47,6 +51,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    // Devolve o id do usuário do token, ou null se o token não vale. O tempo medido é só o da verificação
+    // da assinatura e da validade; a busca do usuário aparece nas métricas do banco
+    private UUID verify(String jwt) {
+        JwtValidationEvent event = new JwtValidationEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean valid = tokenProvider.validateToken(jwt);
+        event.end();
+        sample.stop(Timer.builder("petsafe.jwt.verification")
+                .description("Verificação do token JWT")
+                .tag("outcome", valid ? "valid" : "invalid")
+                .register(meterRegistry));
+        UUID userId = valid ? tokenProvider.getUserIdFromToken(jwt) : null;
+        if (event.shouldCommit()) {
+            event.valid = valid;
+            event.userId = userId != null ? userId.toString() : null;
+            event.commit();
+        }
+        return userId;
+    }
+    
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
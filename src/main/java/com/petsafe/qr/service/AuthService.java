@@ -7,6 +7,7 @@ import com.petsafe.qr.entity.User;
 import com.petsafe.qr.exception.BadRequestException;
 import com.petsafe.qr.repository.UserRepository;
 import com.petsafe.qr.security.JwtTokenProvider;
+import com.petsafe.qr.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -44,6 +45,9 @@ public class AuthService {
         return new AuthResponse(token, savedUser.getId(), savedUser.getName(), savedUser.getEmail());
     }
     
+    // Sem transação: a senha é conferida com BCrypt (dezenas de ms) e uma transação aberta seguraria uma
+    // conexão da cota de login esse tempo todo. O usuário vem do primário pela transação curta do
+    // CustomUserDetailsService, e a resposta sai do UserPrincipal que ele montou
     public AuthResponse login(LoginRequest request) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
@@ -53,9 +57,7 @@ public class AuthService {
         
         String token = tokenProvider.generateToken(authentication);
         
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new BadRequestException("Usuário não encontrado"));
-        
-        return new AuthResponse(token, user.getId(), user.getName(), user.getEmail());
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        return new AuthResponse(token, principal.getId(), principal.getName(), principal.getEmail());
     }
-}
\ No newline at end of file
+}
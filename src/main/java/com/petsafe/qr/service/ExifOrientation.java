@@ -0,0 +1,115 @@
+package com.petsafe.qr.service;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// As variantes saem sem metadados EXIF; a orientação da câmera precisa então ser aplicada nos
+// pixels, senão fotos de celular tiradas em retrato aparecem deitadas
+final class ExifOrientation {
+    
+    static final int NORMAL = 1;
+    
+    private static final int HEADER_BYTES = 64 * 1024;
+    private static final int ORIENTATION_TAG = 0x0112;
+    
+    private ExifOrientation() {
+    }
+    
+    // Lê só o cabeçalho do JPEG: percorre os segmentos até o APP1 "Exif" e procura a tag 0x0112 no IFD0
+    static int read(Path jpeg) {
+        byte[] header;
+        try (InputStream in = Files.newInputStream(jpeg)) {
+            header = in.readNBytes(HEADER_BYTES);
+        } catch (IOException ex) {
+            return NORMAL;
+        }
+        return read(header);
+    }
+    
+    static int read(byte[] header) {
+        ByteBuffer buf = ByteBuffer.wrap(header);
+        if (header.length < 4 || (buf.getShort(0) & 0xFFFF) != 0xFFD8) {
+            return NORMAL;
+        }
+        int pos = 2;
+        while (pos + 4 <= header.length) {
+            int marker = buf.getShort(pos) & 0xFFFF;
+            int length = buf.getShort(pos + 2) & 0xFFFF;
+            if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA) {
+                return NORMAL;
+            }
+            if (marker == 0xFFE1 && isExif(header, pos + 4)) {
+                return readOrientation(header, pos + 10, pos + 2 + length);
+            }
+            pos += 2 + length;
+        }
+        return NORMAL;
+    }
+    
+    private static boolean isExif(byte[] header, int pos) {
+        return pos + 6 <= header.length
+                && header[pos] == 'E' && header[pos + 1] == 'x' && header[pos + 2] == 'i' && header[pos + 3] == 'f'
+                && header[pos + 4] == 0 && header[pos + 5] == 0;
+    }
+    
+    private static int readOrientation(byte[] header, int tiffStart, int segmentEnd) {
+        int end = Math.min(segmentEnd, header.length);
+        if (tiffStart + 8 > end) {
+            return NORMAL;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(header, tiffStart, end - tiffStart).slice();
+        tiff.order(header[tiffStart] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd + 2 > tiff.limit()) {
+            return NORMAL;
+        }
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                break;
+            }
+            if ((tiff.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                int value = tiff.getShort(entry + 8) & 0xFFFF;
+                return value >= 1 && value <= 8 ? value : NORMAL;
+            }
+        }
+        return NORMAL;
+    }
+    
+    // Valores 1-8 do padrão EXIF; 5-8 trocam largura e altura
+    static BufferedImage apply(BufferedImage image, int orientation) {
+        if (orientation == NORMAL) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5;
+        AffineTransform t = new AffineTransform();
+        switch (orientation) {
+            case 2 -> { t.translate(w, 0); t.scale(-1, 1); }
+            case 3 -> { t.translate(w, h); t.rotate(Math.PI); }
+            case 4 -> { t.translate(0, h); t.scale(1, -1); }
+            case 5 -> { t.rotate(-Math.PI / 2); t.scale(-1, 1); }
+            case 6 -> { t.translate(h, 0); t.rotate(Math.PI / 2); }
+            case 7 -> { t.translate(h, w); t.scale(-1, -1); t.rotate(-Math.PI / 2); t.scale(-1, 1); }
+            case 8 -> { t.translate(0, w); t.rotate(3 * Math.PI / 2); }
+            default -> { return image; }
+        }
+        BufferedImage rotated = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rotated.createGraphics();
+        try {
+            g.drawImage(image, t, null);
+        } finally {
+            g.dispose();
+        }
+        return rotated;
+    }
+}
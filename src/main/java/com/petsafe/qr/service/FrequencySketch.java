@@ -0,0 +1,72 @@
+package com.petsafe.qr.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Count-min sketch de 4 linhas com contadores saturando em 15 e envelhecimento por divisão pela
+// metade (TinyLFU). Incrementos concorrentes podem se perder: para uma estimativa de popularidade
+// isso é aceitável e evita sincronizar o caminho de leitura do cache
+final class FrequencySketch {
+    
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+    
+    private final int[] table;
+    private final int width;
+    private final int resetThreshold;
+    private final AtomicInteger additions = new AtomicInteger();
+    
+    FrequencySketch(int expectedEntries) {
+        int size = Integer.highestOneBit(Math.max(16, expectedEntries) - 1) << 1;
+        this.width = size;
+        this.table = new int[DEPTH * size];
+        this.resetThreshold = 10 * size;
+    }
+    
+    void increment(String key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (table[index] < MAX_COUNT) {
+                table[index]++;
+                added = true;
+            }
+        }
+        if (added && additions.incrementAndGet() >= resetThreshold) {
+            reset();
+        }
+    }
+    
+    int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, table[indexOf(hash, row)]);
+        }
+        return min;
+    }
+    
+    // Divide tudo pela metade: popularidade antiga perde peso e um post viral de ontem não
+    // segura espaço para sempre
+    private synchronized void reset() {
+        if (additions.get() < resetThreshold) {
+            return;
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] >>>= 1;
+        }
+        additions.set(resetThreshold / 2);
+    }
+    
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9E3779B1;
+        h ^= h >>> 15;
+        return row * width + (h & (width - 1));
+    }
+    
+    private static int spread(int hash) {
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+}
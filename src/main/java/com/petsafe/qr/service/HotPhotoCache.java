@@ -0,0 +1,243 @@
+package com.petsafe.qr.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cache das fotos mais acessadas em ByteBuffers diretos: os bytes ficam fora do heap e são
+// entregues ao socket sem cópia para arrays. Os arquivos são imutáveis (nome = hash), então
+// não há invalidação por conteúdo, só por remoção do arquivo.
+// Admissão TinyLFU: um arquivo novo só entra se for mais popular que a vítima amostrada
+@Slf4j
+@Component
+@ManagedResource(objectName = "com.petsafe.qr:type=HotPhotoCache,name=hotPhotoCache",
+        description = "Cache off-heap das fotos mais acessadas")
+public class HotPhotoCache {
+    
+    private static final int SAMPLE_SIZE = 8;
+    private static final int MIN_ADMISSION_FREQUENCY = 2;
+    private static final long AVERAGE_ENTRY_BYTES = 16 * 1024;
+    
+    private final long capacityBytes;
+    private final long maxEntryBytes;
+    private final FrequencySketch sketch;
+    private final Map<String, ByteBuffer> entries = new ConcurrentHashMap<>();
+    
+    // Chaves residentes em lista densa para amostragem aleatória da vítima; guardadas por this
+    private final List<String> residentKeys = new ArrayList<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+    
+    // Fotos admitidas ainda sendo lidas, com o tamanho já reservado em residentBytes; guardadas por this
+    private final Map<String, Long> loading = new HashMap<>();
+    
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    public HotPhotoCache(
+            @Value("${app.storage.hot-cache-size:64MB}") DataSize capacity,
+            @Value("${app.storage.hot-cache-max-entry:2MB}") DataSize maxEntry) {
+        this.capacityBytes = capacity.toBytes();
+        this.maxEntryBytes = Math.min(maxEntry.toBytes(), capacityBytes);
+        long expectedEntries = Math.max(256, Math.min(1 << 20, capacityBytes / AVERAGE_ENTRY_BYTES));
+        this.sketch = new FrequencySketch((int) expectedEntries);
+    }
+    
+    // Conta o acesso e devolve uma visão independente (posição/limite próprios) do buffer residente
+    public ByteBuffer get(String key) {
+        sketch.increment(key);
+        ByteBuffer buffer = entries.get(key);
+        if (buffer == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return buffer.duplicate();
+    }
+    
+    // Chamado após um miss. A admissão é decidida antes de qualquer alocação: frequência mínima,
+    // vítimas menos populares que o candidato e o espaço reservado. Só quem ganha aloca o buffer
+    // direto e lê do backend; uma foto fria não custa memória nem leitura extra
+    public ByteBuffer admit(String key, long size, Loader loader) {
+        if (capacityBytes <= 0 || size <= 0 || size > maxEntryBytes
+                || sketch.frequency(key) < MIN_ADMISSION_FREQUENCY) {
+            return null;
+        }
+        synchronized (this) {
+            ByteBuffer existing = entries.get(key);
+            if (existing != null) {
+                return existing.duplicate();
+            }
+            // Outra requisição já está carregando a mesma foto: esta serve do backend
+            if (loading.containsKey(key) || !makeRoom(size, sketch.frequency(key))) {
+                return null;
+            }
+            loading.put(key, size);
+            residentBytes.addAndGet(size);
+        }
+        
+        // Fora do monitor: com threads virtuais a portadora fica presa por microssegundos, não durante I/O
+        ByteBuffer loaded = null;
+        try {
+            loaded = load(loader, size);
+        } catch (IOException ex) {
+            log.debug("Falha ao carregar {} no cache: {}", key, ex.getMessage());
+        }
+        
+        synchronized (this) {
+            // Sem a reserva, um invalidate ou clear passou no meio: os bytes servem esta resposta e só
+            if (loading.remove(key) == null) {
+                return loaded != null ? loaded.duplicate() : null;
+            }
+            if (loaded == null) {
+                residentBytes.addAndGet(-size);
+                return null;
+            }
+            positions.put(key, residentKeys.size());
+            residentKeys.add(key);
+            entries.put(key, loaded);
+        }
+        return loaded.duplicate();
+    }
+    
+    public synchronized void invalidate(String key) {
+        evict(key);
+        Long reserved = loading.remove(key);
+        if (reserved != null) {
+            residentBytes.addAndGet(-reserved);
+        }
+    }
+    
+    @ManagedOperation(description = "Esvazia o cache")
+    public synchronized void clear() {
+        entries.clear();
+        residentKeys.clear();
+        positions.clear();
+        loading.clear();
+        residentBytes.set(0);
+    }
+    
+    @ManagedAttribute(description = "Fração de acessos atendidos pelo cache")
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+    
+    @ManagedAttribute(description = "Bytes residentes fora do heap, incluindo os reservados para cargas em andamento")
+    public long getResidentBytes() {
+        return residentBytes.get();
+    }
+    
+    @ManagedAttribute(description = "Capacidade em bytes")
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+    
+    @ManagedAttribute(description = "Arquivos residentes")
+    public int getEntryCount() {
+        return entries.size();
+    }
+    
+    @ManagedAttribute(description = "Acessos atendidos pelo cache")
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    @ManagedAttribute(description = "Acessos que foram ao disco")
+    public long getMissCount() {
+        return misses.sum();
+    }
+    
+    @ManagedAttribute(description = "Arquivos desalojados")
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+    
+    // Amostra algumas chaves e desaloja a menos frequente enquanto faltar espaço; desiste se a
+    // vítima for tão popular quanto o candidato
+    private boolean makeRoom(long size, int candidateFrequency) {
+        while (residentBytes.get() + size > capacityBytes) {
+            String victim = sampleVictim();
+            if (victim == null || sketch.frequency(victim) >= candidateFrequency) {
+                return false;
+            }
+            evict(victim);
+            evictions.increment();
+        }
+        return true;
+    }
+    
+    private String sampleVictim() {
+        int resident = residentKeys.size();
+        if (resident == 0) {
+            return null;
+        }
+        // Com poucas entradas a varredura completa é mais barata que sortear
+        boolean scanAll = resident <= SAMPLE_SIZE;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = 0; i < Math.min(SAMPLE_SIZE, resident); i++) {
+            String candidate = residentKeys.get(scanAll ? i : random.nextInt(resident));
+            int frequency = sketch.frequency(candidate);
+            if (frequency < victimFrequency) {
+                victim = candidate;
+                victimFrequency = frequency;
+            }
+        }
+        return victim;
+    }
+    
+    // O buffer direto é liberado pelo Cleaner quando a última visão em uso (resposta em andamento)
+    // deixa de ser referenciada
+    private void evict(String key) {
+        ByteBuffer removed = entries.remove(key);
+        Integer position = positions.remove(key);
+        if (removed == null || position == null) {
+            return;
+        }
+        String last = residentKeys.remove(residentKeys.size() - 1);
+        if (position < residentKeys.size()) {
+            residentKeys.set(position, last);
+            positions.put(last, position);
+        }
+        residentBytes.addAndGet(-removed.capacity());
+    }
+    
+    private static ByteBuffer load(Loader loader, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+        try (ReadableByteChannel channel = Channels.newChannel(loader.open())) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Conteúdo menor que o esperado");
+                }
+            }
+        }
+        return buffer.flip().asReadOnlyBuffer();
+    }
+    
+    @FunctionalInterface
+    public interface Loader {
+        InputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,202 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.exception.BadRequestException;
+import com.petsafe.qr.exception.UnsupportedMediaTypeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Identifica o formato pelos magic bytes e lê largura/altura do cabeçalho, consumindo só o começo
+// do stream. Nada é decodificado: a decisão de aceitar sai antes de o corpo inteiro chegar
+final class ImageSniffer {
+    
+    // Um JPEG pode trazer EXIF (até 64KB) e perfis ICC antes do SOF
+    static final int HEADER_LIMIT = 256 * 1024;
+    static final int MAGIC_BYTES = 12;
+    
+    private static final int READ_STEP = 8 * 1024;
+    private static final String UNSUPPORTED = "Arquivo não é uma imagem suportada (JPEG, PNG, GIF, WebP ou HEIC)";
+    
+    private ImageSniffer() {
+    }
+    
+    // prefix são os bytes já consumidos do stream; quem grava o arquivo escreve eles antes do resto
+    record ImageHeader(PhotoFormat format, int width, int height, byte[] prefix) {
+    }
+    
+    static ImageHeader read(InputStream in) throws IOException {
+        byte[] buffer = new byte[READ_STEP];
+        int length = 0;
+        while (true) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, HEADER_LIMIT));
+            }
+            int read = in.read(buffer, length, buffer.length - length);
+            boolean eof = read == -1;
+            if (!eof) {
+                length += read;
+            }
+            if (length == 0 && eof) {
+                throw new BadRequestException("Arquivo vazio");
+            }
+            int[] dimensions = parse(buffer, length, eof);
+            if (dimensions != null) {
+                return new ImageHeader(detect(buffer, length), dimensions[0], dimensions[1], Arrays.copyOf(buffer, length));
+            }
+            if (eof || length >= HEADER_LIMIT) {
+                throw new UnsupportedMediaTypeException("Cabeçalho da imagem inválido ou incompleto");
+            }
+        }
+    }
+    
+    // Só a assinatura; null quando os bytes não batem com nenhum formato aceito
+    static PhotoFormat detect(byte[] b, int length) {
+        if (length >= 3 && u8(b, 0) == 0xFF && u8(b, 1) == 0xD8 && u8(b, 2) == 0xFF) {
+            return PhotoFormat.JPEG;
+        }
+        if (length >= 8 && u8(b, 0) == 0x89 && ascii(b, 1, "PNG") && u8(b, 4) == 0x0D && u8(b, 5) == 0x0A
+                && u8(b, 6) == 0x1A && u8(b, 7) == 0x0A) {
+            return PhotoFormat.PNG;
+        }
+        if (length >= 6 && (ascii(b, 0, "GIF87a") || ascii(b, 0, "GIF89a"))) {
+            return PhotoFormat.GIF;
+        }
+        if (length >= 12 && ascii(b, 0, "RIFF") && ascii(b, 8, "WEBP")) {
+            return PhotoFormat.WEBP;
+        }
+        if (length >= 12 && ascii(b, 4, "ftyp") && (ascii(b, 8, "heic") || ascii(b, 8, "heix")
+                || ascii(b, 8, "hevc") || ascii(b, 8, "mif1") || ascii(b, 8, "msf1"))) {
+            return PhotoFormat.HEIC;
+        }
+        return null;
+    }
+    
+    // {largura, altura}, ou null se ainda faltam bytes
+    private static int[] parse(byte[] b, int length, boolean eof) {
+        if (length < MAGIC_BYTES && !eof) {
+            return null;
+        }
+        PhotoFormat format = detect(b, length);
+        if (format == null) {
+            throw new UnsupportedMediaTypeException(UNSUPPORTED);
+        }
+        return switch (format) {
+            case PNG -> length < 24 ? null : ascii(b, 12, "IHDR") ? new int[]{be32(b, 16), be32(b, 20)} : invalid();
+            case GIF -> length < 10 ? null : new int[]{le16(b, 6), le16(b, 8)};
+            case WEBP -> parseWebp(b, length);
+            case JPEG -> parseJpeg(b, length);
+            case HEIC -> parseHeic(b, length);
+        };
+    }
+    
+    private static int[] parseWebp(byte[] b, int length) {
+        if (length < 30) {
+            return null;
+        }
+        if (ascii(b, 12, "VP8X")) {
+            return new int[]{le24(b, 24) + 1, le24(b, 27) + 1};
+        }
+        if (ascii(b, 12, "VP8L") && u8(b, 20) == 0x2F) {
+            int bits = u8(b, 21) | u8(b, 22) << 8 | u8(b, 23) << 16 | u8(b, 24) << 24;
+            return new int[]{(bits & 0x3FFF) + 1, ((bits >> 14) & 0x3FFF) + 1};
+        }
+        if (ascii(b, 12, "VP8 ") && u8(b, 23) == 0x9D && u8(b, 24) == 0x01 && u8(b, 25) == 0x2A) {
+            return new int[]{le16(b, 26) & 0x3FFF, le16(b, 28) & 0x3FFF};
+        }
+        return invalid();
+    }
+    
+    // Percorre os segmentos até o primeiro SOFn, que traz altura e largura
+    private static int[] parseJpeg(byte[] b, int length) {
+        int pos = 2;
+        while (pos + 4 <= length) {
+            if (u8(b, pos) != 0xFF) {
+                return invalid();
+            }
+            int marker = u8(b, pos + 1);
+            if (marker == 0xFF) {
+                pos++;
+                continue;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                pos += 2;
+                continue;
+            }
+            if (marker == 0xDA || marker == 0xD9) {
+                // Dados da imagem começaram sem nenhum SOF
+                return invalid();
+            }
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                return pos + 9 <= length ? new int[]{be16(b, pos + 7), be16(b, pos + 5)} : null;
+            }
+            pos += 2 + be16(b, pos + 2);
+        }
+        return null;
+    }
+    
+    // Caixas 'ispe' (image spatial extent) em meta/iprp/ipco; câmeras gravam o meta antes do mdat.
+    // Cada item tem a sua (miniatura, blocos da grade, imagem principal) e a miniatura costuma vir
+    // primeiro: só decide com o ipco inteiro em mãos e fica com a maior, que é a principal
+    private static int[] parseHeic(byte[] b, int length) {
+        for (int i = 4; i + 4 <= length; i++) {
+            if (!ascii(b, i, "ipco")) {
+                continue;
+            }
+            long end = i - 4 + (be32(b, i - 4) & 0xFFFFFFFFL);
+            if (end < i + 4) {
+                return invalid();
+            }
+            if (end > length) {
+                return null;
+            }
+            int[] largest = null;
+            for (int pos = i + 4; pos + 8 <= end; ) {
+                long size = be32(b, pos) & 0xFFFFFFFFL;
+                if (size < 8 || pos + size > end) {
+                    return invalid();
+                }
+                if (size >= 20 && ascii(b, pos + 4, "ispe")) {
+                    int width = be32(b, pos + 12);
+                    int height = be32(b, pos + 16);
+                    if (largest == null || (long) width * height > (long) largest[0] * largest[1]) {
+                        largest = new int[]{width, height};
+                    }
+                }
+                pos += (int) size;
+            }
+            return largest != null ? largest : invalid();
+        }
+        return null;
+    }
+    
+    private static int[] invalid() {
+        throw new UnsupportedMediaTypeException("Cabeçalho da imagem inválido ou incompleto");
+    }
+    
+    private static boolean ascii(byte[] b, int offset, String expected) {
+        byte[] bytes = expected.getBytes(StandardCharsets.US_ASCII);
+        return Arrays.equals(b, offset, offset + bytes.length, bytes, 0, bytes.length);
+    }
+    
+    private static int u8(byte[] b, int offset) {
+        return b[offset] & 0xFF;
+    }
+    
+    private static int be16(byte[] b, int offset) {
+        return u8(b, offset) << 8 | u8(b, offset + 1);
+    }
+    
+    private static int be32(byte[] b, int offset) {
+        return be16(b, offset) << 16 | be16(b, offset + 2);
+    }
+    
+    private static int le16(byte[] b, int offset) {
+        return u8(b, offset) | u8(b, offset + 1) << 8;
+    }
+    
+    private static int le24(byte[] b, int offset) {
+        return le16(b, offset) | u8(b, offset + 2) << 16;
+    }
+}
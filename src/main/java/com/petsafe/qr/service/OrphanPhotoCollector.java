@@ -0,0 +1,268 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.repository.PetRepository;
+import com.petsafe.qr.storage.PhotoObject;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// Remove fotos que nenhum pet referencia. Cada execução cobre um único shard (ab/),
+// então uma volta completa é feita aos poucos, e as remoções saem em lotes com limite de taxa.
+// Roda numa thread própria: a pausa do limite de taxa não segura o agendador compartilhado
+// pelos outros @Scheduled, nem uma requisição
+@Slf4j
+@Component
+public class OrphanPhotoCollector {
+    
+    // Passo 0 = arquivos antigos na raiz e staging abandonado; 1..256 = shards 00..ff
+    private static final int STEPS = 257;
+    
+    private final PetRepository petRepository;
+    private final PhotoStorageService photoStorageService;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    @Value("${app.storage.gc.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.storage.gc.grace-period:PT1H}")
+    private Duration gracePeriod;
+    
+    @Value("${app.storage.gc.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${app.storage.gc.max-deletes-per-second:50}")
+    private int maxDeletesPerSecond;
+    
+    private int cursor;
+    private ExecutorService worker;
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    public OrphanPhotoCollector(PetRepository petRepository, PhotoStorageService photoStorageService,
+                                PlatformTransactionManager transactionManager) {
+        this.petRepository = petRepository;
+        this.photoStorageService = photoStorageService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    @PostConstruct
+    void start() {
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "orphan-photo-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    void stop() {
+        worker.shutdownNow();
+    }
+    
+    // O agendador só dispara a passada e volta; se a anterior ainda estiver rodando, esta é pulada
+    @Scheduled(initialDelayString = "${app.storage.gc.initial-delay:300000}",
+            fixedDelayString = "${app.storage.gc.delay:60000}")
+    public void scheduleNextShard() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            worker.execute(() -> {
+                try {
+                    collectNextShard();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            running.set(false);
+        }
+    }
+    
+    void collectNextShard() {
+        int step = cursor;
+        cursor = (cursor + 1) % STEPS;
+        try {
+            int deleted = step == 0 ? collectLegacy() : collectShard(String.format("%02x", step - 1));
+            if (deleted > 0) {
+                log.info("Coleta de fotos órfãs: {} removidas no passo {}", deleted, step);
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Coleta de fotos órfãs falhou no passo {}: {}", step, ex.getMessage());
+        }
+    }
+    
+    // Original e variantes compartilham o prefixo ab/cd/<hash>: o grupo só sai se nenhum pet
+    // apontar para o hash e todos os arquivos forem mais velhos que a carência
+    int collectShard(String shard) throws IOException {
+        Set<String> referenced = referencedKeys(PhotoStorageService.URL_PREFIX + shard + "/%");
+        
+        Map<String, List<String>> orphans = new TreeMap<>();
+        Set<String> recent = new HashSet<>();
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        try (Stream<PhotoObject> objects = photoStorageService.list(shard + "/", true)) {
+            objects.forEach(object -> {
+                String key = groupKey(object.key());
+                if (key == null || referenced.contains(key)) {
+                    return;
+                }
+                if (object.lastModified().isAfter(cutoff)) {
+                    recent.add(key);
+                } else {
+                    orphans.computeIfAbsent(key, k -> new ArrayList<>()).add(object.key());
+                }
+            });
+        }
+        recent.forEach(orphans::remove);
+        
+        RateLimiter limiter = new RateLimiter();
+        int deleted = 0;
+        for (Map.Entry<String, List<String>> orphan : orphans.entrySet()) {
+            String hash = orphan.getKey().substring(orphan.getKey().lastIndexOf('/') + 1);
+            if (photoStorageService.deleteOrphan(hash, orphan.getValue())) {
+                deleted += orphan.getValue().size();
+                limiter.acquire(orphan.getValue().size());
+            }
+        }
+        return deleted;
+    }
+    
+    // Os arquivos da raiz não têm shard: a listagem vem em stream e as referências são conferidas
+    // por lotes de batchSize, então a memória não cresce com o número de fotos antigas
+    int collectLegacy() throws IOException {
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        
+        RateLimiter limiter = new RateLimiter();
+        int deleted = 0;
+        List<String> page = new ArrayList<>();
+        try (Stream<PhotoObject> objects = photoStorageService.list("", false)) {
+            Iterator<PhotoObject> iterator = objects.iterator();
+            while (iterator.hasNext()) {
+                PhotoObject object = iterator.next();
+                if (object.lastModified().isAfter(cutoff)) {
+                    continue;
+                }
+                page.add(object.key());
+                if (page.size() >= batchSize) {
+                    deleted += collectLegacyPage(page, limiter);
+                    page.clear();
+                }
+            }
+        }
+        deleted += collectLegacyPage(page, limiter);
+        
+        // Uploads interrompidos deixam .part no staging, que é sempre local
+        Path staging = photoStorageService.stagingDir();
+        if (Files.isDirectory(staging)) {
+            try (Stream<Path> files = Files.list(staging)) {
+                files.filter(file -> !isRecent(file, cutoff)).forEach(file -> {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException ex) {
+                        log.debug("Não foi possível remover {}: {}", file, ex.getMessage());
+                    }
+                });
+            }
+        }
+        return deleted;
+    }
+    
+    private int collectLegacyPage(List<String> keys, RateLimiter limiter) throws IOException {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        List<String> urls = keys.stream().map(key -> PhotoStorageService.URL_PREFIX + key).toList();
+        Set<String> referenced = readOnlyTransaction.execute(status -> new HashSet<>(petRepository.findReferencedPhotoUrls(urls)));
+        int deleted = 0;
+        for (String key : keys) {
+            if (referenced.contains(PhotoStorageService.URL_PREFIX + key)) {
+                continue;
+            }
+            if (photoStorageService.deleteLegacyOrphan(key)) {
+                deleted++;
+                limiter.acquire(1);
+            }
+        }
+        return deleted;
+    }
+    
+    // As URLs vêm em stream numa transação curta só de leitura; o que fica em memória é o
+    // conjunto de chaves de um shard (1/256 das fotos)
+    private Set<String> referencedKeys(String likePattern) {
+        return readOnlyTransaction.execute(status -> {
+            Set<String> keys = new HashSet<>();
+            try (Stream<String> urls = petRepository.streamPhotoUrlsLike(likePattern)) {
+                urls.map(url -> groupKey(url.substring(PhotoStorageService.URL_PREFIX.length())))
+                        .filter(key -> key != null)
+                        .forEach(keys::add);
+            }
+            return keys;
+        });
+    }
+    
+    // "ab/cd/<hash>_thumb.jpg" -> "ab/cd/<hash>"; null para o que não segue o layout
+    private static String groupKey(String relativePath) {
+        int keyLength = "ab/cd/".length() + 64;
+        if (relativePath.length() <= keyLength || relativePath.charAt(2) != '/' || relativePath.charAt(5) != '/') {
+            return null;
+        }
+        return relativePath.substring(0, keyLength);
+    }
+    
+    private static boolean isRecent(Path file, Instant cutoff) {
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            return modified.toInstant().isAfter(cutoff);
+        } catch (IOException ex) {
+            return true;
+        }
+    }
+    
+    // Segura a thread da coleta a cada lote para não passar de maxDeletesPerSecond
+    private final class RateLimiter {
+        private long batchStart = System.nanoTime();
+        private int inBatch;
+        
+        void acquire(int deletions) {
+            inBatch += deletions;
+            if (inBatch < batchSize) {
+                return;
+            }
+            long minimumNanos = inBatch * 1_000_000_000L / Math.max(1, maxDeletesPerSecond);
+            long remaining = minimumNanos - (System.nanoTime() - batchStart);
+            if (remaining > 0) {
+                try {
+                    Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            inBatch = 0;
+            batchStart = System.nanoTime();
+        }
+    }
+}
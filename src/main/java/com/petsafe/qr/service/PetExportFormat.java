@@ -0,0 +1,34 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.exception.BadRequestException;
+import org.springframework.http.MediaType;
+
+public enum PetExportFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+    
+    private final MediaType mediaType;
+    private final String extension;
+    
+    PetExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+    
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    public static PetExportFormat fromParameter(String value) {
+        for (PetExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Formato de exportação inválido: " + value);
+    }
+}
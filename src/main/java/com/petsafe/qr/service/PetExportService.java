@@ -0,0 +1,137 @@
+package com.petsafe.qr.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.petsafe.qr.dto.PetResponse;
+import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.repository.PetRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class PetExportService {
+    
+    static final int CHUNK_SIZE = 500;
+    
+    private static final String[] CSV_HEADER = {
+            "id", "name", "species", "breed", "age", "color", "weight", "medicalInfo", "allergies",
+            "medications", "vetContact", "ownerNotes", "photoUrl", "qrCodeUrl", "isMissing",
+            "lastSeenLatitude", "lastSeenLongitude", "createdAt", "updatedAt"
+    };
+    
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+    
+    private final PetRepository petRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    
+    @Transactional(readOnly = true)
+    public long exportPets(UUID userId, PetExportFormat format, OutputStream out) throws IOException {
+        try (Stream<Pet> pets = petRepository.streamByOwnerId(userId)) {
+            return switch (format) {
+                case NDJSON -> writeNdjson(pets.iterator(), out);
+                case CSV -> writeCsv(pets.iterator(), out);
+            };
+        }
+    }
+    
+    private long writeNdjson(Iterator<Pet> pets, OutputStream out) throws IOException {
+        long count = 0;
+        try (SequenceWriter writer = objectMapper.writerFor(PetResponse.class)
+                .withRootValueSeparator("\n")
+                .writeValues(nonClosing(out))) {
+            while (pets.hasNext()) {
+                writer.write(PetResponse.fromEntity(pets.next()));
+                if (++count % CHUNK_SIZE == 0) {
+                    endChunk(writer);
+                }
+            }
+        }
+        if (count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return count;
+    }
+    
+    private long writeCsv(Iterator<Pet> pets, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(nonClosing(out), StandardCharsets.UTF_8));
+        writeCsvRow(writer, (Object[]) CSV_HEADER);
+        while (pets.hasNext()) {
+            PetResponse pet = PetResponse.fromEntity(pets.next());
+            writeCsvRow(writer, pet.getId(), pet.getName(), pet.getSpecies(), pet.getBreed(), pet.getAge(),
+                    pet.getColor(), pet.getWeight(), pet.getMedicalInfo(), pet.getAllergies(),
+                    pet.getMedications(), pet.getVetContact(), pet.getOwnerNotes(), pet.getPhotoUrl(),
+                    pet.getQrCodeUrl(), pet.getIsMissing(), pet.getLastSeenLatitude(), pet.getLastSeenLongitude(),
+                    pet.getCreatedAt(), pet.getUpdatedAt());
+            if (++count % CHUNK_SIZE == 0) {
+                endChunk(writer);
+            }
+        }
+        writer.close();
+        out.flush();
+        return count;
+    }
+    
+    // Descarrega o lote já escrito e desanexa as entidades, mantendo o heap constante
+    private void endChunk(Flushable writer) throws IOException {
+        writer.flush();
+        entityManager.clear();
+    }
+    
+    private static void writeCsvRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values[i]));
+        }
+        writer.write("\r\n");
+    }
+    
+    static String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Texto que começa com um destes caracteres vira fórmula ao abrir o CSV numa planilha; o apóstrofo
+        // faz a planilha tratar a célula como texto. Números (uma longitude negativa) saem como estão
+        if (value instanceof String && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+    
+    private static OutputStream nonClosing(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+            
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.dto.FoundPetMatchResponse;
+import com.petsafe.qr.dto.FoundReportRequest;
+import com.petsafe.qr.dto.MissingPetSearchResponse;
+import com.petsafe.qr.dto.MissingPetSummary;
+import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.exception.BadRequestException;
+import com.petsafe.qr.repository.PetRepository;
+import com.petsafe.qr.search.FoundPetMatcher;
+import com.petsafe.qr.search.FoundPetQuery;
+import com.petsafe.qr.search.MissingPetIndex;
+import com.petsafe.qr.search.MissingPetSearchResult;
+import com.petsafe.qr.search.PetFacet;
+import com.petsafe.qr.search.PetSize;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class PetSearchService {
+    
+    static final int MAX_LIMIT = 100;
+    
+    private final PetRepository petRepository;
+    private final MissingPetIndex missingPetIndex;
+    private final FoundPetMatcher foundPetMatcher;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadMissingPetIndex() {
+        try (Stream<Pet> missingPets = petRepository.streamMissing()) {
+            missingPetIndex.rebuild(missingPets);
+        }
+    }
+    
+    public MissingPetSearchResponse searchMissing(List<String> species, List<String> colors, List<String> breeds,
+                                                  String match, int limit) {
+        checkLimit(limit);
+        boolean matchAll;
+        if ("all".equalsIgnoreCase(match)) {
+            matchAll = true;
+        } else if ("any".equalsIgnoreCase(match)) {
+            matchAll = false;
+        } else {
+            throw new BadRequestException("Parâmetro match inválido: " + match);
+        }
+        
+        Map<PetFacet, List<String>> filters = new EnumMap<>(PetFacet.class);
+        filters.put(PetFacet.SPECIES, species);
+        filters.put(PetFacet.COLOR, colors);
+        filters.put(PetFacet.BREED, breeds);
+        
+        MissingPetSearchResult result = missingPetIndex.search(filters, matchAll, limit);
+        
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        result.facets().forEach((facet, counts) -> facets.put(facet.getParameter(), counts));
+        return new MissingPetSearchResponse(
+                result.total(),
+                result.pets().stream().map(MissingPetSummary::fromIndexed).collect(Collectors.toList()),
+                facets
+        );
+    }
+    
+    public List<FoundPetMatchResponse> matchFoundReport(FoundReportRequest request, int limit) {
+        checkLimit(limit);
+        PetSize size = request.getSize() != null ? PetSize.valueOf(request.getSize().toUpperCase(Locale.ROOT)) : null;
+        FoundPetQuery query = FoundPetQuery.of(request.getSpecies(), request.getBreed(), request.getColor(), size,
+                request.getLatitude(), request.getLongitude());
+        
+        return foundPetMatcher.match(query, limit).stream()
+                .map(FoundPetMatchResponse::fromMatch)
+                .collect(Collectors.toList());
+    }
+    
+    private void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("O limite deve estar entre 1 e " + MAX_LIMIT);
+        }
+    }
+}
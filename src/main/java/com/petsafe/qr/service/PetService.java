@@ -6,20 +6,25 @@ import com.petsafe.qr.dto.PetUpdateRequest;
 import com.petsafe.qr.dto.PublicPetResponse;
 import com.petsafe.qr.entity.Pet;
 import com.petsafe.qr.entity.User;
+import com.petsafe.qr.exception.PreconditionFailedException;
 import com.petsafe.qr.exception.ResourceNotFoundException;
 import com.petsafe.qr.exception.UnauthorizedException;
 import com.petsafe.qr.repository.PetRepository;
+import com.petsafe.qr.repository.PetRepositoryCustom.DeletedPet;
 import com.petsafe.qr.repository.UserRepository;
+import com.petsafe.qr.search.MissingPetIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -30,7 +35,10 @@ public class PetService {
     
     private final PetRepository petRepository;
     private final UserRepository userRepository;
-    private static final String UPLOAD_DIR = "uploads/pets/";
+    private final MissingPetIndex missingPetIndex;
+    private final PhotoStorageService photoStorageService;
+    private final PhotoVariantService photoVariantService;
+    private final TransactionOperations transactionOperations;
     
     @Transactional
     public PetResponse createPet(PetCreateRequest request, UUID userId) {
@@ -49,10 +57,13 @@ public class PetService {
         pet.setMedications(request.getMedications());
         pet.setVetContact(request.getVetContact());
         pet.setOwnerNotes(request.getOwnerNotes());
+        pet.setLastSeenLatitude(request.getLastSeenLatitude());
+        pet.setLastSeenLongitude(request.getLastSeenLongitude());
         pet.setOwner(owner);
         pet.setIsMissing(false);
         
         Pet savedPet = petRepository.save(pet);
+        missingPetIndex.upsert(savedPet);
         
         return PetResponse.fromEntity(savedPet);
     }
@@ -85,7 +96,7 @@ public class PetService {
     }
     
     @Transactional
-    public PetResponse updatePet(UUID petId, PetUpdateRequest request, UUID userId) {
+    public PetResponse updatePet(UUID petId, PetUpdateRequest request, UUID userId, Long expectedVersion) {
         Pet pet = petRepository.findById(petId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado"));
         
@@ -93,6 +104,8 @@ public class PetService {
             throw new UnauthorizedException("Você não tem permissão para editar este pet");
         }
         
+        checkVersion(pet, expectedVersion);
+        
         if (request.getName() != null) pet.setName(request.getName());
         if (request.getSpecies() != null) pet.setSpecies(request.getSpecies());
         if (request.getBreed() != null) pet.setBreed(request.getBreed());
@@ -104,68 +117,118 @@ public class PetService {
         if (request.getMedications() != null) pet.setMedications(request.getMedications());
         if (request.getVetContact() != null) pet.setVetContact(request.getVetContact());
         if (request.getOwnerNotes() != null) pet.setOwnerNotes(request.getOwnerNotes());
+        if (request.getLastSeenLatitude() != null) pet.setLastSeenLatitude(request.getLastSeenLatitude());
+        if (request.getLastSeenLongitude() != null) pet.setLastSeenLongitude(request.getLastSeenLongitude());
         
-        Pet updatedPet = petRepository.save(pet);
+        // Flush imediato para que a versão devolvida no ETag já seja a nova
+        Pet updatedPet = petRepository.saveAndFlush(pet);
+        missingPetIndex.upsert(updatedPet);
         return PetResponse.fromEntity(updatedPet);
     }
     
     @Transactional
     public void deletePet(UUID petId, UUID userId) {
-        Pet pet = petRepository.findById(petId)
-                .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado"));
-        
-        if (!pet.getOwner().getId().equals(userId)) {
-            throw new UnauthorizedException("Você não tem permissão para deletar este pet");
+        DeletedPet deleted = petRepository.deleteByIdAndOwnerId(petId, userId)
+                .orElseThrow(() -> rejectedWrite(petId, userId, "Você não tem permissão para deletar este pet"));
+        if (deleted.photoUrl() != null) {
+            photoStorageService.release(deleted.photoUrl());
         }
-        
-        petRepository.delete(pet);
+        missingPetIndex.remove(petId);
     }
     
     @Transactional
-    public PetResponse toggleMissing(UUID petId, UUID userId) {
-        Pet pet = petRepository.findById(petId)
-                .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado"));
-        
-        if (!pet.getOwner().getId().equals(userId)) {
-            throw new UnauthorizedException("Você não tem permissão para modificar este pet");
-        }
-        
-        pet.setIsMissing(!pet.getIsMissing());
-        Pet updatedPet = petRepository.save(pet);
+    public PetResponse toggleMissing(UUID petId, UUID userId, Long expectedVersion) {
+        Pet updatedPet = petRepository.toggleMissing(petId, userId, expectedVersion)
+                .orElseThrow(() -> rejectedWrite(petId, userId, "Você não tem permissão para modificar este pet"));
+        missingPetIndex.upsert(updatedPet);
         
         return PetResponse.fromEntity(updatedPet);
     }
     
-    @Transactional
     public PetResponse uploadPhoto(UUID petId, MultipartFile file, UUID userId) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return uploadPhoto(petId, content, userId);
+        }
+    }
+    
+    // Sem transação: o corpo chega, é conferido e vai para o backend sem segurar conexão do pool.
+    // O dono é conferido antes para não gravar nada de quem não pode, e de novo na troca da foto
+    public PetResponse uploadPhoto(UUID petId, InputStream content, UUID userId) throws IOException {
+        long start = System.nanoTime();
+        findPetToModify(petId, userId);
+        PhotoStorageService.StagedPhoto staged = photoStorageService.stage(content);
+        PetResponse response = attachPhoto(petId, staged, userId);
+        photoStorageService.recordUpload("direct", staged.size(), Duration.ofNanos(System.nanoTime() - start));
+        return response;
+    }
+    
+    // Upload retomável: o arquivo já foi montado e conferido no staging, só falta adotá-lo
+    public PetResponse attachUploadedPhoto(UUID petId, Path stagedFile, String sha256, long size, String extension,
+                                           UUID userId) throws IOException {
+        return attachPhoto(petId, new PhotoStorageService.StagedPhoto(stagedFile, sha256, size, extension), userId);
+    }
+    
+    @Transactional(readOnly = true)
+    public void checkCanModify(UUID petId, UUID userId) {
+        findPetToModify(petId, userId);
+    }
+    
+    // Só o dono, a referência do blob e a URL ficam na transação; o arquivo do staging é consumido
+    private PetResponse attachPhoto(UUID petId, PhotoStorageService.StagedPhoto staged, UUID userId) throws IOException {
+        try {
+            PhotoStorageService.PublishedPhoto published = photoStorageService.publish(staged);
+            return transactionOperations.execute(status -> {
+                Pet pet = findPetToModify(petId, userId);
+                try {
+                    return replacePhoto(pet, photoStorageService.acquire(published));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            Files.deleteIfExists(staged.file());
+        }
+    }
+    
+    private Pet findPetToModify(UUID petId, UUID userId) {
         Pet pet = petRepository.findById(petId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado"));
         
         if (!pet.getOwner().getId().equals(userId)) {
             throw new UnauthorizedException("Você não tem permissão para modificar este pet");
         }
-        
-        // Criar diretório se não existir
-        Path uploadPath = Paths.get(UPLOAD_DIR);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-        
-        // Gerar nome único para o arquivo
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename != null && originalFilename.contains(".")
-                ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                : "";
-        String filename = petId + "_" + System.currentTimeMillis() + extension;
-        
-        // Salvar arquivo
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        
-        // Atualizar URL da foto
-        pet.setPhotoUrl("/uploads/pets/" + filename);
+        return pet;
+    }
+    
+    // Grava a nova foto e solta a referência da anterior
+    private PetResponse replacePhoto(Pet pet, String photoUrl) {
+        String previousPhotoUrl = pet.getPhotoUrl();
+        pet.setPhotoUrl(photoUrl);
         Pet updatedPet = petRepository.save(pet);
+        photoStorageService.release(previousPhotoUrl);
+        photoVariantService.scheduleVariants(updatedPet.getPhotoUrl());
+        missingPetIndex.upsert(updatedPet);
         
         return PetResponse.fromEntity(updatedPet);
     }
-}
\ No newline at end of file
+    
+    private void checkVersion(Pet pet, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(pet.getVersion())) {
+            throw new PreconditionFailedException("O pet foi modificado por outra requisição");
+        }
+    }
+    
+    // Só é chamado quando o statement condicionado ao dono não afetou linhas: descobre o motivo
+    private RuntimeException rejectedWrite(UUID petId, UUID userId, String unauthorizedMessage) {
+        Pet pet = petRepository.findById(petId).orElse(null);
+        if (pet == null) {
+            return new ResourceNotFoundException("Pet não encontrado");
+        }
+        if (!pet.getOwner().getId().equals(userId)) {
+            return new UnauthorizedException(unauthorizedMessage);
+        }
+        return new PreconditionFailedException("O pet foi modificado por outra requisição");
+    }
+}
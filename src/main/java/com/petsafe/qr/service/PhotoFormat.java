@@ -0,0 +1,20 @@
+package com.petsafe.qr.service;
+
+// Formatos aceitos, reconhecidos pelos primeiros bytes do arquivo; a extensão gravada vem daqui
+enum PhotoFormat {
+    JPEG("jpg"),
+    PNG("png"),
+    GIF("gif"),
+    WEBP("webp"),
+    HEIC("heic");
+    
+    private final String extension;
+    
+    PhotoFormat(String extension) {
+        this.extension = extension;
+    }
+    
+    String getExtension() {
+        return extension;
+    }
+}
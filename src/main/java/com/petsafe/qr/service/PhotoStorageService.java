@@ -0,0 +1,325 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.entity.PhotoBlob;
+import com.petsafe.qr.exception.PayloadTooLargeException;
+import com.petsafe.qr.exception.UnsupportedMediaTypeException;
+import com.petsafe.qr.jfr.PhotoWriteEvent;
+import com.petsafe.qr.repository.PetRepository;
+import com.petsafe.qr.repository.PhotoBlobRepository;
+import com.petsafe.qr.storage.LocalPhotoStorage;
+import com.petsafe.qr.storage.PhotoObject;
+import com.petsafe.qr.storage.PhotoStorage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Armazenamento endereçado por conteúdo: a chave é o SHA-256 dos bytes, distribuída em prefixos
+// ab/cd/ para que nenhum diretório acumule milhares de entradas. Os bytes ficam no PhotoStorage
+// configurado (disco local ou S3)
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PhotoStorageService {
+    
+    public static final String URL_PREFIX = "/uploads/pets/";
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,5}");
+    private static final Map<String, String> EXTENSIONS_BY_TYPE = Map.of(
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/webp", "webp",
+            "image/gif", "gif",
+            "image/heic", "heic"
+    );
+    
+    private final PhotoBlobRepository photoBlobRepository;
+    private final PetRepository petRepository;
+    private final HotPhotoCache hotPhotoCache;
+    private final PhotoStorage photoStorage;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${app.storage.photo-dir:uploads/pets}")
+    private String photoDir;
+    
+    @Value("${app.storage.signed-url-ttl:PT10M}")
+    private Duration signedUrlTtl;
+    
+    @Value("${app.upload.max-photo-size:10MB}")
+    private DataSize maxPhotoSize;
+    
+    @Value("${app.upload.max-photo-pixels:50000000}")
+    private long maxPhotoPixels;
+    
+    // Arquivo no staging local com hash conhecido; quem cria é responsável por apagá-lo
+    public record StagedPhoto(Path file, String hash, long size, String extension) {
+    }
+    
+    // key é onde o objeto ficou no backend; written indica que foi gravado agora (fora da carência da coleta)
+    public record PublishedPhoto(StagedPhoto staged, String key, boolean written) {
+    }
+    
+    // Os bytes são gravados uma única vez no staging local enquanto o hash é calculado: a chave
+    // depende do conteúdo, então só depois disso o arquivo pode ir para o backend. O formato vem
+    // dos magic bytes, nunca do nome do arquivo ou do Content-Type. Roda fora de transação: um
+    // cliente lento não segura conexão do pool enquanto o corpo chega
+    public StagedPhoto stage(InputStream content) throws IOException {
+        // Lixo e imagens gigantes param aqui, com só o cabeçalho lido e nada gravado em disco
+        ImageSniffer.ImageHeader header = inspect(content);
+        if (header.prefix().length > maxPhotoSize.toBytes()) {
+            throw tooLarge();
+        }
+        Path stagingDir = Files.createDirectories(stagingDir());
+        Path staging = Files.createTempFile(stagingDir, "upload-", ".part");
+        
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(staging), digest)) {
+                out.write(header.prefix());
+                size = copyLimited(content, out, header.prefix().length);
+            }
+            return new StagedPhoto(staging, HexFormat.of().formatHex(digest.digest()), size, header.format().getExtension());
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(staging);
+            throw ex;
+        }
+    }
+    
+    // Também fora de transação: envia o objeto ao backend se ele ainda não estiver lá. A chave de
+    // um blob já conhecido é mantida, mesmo que tenha sido gravado com outra extensão
+    public PublishedPhoto publish(StagedPhoto staged) throws IOException {
+        String key = photoBlobRepository.findById(staged.hash())
+                .map(PhotoBlob::getPath)
+                .orElse(keyFor(staged.hash(), staged.extension()));
+        
+        PhotoWriteEvent event = new PhotoWriteEvent();
+        event.begin();
+        boolean written = photoStorage.head(key).isEmpty();
+        if (written) {
+            photoStorage.putFile(key, staged.file(), contentTypeOf(key));
+        } else {
+            // Conteúdo já armazenado: a cópia recém-gravada no staging é descartada por quem a criou
+            log.debug("Foto {} deduplicada ({} bytes)", staged.hash(), staged.size());
+        }
+        if (event.shouldCommit()) {
+            event.key = key;
+            event.size = staged.size();
+            event.deduplicated = !written;
+            event.commit();
+        }
+        return new PublishedPhoto(staged, key, written);
+    }
+    
+    // Na transação de quem adota a foto, que deve ser curta: soma a referência criando a linha se
+    // preciso, sem corrida entre uploads iguais. Com a linha travada, a coleta de órfãos não apaga
+    // mais nada deste hash; se já tinha apagado o objeto deduplicado, a cópia do staging assume o lugar
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String acquire(PublishedPhoto photo) throws IOException {
+        StagedPhoto staged = photo.staged();
+        String key = photoBlobRepository.acquire(staged.hash(), photo.key(), staged.size());
+        if (!photo.written() || !key.equals(photo.key())) {
+            if (photoStorage.head(key).isEmpty()) {
+                photoStorage.putFile(key, staged.file(), contentTypeOf(key));
+            }
+        }
+        return URL_PREFIX + key;
+    }
+    
+    // type: direct (corpo único) ou resumable (sessão, da abertura até a finalização)
+    public void recordUpload(String type, long bytes, Duration duration) {
+        DistributionSummary.builder("petsafe.upload.bytes")
+                .description("Tamanho das fotos recebidas")
+                .baseUnit("bytes")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(bytes);
+        Timer.builder("petsafe.upload.duration")
+                .description("Tempo de recebimento e armazenamento das fotos")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(duration);
+    }
+    
+    // Só decrementa: o arquivo com refCount zero fica para a coleta de órfãos, o que evita apagar
+    // um conteúdo que um upload concorrente acabou de deduplicar
+    @Transactional
+    public void release(String photoUrl) {
+        if (photoUrl == null || !photoUrl.startsWith(URL_PREFIX)) {
+            return;
+        }
+        photoBlobRepository.decrementRefCount(photoUrl.substring(URL_PREFIX.length()));
+    }
+    
+    // Chamado pela coleta de órfãos com a linha do blob travada: um upload concorrente do mesmo
+    // conteúdo espera aqui e, depois do commit, regrava o objeto em vez de apontar para um apagado
+    @Transactional
+    public boolean deleteOrphan(String hash, List<String> keys) throws IOException {
+        Optional<PhotoBlob> blob = photoBlobRepository.findByHashForUpdate(hash);
+        String shardPrefix = URL_PREFIX + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+        if (petRepository.existsByPhotoUrlStartingWith(shardPrefix)) {
+            return false;
+        }
+        for (String key : keys) {
+            photoStorage.delete(key);
+            hotPhotoCache.invalidate(key);
+        }
+        blob.ifPresent(photoBlobRepository::delete);
+        return true;
+    }
+    
+    // Arquivos antigos (petId_timestamp) não são deduplicados: basta confirmar que ninguém aponta para eles.
+    // Não é readOnly de propósito: a decisão de apagar consulta o primário, nunca uma réplica atrasada
+    @Transactional
+    public boolean deleteLegacyOrphan(String key) throws IOException {
+        if (petRepository.existsByPhotoUrl(URL_PREFIX + key)) {
+            return false;
+        }
+        return photoStorage.delete(key);
+    }
+    
+    public Optional<PhotoObject> head(String key) throws IOException {
+        return photoStorage.head(key);
+    }
+    
+    public InputStream open(String key) throws IOException {
+        return photoStorage.get(key);
+    }
+    
+    public InputStream open(String key, long offset, long length) throws IOException {
+        return photoStorage.get(key, offset, length);
+    }
+    
+    public Stream<PhotoObject> list(String prefix, boolean recursive) throws IOException {
+        return photoStorage.list(prefix, recursive);
+    }
+    
+    public Optional<Path> localPath(String key) {
+        return photoStorage.localPath(key);
+    }
+    
+    // Vazio no backend local ou com a validade zerada: aí os bytes são servidos pela aplicação
+    public Optional<URI> signedUrl(String key) {
+        if (signedUrlTtl.isZero() || signedUrlTtl.isNegative()) {
+            return Optional.empty();
+        }
+        return photoStorage.signedUrl(key, signedUrlTtl);
+    }
+    
+    public Duration getSignedUrlTtl() {
+        return signedUrlTtl;
+    }
+    
+    // Staging fica sempre no disco local, qualquer que seja o backend
+    public Path stagingDir() {
+        return Paths.get(photoDir).resolve(LocalPhotoStorage.STAGING_DIR);
+    }
+    
+    public Optional<String> findOriginal(String hash) {
+        return photoBlobRepository.findById(hash).map(PhotoBlob::getPath);
+    }
+    
+    public static String contentTypeOf(String key) {
+        return MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+    
+    // Formato pelos magic bytes e limite de pixels: um PNG de 50KB pode declarar 100000x100000 e
+    // explodir a memória de quem decodificar (variantes)
+    ImageSniffer.ImageHeader inspect(InputStream content) throws IOException {
+        ImageSniffer.ImageHeader header = ImageSniffer.read(content);
+        if (header.width() <= 0 || header.height() <= 0) {
+            throw new UnsupportedMediaTypeException("Dimensões da imagem inválidas");
+        }
+        if ((long) header.width() * header.height() > maxPhotoPixels) {
+            throw new PayloadTooLargeException("Imagem excede o limite de " + maxPhotoPixels / 1_000_000 + " megapixels");
+        }
+        return header;
+    }
+    
+    public DataSize getMaxPhotoSize() {
+        return maxPhotoSize;
+    }
+    
+    public static String extensionForContentType(String contentType) {
+        if (contentType == null) {
+            return "";
+        }
+        String type = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        return EXTENSIONS_BY_TYPE.getOrDefault(type, "");
+    }
+    
+    private long copyLimited(InputStream in, OutputStream out, long alreadyWritten) throws IOException {
+        long limit = maxPhotoSize.toBytes();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = alreadyWritten;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > limit) {
+                // Aborta no primeiro bloco além do limite, sem drenar o resto do corpo
+                throw tooLarge();
+            }
+            out.write(buffer, 0, read);
+        }
+        return total;
+    }
+    
+    private PayloadTooLargeException tooLarge() {
+        return new PayloadTooLargeException("Arquivo excede o tamanho máximo de " + maxPhotoSize.toMegabytes() + "MB");
+    }
+    
+    private static String keyFor(String hash, String extension) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + normalizeExtension(extension);
+    }
+    
+    // A extensão vira parte do caminho em disco: aceita apenas alfanuméricos curtos
+    private static String normalizeExtension(String extension) {
+        if (extension == null || extension.isBlank()) {
+            return "";
+        }
+        String ext = extension.trim().toLowerCase(Locale.ROOT);
+        if (ext.startsWith(".")) {
+            ext = ext.substring(1);
+        }
+        if (ext.equals("jpeg")) {
+            ext = "jpg";
+        }
+        return EXTENSION.matcher(ext).matches() ? "." + ext : "";
+    }
+    
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 indisponível", ex);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.dto.PetResponse;
+import com.petsafe.qr.dto.UploadSessionRequest;
+import com.petsafe.qr.dto.UploadSessionResponse;
+import com.petsafe.qr.exception.BadRequestException;
+import com.petsafe.qr.exception.ConflictException;
+import com.petsafe.qr.exception.PayloadTooLargeException;
+import com.petsafe.qr.exception.ResourceNotFoundException;
+import com.petsafe.qr.exception.UnsupportedMediaTypeException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Upload retomável da foto: o cliente abre uma sessão com tamanho e SHA-256, envia pedaços em
+// qualquer quantidade de requisições e finaliza. Bytes que chegaram antes de uma queda de conexão
+// ficam gravados, então a retomada continua do último offset em vez de recomeçar do zero.
+// As sessões vivem em memória (um nó); o arquivo parcial fica no staging local
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PhotoUploadSessionService {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final PetService petService;
+    private final PhotoStorageService photoStorageService;
+    
+    private final Map<UUID, UploadSession> sessions = new ConcurrentHashMap<>();
+    
+    @Value("${app.upload.session-ttl:PT30M}")
+    private Duration sessionTtl;
+    
+    @Value("${app.upload.max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+    
+    public UploadSessionResponse createSession(UUID petId, UploadSessionRequest request, UUID userId) throws IOException {
+        petService.checkCanModify(petId, userId);
+        
+        long maxSize = photoStorageService.getMaxPhotoSize().toBytes();
+        if (request.getSize() > maxSize) {
+            throw new PayloadTooLargeException("Arquivo excede o tamanho máximo de "
+                    + photoStorageService.getMaxPhotoSize().toMegabytes() + "MB");
+        }
+        // Filtro barato antes de qualquer byte; o tipo real é conferido pelos magic bytes
+        if (PhotoStorageService.extensionForContentType(request.getContentType()).isEmpty()) {
+            throw new UnsupportedMediaTypeException("Tipo de arquivo não suportado: " + request.getContentType());
+        }
+        long active = sessions.values().stream().filter(session -> session.userId.equals(userId)).count();
+        if (active >= maxSessionsPerUser) {
+            throw new BadRequestException("Muitos uploads em andamento; finalize ou cancele um deles");
+        }
+        
+        Path file = Files.createTempFile(Files.createDirectories(photoStorageService.stagingDir()), "session-", ".part");
+        UploadSession session = new UploadSession(UUID.randomUUID(), petId, userId, file, request.getSize(),
+                request.getSha256().toLowerCase(Locale.ROOT));
+        sessions.put(session.id, session);
+        return toResponse(session);
+    }
+    
+    public UploadSessionResponse getSession(UUID petId, UUID sessionId, UUID userId) {
+        return toResponse(findSession(petId, sessionId, userId));
+    }
+    
+    // Grava o pedaço a partir de "start", que precisa ser exatamente o offset atual (409 caso
+    // contrário, com o offset certo na mensagem). Cada bloco lido entra no arquivo e no digest
+    // antes do próximo, para que uma queda no meio deixe os dois consistentes
+    public UploadSessionResponse appendChunk(UUID petId, UUID sessionId, long start, InputStream content, UUID userId)
+            throws IOException {
+        UploadSession session = findSession(petId, sessionId, userId);
+        if (!session.lock.tryLock()) {
+            throw new ConflictException("Outro envio desta sessão está em andamento");
+        }
+        try {
+            checkOpen(session);
+            if (start != session.offset) {
+                throw new ConflictException("Offset esperado: " + session.offset);
+            }
+            try (FileChannel channel = FileChannel.open(session.file, StandardOpenOption.WRITE)) {
+                channel.position(session.offset);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    if (session.offset + read > session.size) {
+                        throw new PayloadTooLargeException("Os dados excedem o tamanho declarado de " + session.size + " bytes");
+                    }
+                    // Primeiro bloco da sessão: a assinatura já diz se é imagem, sem esperar o resto
+                    if (session.offset == 0 && read >= ImageSniffer.MAGIC_BYTES && ImageSniffer.detect(buffer, read) == null) {
+                        throw new UnsupportedMediaTypeException("Arquivo não é uma imagem suportada (JPEG, PNG, GIF, WebP ou HEIC)");
+                    }
+                    wrapped.clear().limit(read);
+                    while (wrapped.hasRemaining()) {
+                        channel.write(wrapped);
+                    }
+                    session.digest.update(buffer, 0, read);
+                    session.offset += read;
+                }
+            } finally {
+                session.lastActivity = Instant.now();
+            }
+            return toResponse(session);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+    
+    public PetResponse complete(UUID petId, UUID sessionId, UUID userId) throws IOException {
+        UploadSession session = findSession(petId, sessionId, userId);
+        if (!session.lock.tryLock()) {
+            throw new ConflictException("Outro envio desta sessão está em andamento");
+        }
+        try {
+            checkOpen(session);
+            if (session.offset != session.size) {
+                throw new BadRequestException("Upload incompleto: " + session.offset + " de " + session.size + " bytes");
+            }
+            close(session);
+        } finally {
+            session.lock.unlock();
+        }
+        
+        // A sessão já saiu do mapa: daqui em diante o arquivo é adotado ou descartado
+        try {
+            String hash = HexFormat.of().formatHex(session.digest.digest());
+            if (!hash.equals(session.sha256)) {
+                throw new BadRequestException("Checksum SHA-256 não confere; envie o arquivo novamente");
+            }
+            ImageSniffer.ImageHeader header;
+            try (InputStream in = Files.newInputStream(session.file)) {
+                header = photoStorageService.inspect(in);
+            }
+            PetResponse response = petService.attachUploadedPhoto(petId, session.file, hash, session.size,
+                    header.format().getExtension(), userId);
+            photoStorageService.recordUpload("resumable", session.size, Duration.between(session.createdAt, Instant.now()));
+            return response;
+        } finally {
+            Files.deleteIfExists(session.file);
+        }
+    }
+    
+    public void cancel(UUID petId, UUID sessionId, UUID userId) throws IOException {
+        UploadSession session = findSession(petId, sessionId, userId);
+        session.lock.lock();
+        try {
+            close(session);
+            Files.deleteIfExists(session.file);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+    
+    // Sessões sem atividade dentro do TTL são descartadas junto com o arquivo parcial; uma sessão
+    // recebendo dados no momento (lock ocupado) fica para a próxima passada
+    @Scheduled(fixedDelayString = "${app.upload.session-sweep-delay:60000}")
+    public void expireSessions() {
+        Instant cutoff = Instant.now().minus(sessionTtl);
+        for (UploadSession session : sessions.values()) {
+            if (session.lastActivity.isAfter(cutoff) || !session.lock.tryLock()) {
+                continue;
+            }
+            try {
+                close(session);
+                Files.deleteIfExists(session.file);
+                log.debug("Sessão de upload {} expirada com {} de {} bytes", session.id, session.offset, session.size);
+            } catch (IOException ex) {
+                log.warn("Não foi possível remover {}: {}", session.file, ex.getMessage());
+            } finally {
+                session.lock.unlock();
+            }
+        }
+    }
+    
+    private UploadSession findSession(UUID petId, UUID sessionId, UUID userId) {
+        UploadSession session = sessions.get(sessionId);
+        if (session == null || !session.petId.equals(petId) || !session.userId.equals(userId)) {
+            throw new ResourceNotFoundException("Sessão de upload não encontrada");
+        }
+        return session;
+    }
+    
+    private static void checkOpen(UploadSession session) {
+        if (session.closed) {
+            throw new ResourceNotFoundException("Sessão de upload não encontrada");
+        }
+    }
+    
+    private void close(UploadSession session) {
+        session.closed = true;
+        sessions.remove(session.id);
+    }
+    
+    private UploadSessionResponse toResponse(UploadSession session) {
+        return new UploadSessionResponse(
+                session.id,
+                session.offset,
+                session.size,
+                LocalDateTime.ofInstant(session.lastActivity.plus(sessionTtl), ZoneId.systemDefault())
+        );
+    }
+    
+    // Estado mutável protegido pelo lock da própria sessão
+    private static final class UploadSession {
+        private final UUID id;
+        private final UUID petId;
+        private final UUID userId;
+        private final Path file;
+        private final long size;
+        private final String sha256;
+        private final MessageDigest digest = PhotoStorageService.sha256();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Instant createdAt = Instant.now();
+        private long offset;
+        private volatile Instant lastActivity = Instant.now();
+        private volatile boolean closed;
+        
+        private UploadSession(UUID id, UUID petId, UUID userId, Path file, long size, String sha256) {
+            this.id = id;
+            this.petId = petId;
+            this.userId = userId;
+            this.file = file;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+    }
+}
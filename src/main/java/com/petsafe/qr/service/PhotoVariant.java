@@ -0,0 +1,71 @@
+package com.petsafe.qr.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.imageio.ImageIO;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Versões redimensionadas de uma foto endereçada por conteúdo. O caminho é derivado do hash do
+// original, então a URL é conhecida antes mesmo de o worker terminar de gerar o arquivo
+@Getter
+@RequiredArgsConstructor
+public enum PhotoVariant {
+    THUMB("thumb", 160),
+    SMALL("small", 480),
+    MEDIUM("medium", 1080);
+    
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile(
+            "([0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64})(\\.[a-z0-9]{1,5})?");
+    private static final Map<String, Boolean> RESIZABLE = new ConcurrentHashMap<>();
+    
+    private final String key;
+    private final int maxDimension;
+    
+    // ab/cd/<hash>.png -> ab/cd/<hash>_thumb.jpg (variantes são sempre JPEG)
+    public String pathFor(String originalPath) {
+        Matcher matcher = CONTENT_ADDRESSED.matcher(originalPath);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Caminho não endereçado por conteúdo: " + originalPath);
+        }
+        return matcher.group(1) + "_" + key + ".jpg";
+    }
+    
+    public static boolean isContentAddressed(String photoUrl) {
+        return photoUrl != null
+                && photoUrl.startsWith(PhotoStorageService.URL_PREFIX)
+                && CONTENT_ADDRESSED.matcher(photoUrl.substring(PhotoStorageService.URL_PREFIX.length())).matches();
+    }
+    
+    // Só formatos com decodificador no ImageIO viram variantes; WebP e HEIC ficam no original
+    public static boolean isResizable(String originalPath) {
+        int dot = originalPath.lastIndexOf('.');
+        if (dot < 0 || dot < originalPath.lastIndexOf('/')) {
+            return false;
+        }
+        return RESIZABLE.computeIfAbsent(originalPath.substring(dot + 1),
+                extension -> ImageIO.getImageReadersBySuffix(extension).hasNext());
+    }
+    
+    // Fotos antigas (nome petId_timestamp) e formatos que não podem ser redimensionados não têm
+    // variantes: devolve mapa vazio em vez de anunciar URLs que nunca vão existir
+    public static Map<String, String> urlsFor(String photoUrl) {
+        if (!isContentAddressed(photoUrl)) {
+            return Collections.emptyMap();
+        }
+        String originalPath = photoUrl.substring(PhotoStorageService.URL_PREFIX.length());
+        if (!isResizable(originalPath)) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (PhotoVariant variant : values()) {
+            urls.put(variant.key, PhotoStorageService.URL_PREFIX + variant.pathFor(originalPath));
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,222 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.storage.LocalPhotoStorage;
+import com.petsafe.qr.storage.PhotoStorage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Gera as variantes redimensionadas fora da thread da requisição. O pool é próprio e limitado:
+// com a fila cheia o pedido é descartado em vez de segurar o upload; a URL da variante entrega o
+// original enquanto isso e volta a pedir a geração
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PhotoVariantService {
+
+    private static final float JPEG_QUALITY = 0.82f;
+    
+    private final PhotoStorage photoStorage;
+    
+    @Value("${app.storage.photo-dir:uploads/pets}")
+    private String photoDir;
+    
+    @Value("${app.storage.variant-workers:2}")
+    private int workers;
+    
+    @Value("${app.storage.variant-queue-capacity:200}")
+    private int queueCapacity;
+    
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor executor;
+    
+    // Threads de plataforma mesmo com spring.threads.virtual.enabled: redimensionar é CPU pura e o
+    // pool fixo é o que limita quantas imagens são decodificadas ao mesmo tempo
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "photo-variant-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+    
+    // Só enfileira depois do commit: um upload revertido não gasta CPU redimensionando. Também é
+    // chamado quando uma variante pedida não existe, o que recupera pedidos descartados com a fila cheia
+    public void scheduleVariants(String photoUrl) {
+        if (!PhotoVariant.isContentAddressed(photoUrl)
+                || !PhotoVariant.isResizable(photoUrl.substring(PhotoStorageService.URL_PREFIX.length()))) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(photoUrl);
+                }
+            });
+        } else {
+            submit(photoUrl);
+        }
+    }
+    
+    // Uma foto entra na fila uma vez só, por mais que as variantes dela sejam pedidas enquanto isso
+    private void submit(String photoUrl) {
+        if (!inFlight.add(photoUrl)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateVariants(photoUrl);
+                } finally {
+                    inFlight.remove(photoUrl);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(photoUrl);
+            log.warn("Fila de variantes cheia; {} será servida no tamanho original até ser pedida de novo", photoUrl);
+        }
+    }
+    
+    public void generateVariants(String photoUrl) {
+        String originalKey = photoUrl.substring(PhotoStorageService.URL_PREFIX.length());
+        try {
+            // Do maior para o menor: cada variante é reduzida a partir da anterior, que já é pequena
+            List<PhotoVariant> pending = new ArrayList<>();
+            for (PhotoVariant variant : PhotoVariant.values()) {
+                if (photoStorage.head(variant.pathFor(originalKey)).isEmpty()) {
+                    pending.add(variant);
+                }
+            }
+            pending.sort((a, b) -> Integer.compare(b.getMaxDimension(), a.getMaxDimension()));
+            if (pending.isEmpty()) {
+                return;
+            }
+            
+            // O original é lido uma vez para a memória: serve ao decodificador e ao EXIF sem uma
+            // segunda ida ao backend
+            byte[] original;
+            try (InputStream in = photoStorage.get(originalKey)) {
+                original = in.readAllBytes();
+            } catch (NoSuchFileException ex) {
+                return;
+            }
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(original));
+            if (source == null) {
+                log.debug("Formato sem decodificador disponível, variantes ignoradas: {}", photoUrl);
+                return;
+            }
+            BufferedImage current = ExifOrientation.apply(source, ExifOrientation.read(original));
+            for (PhotoVariant variant : pending) {
+                current = scale(current, variant.getMaxDimension());
+                writeJpeg(current, variant.pathFor(originalKey));
+            }
+            log.debug("Variantes geradas para {}", photoUrl);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Falha ao gerar variantes de {}: {}", photoUrl, ex.getMessage());
+        }
+    }
+    
+    // Reduz pela metade em passos sucessivos até o tamanho final: a interpolação bilinear em um
+    // único passo grande gera serrilhado
+    static BufferedImage scale(BufferedImage source, int maxDimension) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        
+        BufferedImage current = source;
+        int currentWidth = width;
+        int currentHeight = height;
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+            current = draw(current, currentWidth, currentHeight);
+        } while (currentWidth > targetWidth || currentHeight > targetHeight);
+        return current;
+    }
+    
+    // Sempre RGB sobre fundo branco: JPEG não tem canal alfa
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+    
+    // Escrito sem metadados (nenhum EXIF/GPS sai do servidor) no staging local e só então entregue
+    // ao backend, para que ninguém leia um JPEG pela metade
+    private void writeJpeg(BufferedImage image, String key) throws IOException {
+        Path stagingDir = Files.createDirectories(Paths.get(photoDir).resolve(LocalPhotoStorage.STAGING_DIR));
+        Path staging = Files.createTempFile(stagingDir, "variant-", ".part");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(staging.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(staging);
+            throw ex;
+        } finally {
+            writer.dispose();
+        }
+        try {
+            photoStorage.putFile(key, staging, "image/jpeg");
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+}
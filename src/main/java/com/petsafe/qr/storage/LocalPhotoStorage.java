@@ -0,0 +1,157 @@
+package com.petsafe.qr.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Disco local: a chave vira o caminho relativo à raiz. Escritas passam pelo staging no mesmo volume
+// e entram no lugar com rename atômico, então um leitor nunca vê arquivo pela metade
+public class LocalPhotoStorage implements PhotoStorage {
+    
+    public static final String STAGING_DIR = ".staging";
+    
+    private final Path root;
+    
+    public LocalPhotoStorage(Path root) {
+        this.root = root;
+    }
+    
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) throws IOException {
+        Path stagingDir = Files.createDirectories(root.resolve(STAGING_DIR));
+        Path staging = Files.createTempFile(stagingDir, "put-", ".part");
+        try {
+            Files.copy(content, staging, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(staging);
+            throw ex;
+        }
+        putFile(key, staging, contentType);
+    }
+    
+    @Override
+    public void putFile(String key, Path file, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    @Override
+    public Optional<PhotoObject> head(String key) throws IOException {
+        Path file = resolve(key);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return Optional.of(new PhotoObject(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+    }
+    
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+    
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ).position(offset);
+        return new FilterInputStream(Channels.newInputStream(channel)) {
+            private long remaining = length;
+            
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int b = super.read();
+                if (b >= 0) {
+                    remaining--;
+                }
+                return b;
+            }
+            
+            @Override
+            public int read(byte[] buffer, int off, int len) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = super.read(buffer, off, (int) Math.min(len, remaining));
+                if (read > 0) {
+                    remaining -= read;
+                }
+                return read;
+            }
+        };
+    }
+    
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+    
+    // O prefixo deve terminar numa fronteira de diretório ("ab/" ou ""); o staging nunca é listado
+    @Override
+    public Stream<PhotoObject> list(String prefix, boolean recursive) throws IOException {
+        Path dir = prefix.isEmpty() ? root : resolve(prefix);
+        if (!Files.isDirectory(dir)) {
+            return Stream.empty();
+        }
+        Path staging = root.resolve(STAGING_DIR);
+        return Files.walk(dir, recursive ? Integer.MAX_VALUE : 1)
+                .filter(file -> !file.startsWith(staging))
+                .filter(Files::isRegularFile)
+                .map(file -> {
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        return new PhotoObject(keyOf(file), attributes.size(), attributes.lastModifiedTime().toInstant());
+                    } catch (IOException ex) {
+                        // Removido entre a listagem e a leitura dos atributos
+                        return null;
+                    }
+                })
+                .filter(object -> object != null);
+    }
+    
+    @Override
+    public Optional<URI> signedUrl(String key, Duration ttl) {
+        return Optional.empty();
+    }
+    
+    @Override
+    public Optional<Path> localPath(String key) {
+        try {
+            Path file = resolve(key);
+            return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        }
+    }
+    
+    public Path getRoot() {
+        return root;
+    }
+    
+    // Chaves vêm de URLs: nada de "..", caminho absoluto ou escapar da raiz
+    private Path resolve(String key) throws NoSuchFileException {
+        Path file = root.resolve(key).normalize();
+        if (key.startsWith("/") || !file.startsWith(root.normalize())) {
+            throw new NoSuchFileException(key);
+        }
+        return file;
+    }
+    
+    private String keyOf(Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+}
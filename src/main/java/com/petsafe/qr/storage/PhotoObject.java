@@ -0,0 +1,6 @@
+package com.petsafe.qr.storage;
+
+import java.time.Instant;
+
+public record PhotoObject(String key, long size, Instant lastModified) {
+}
@@ -0,0 +1,44 @@
+package com.petsafe.qr.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Backend onde ficam os bytes das fotos. As chaves são caminhos relativos com "/" ("ab/cd/<hash>.jpg"),
+// iguais ao que vem depois de /uploads/pets/ na URL pública
+public interface PhotoStorage {
+    
+    void put(String key, InputStream content, long length, String contentType) throws IOException;
+    
+    // Envia um arquivo já gravado no staging local e o remove; o backend local só renomeia
+    default void putFile(String key, Path file, String contentType) throws IOException {
+        try (InputStream content = Files.newInputStream(file)) {
+            put(key, content, Files.size(file), contentType);
+        }
+        Files.deleteIfExists(file);
+    }
+    
+    Optional<PhotoObject> head(String key) throws IOException;
+    
+    InputStream get(String key) throws IOException;
+    
+    InputStream get(String key, long offset, long length) throws IOException;
+    
+    boolean delete(String key) throws IOException;
+    
+    // recursive = false lista só o nível do prefixo, como o delimitador "/" do S3. O stream deve ser fechado
+    Stream<PhotoObject> list(String prefix, boolean recursive) throws IOException;
+    
+    // URL de download direto com validade; vazio quando o backend não suporta (os bytes passam pela app)
+    Optional<URI> signedUrl(String key, Duration ttl);
+    
+    // Só o backend local tem o arquivo no disco da JVM, o que habilita sendfile
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,152 @@
+package com.petsafe.qr.storage;
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Qualquer serviço compatível com S3 (AWS, MinIO, R2...). Os objetos são imutáveis por chave, então
+// já vão com Cache-Control de longa duração e o download direto via URL assinada dispensa a JVM
+public class S3PhotoStorage implements PhotoStorage {
+    
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    
+    private final S3Client client;
+    private final S3Presigner presigner;
+    private final String bucket;
+    
+    public S3PhotoStorage(S3Client client, S3Presigner presigner, String bucket) {
+        this.client = client;
+        this.presigner = presigner;
+        this.bucket = bucket;
+    }
+    
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) throws IOException {
+        try {
+            client.putObject(putRequest(key, contentType), RequestBody.fromInputStream(content, length));
+        } catch (SdkException ex) {
+            throw new IOException("Falha ao enviar " + key + " ao S3", ex);
+        }
+    }
+    
+    // Com o arquivo o SDK consegue reenviar em caso de falha, o que um InputStream não permite
+    @Override
+    public void putFile(String key, Path file, String contentType) throws IOException {
+        try {
+            client.putObject(putRequest(key, contentType), RequestBody.fromFile(file));
+        } catch (SdkException ex) {
+            throw new IOException("Falha ao enviar " + key + " ao S3", ex);
+        }
+        Files.deleteIfExists(file);
+    }
+    
+    @Override
+    public Optional<PhotoObject> head(String key) throws IOException {
+        try {
+            HeadObjectResponse response = client.headObject(builder -> builder.bucket(bucket).key(key));
+            return Optional.of(new PhotoObject(key, response.contentLength(), response.lastModified()));
+        } catch (NoSuchKeyException ex) {
+            return Optional.empty();
+        } catch (S3Exception ex) {
+            // HEAD não tem corpo, então o 404 chega sem o código NoSuchKey
+            if (ex.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Falha ao consultar " + key + " no S3", ex);
+        } catch (SdkException ex) {
+            throw new IOException("Falha ao consultar " + key + " no S3", ex);
+        }
+    }
+    
+    @Override
+    public InputStream get(String key) throws IOException {
+        return get(GetObjectRequest.builder().bucket(bucket).key(key).build());
+    }
+    
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        String range = "bytes=" + offset + "-" + (offset + length - 1);
+        return get(GetObjectRequest.builder().bucket(bucket).key(key).range(range).build());
+    }
+    
+    private InputStream get(GetObjectRequest request) throws IOException {
+        try {
+            return client.getObject(request);
+        } catch (NoSuchKeyException ex) {
+            throw new NoSuchFileException(request.key());
+        } catch (SdkException ex) {
+            throw new IOException("Falha ao ler " + request.key() + " do S3", ex);
+        }
+    }
+    
+    // O S3 não informa se a chave existia; o coletor só apaga o que acabou de listar
+    @Override
+    public boolean delete(String key) throws IOException {
+        try {
+            client.deleteObject(builder -> builder.bucket(bucket).key(key));
+            return true;
+        } catch (SdkException ex) {
+            throw new IOException("Falha ao apagar " + key + " do S3", ex);
+        }
+    }
+    
+    // Paginado sob demanda: cada página de até 1000 chaves só é buscada quando o stream chega nela
+    @Override
+    public Stream<PhotoObject> list(String prefix, boolean recursive) throws IOException {
+        ListObjectsV2Request.Builder request = ListObjectsV2Request.builder().bucket(bucket).prefix(prefix);
+        if (!recursive) {
+            request.delimiter("/");
+        }
+        try {
+            return client.listObjectsV2Paginator(request.build()).stream()
+                    .flatMap(page -> page.contents().stream())
+                    .map(object -> new PhotoObject(object.key(), object.size(), object.lastModified()));
+        } catch (SdkException ex) {
+            throw new IOException("Falha ao listar " + prefix + " no S3", ex);
+        }
+    }
+    
+    @Override
+    public Optional<URI> signedUrl(String key, Duration ttl) {
+        try {
+            return Optional.of(presigner.presignGetObject(builder -> builder
+                    .signatureDuration(ttl)
+                    .getObjectRequest(get -> get.bucket(bucket).key(key)))
+                    .url().toURI());
+        } catch (URISyntaxException ex) {
+            return Optional.empty();
+        }
+    }
+    
+    public void close() {
+        presigner.close();
+        client.close();
+    }
+    
+    private PutObjectRequest putRequest(String key, String contentType) {
+        return PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .cacheControl(CACHE_CONTROL)
+                .build();
+    }
+}
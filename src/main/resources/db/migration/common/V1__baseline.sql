@@ -0,0 +1,48 @@
+-- Schema como o ddl-auto=update deixava em produção; bancos já existentes entram direto nesta
+-- versão (baseline-on-migrate) e só recebem as migrações seguintes
+
+CREATE TABLE users (
+    id         UUID         NOT NULL,
+    name       VARCHAR(255) NOT NULL,
+    email      VARCHAR(255) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    phone      VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE pets (
+    id                  UUID             NOT NULL,
+    name                VARCHAR(255)     NOT NULL,
+    species             VARCHAR(255)     NOT NULL,
+    breed               VARCHAR(255),
+    age                 INTEGER,
+    color               VARCHAR(255),
+    weight              DOUBLE PRECISION,
+    medical_info        TEXT,
+    allergies           TEXT,
+    medications         TEXT,
+    vet_contact         VARCHAR(255),
+    owner_notes         TEXT,
+    photo_url           VARCHAR(255),
+    qr_code_url         VARCHAR(255),
+    is_missing          BOOLEAN          NOT NULL,
+    last_seen_latitude  DOUBLE PRECISION,
+    last_seen_longitude DOUBLE PRECISION,
+    owner_id            UUID             NOT NULL,
+    created_at          TIMESTAMP(6)     NOT NULL,
+    updated_at          TIMESTAMP(6)     NOT NULL,
+    version             BIGINT,
+    CONSTRAINT pk_pets PRIMARY KEY (id),
+    CONSTRAINT fk_pets_owner FOREIGN KEY (owner_id) REFERENCES users (id)
+);
+
+CREATE TABLE photo_blobs (
+    hash       VARCHAR(64)  NOT NULL,
+    path       VARCHAR(255) NOT NULL,
+    size       BIGINT       NOT NULL,
+    ref_count  INTEGER      NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_photo_blobs PRIMARY KEY (hash)
+);
@@ -0,0 +1,6 @@
+-- O PostgreSQL não indexa chaves estrangeiras sozinho: sem isso "meus pets" varre a tabela inteira.
+-- created_at junto atende também o ORDER BY do streamByOwnerId sem ordenar em memória
+CREATE INDEX idx_pets_owner_created ON pets (owner_id, created_at);
+
+-- findByPath (decremento de referência e coleta de órfãos)
+CREATE INDEX idx_photo_blobs_path ON photo_blobs (path);
@@ -0,0 +1,8 @@
+-- Pets criados antes do @Version ficaram com version NULL: o Hibernate compara com NULL e devolve
+-- conflito (412) em toda edição, e o toggle nativo (version = version + 1) mantém NULL. Bancos que
+-- entraram pelo baseline não rodam a V1, então a correção precisa ser uma migração própria
+UPDATE pets SET version = 0 WHERE version IS NULL;
+
+ALTER TABLE pets ALTER COLUMN version SET DEFAULT 0;
+
+ALTER TABLE pets ALTER COLUMN version SET NOT NULL;
@@ -0,0 +1,4 @@
+-- Equivalente H2 (testes): sem índice parcial, operator class nem CONCURRENTLY
+CREATE INDEX idx_pets_missing ON pets (is_missing);
+
+CREATE INDEX idx_pets_photo_url ON pets (photo_url);
@@ -0,0 +1,12 @@
+-- Sem transação (ver o .conf ao lado): CREATE INDEX CONCURRENTLY não bloqueia escritas em pets
+-- enquanto o índice é construído, mas não pode rodar dentro de uma. Se uma construção falhar, o
+-- índice fica INVALID com o mesmo nome; o DROP antes permite simplesmente rodar a migração de novo
+
+-- Só uma fração pequena dos pets está desaparecida: o índice parcial guarda apenas essas linhas
+DROP INDEX CONCURRENTLY IF EXISTS idx_pets_missing;
+CREATE INDEX CONCURRENTLY idx_pets_missing ON pets (id) WHERE is_missing;
+
+-- existsByPhotoUrl e o LIKE 'prefixo%' da coleta de órfãos; o operator class permite usar o
+-- índice no LIKE mesmo com collation diferente de C
+DROP INDEX CONCURRENTLY IF EXISTS idx_pets_photo_url;
+CREATE INDEX CONCURRENTLY idx_pets_photo_url ON pets (photo_url varchar_pattern_ops);
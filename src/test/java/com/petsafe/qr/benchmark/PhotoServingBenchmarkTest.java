@@ -0,0 +1,113 @@
+package com.petsafe.qr.benchmark;
+
+import com.petsafe.qr.service.HotPhotoCache;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compara o PhotoController com o ResourceHandler padrão servindo o mesmo arquivo.
+// Rodar com: mvn test -Dtest.excludedGroups= -Dgroups=benchmark
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@DisplayName("Photo serving benchmark")
+class PhotoServingBenchmarkTest {
+
+    private static final String HASH = "abcd" + "1".repeat(60);
+    private static final int PHOTO_SIZE = 2 * 1024 * 1024;
+    private static final int CLIENTS = 8;
+    private static final int REQUESTS_PER_CLIENT = 250;
+
+    @TempDir
+    static Path photoDir;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private HotPhotoCache hotPhotoCache;
+
+    @DynamicPropertySource
+    static void storageProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.storage.photo-dir", () -> photoDir.toString());
+    }
+
+    @BeforeAll
+    static void writePhotos() throws Exception {
+        byte[] content = new byte[PHOTO_SIZE];
+        new Random(42).nextBytes(content);
+        Path hashed = photoDir.resolve("ab/cd/" + HASH + ".jpg");
+        Files.createDirectories(hashed.getParent());
+        Files.write(hashed, content);
+        Files.write(photoDir.resolve("legacy_1700000000000.jpg"), content);
+    }
+
+    @Test
+    @DisplayName("PhotoController vs ResourceHandler throughput")
+    void compareThroughput() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        String base = "http://localhost:" + port + "/uploads/pets/";
+
+        // Aquecimento dos dois caminhos antes de medir
+        run(client, base + "legacy_1700000000000.jpg", 50);
+        run(client, base + "ab/cd/" + HASH + ".jpg", 50);
+
+        double resourceHandler = run(client, base + "legacy_1700000000000.jpg", REQUESTS_PER_CLIENT);
+        double photoController = run(client, base + "ab/cd/" + HASH + ".jpg", REQUESTS_PER_CLIENT);
+
+        System.out.printf("ResourceHandler: %.0f req/s (%.0f MB/s)%n", resourceHandler, resourceHandler * PHOTO_SIZE / 1e6);
+        System.out.printf("PhotoController: %.0f req/s (%.0f MB/s)%n", photoController, photoController * PHOTO_SIZE / 1e6);
+        System.out.printf("HotPhotoCache: hit ratio %.3f, %d bytes residentes%n",
+                hotPhotoCache.getHitRatio(), hotPhotoCache.getResidentBytes());
+        assertThat(photoController).isPositive();
+    }
+
+    private static double run(HttpClient client, String url, int requestsPerClient) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        assertThat(response.statusCode()).isEqualTo(200);
+                        assertThat(response.headers().firstValueAsLong("Content-Length")).hasValue(PHOTO_SIZE);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return CLIENTS * requestsPerClient / seconds;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.petsafe.qr.benchmark;
+
+import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.entity.User;
+import com.petsafe.qr.repository.PetRepository;
+import com.petsafe.qr.repository.UserRepository;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 5000 leituras simultâneas da página pública (o pico de quando um alerta de pet perdido circula).
+// Um filtro de teste segura cada requisição por 50ms, no lugar da latência de um banco remoto:
+// com threads de plataforma só server.tomcat.threads.max requisições esperam ao mesmo tempo, com
+// threads virtuais todas esperam juntas. Comparar os dois modos (o segundo exige JDK 21):
+//   mvn test -Dtest.excludedGroups= -Dgroups=benchmark -Dtest=ScanConcurrencyBenchmarkTest
+//   mvn test -Pvirtual-threads -Dtest.excludedGroups= -Dgroups=benchmark -Dtest=ScanConcurrencyBenchmarkTest
+@Tag("benchmark")
+// Log em DEBUG de cada requisição viraria o gargalo e esconderia a diferença entre os modos;
+// os bulkheads e o limite adaptativo recusariam a maior parte das 5000 leituras, que aqui precisam chegar ao banco
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.bulkhead.enabled=false",
+        "app.limiter.enabled=false",
+        "logging.level.com.petsafe.qr=INFO",
+        "logging.level.org.springframework.security=INFO"
+})
+@ActiveProfiles("test")
+@DisplayName("Concurrent scan benchmark")
+class ScanConcurrencyBenchmarkTest {
+
+    private static final int CONCURRENT_SCANS = 5000;
+    private static final int PETS = 100;
+    private static final long BLOCKING_MILLIS = 50;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private Environment environment;
+
+    @TestConfiguration
+    static class BlockingLatency {
+        @Bean
+        FilterRegistrationBean<Filter> blockingLatencyFilter() {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                try {
+                    Thread.sleep(BLOCKING_MILLIS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                chain.doFilter(request, response);
+            });
+            registration.addUrlPatterns("/api/public/pet/*");
+            return registration;
+        }
+    }
+
+    @Test
+    @DisplayName("5000 concurrent public pet page reads")
+    void concurrentScans() throws Exception {
+        List<UUID> petIds = createPets();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+
+        // Aquecimento: JIT, pool de conexões do banco e cache de segundo nível
+        scan(client, petIds, 500);
+
+        long start = System.nanoTime();
+        long[] latencies = scan(client, petIds, CONCURRENT_SCANS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("Modo: %s threads, Java %s%n",
+                environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false) ? "virtual" : "platform",
+                System.getProperty("java.version"));
+        System.out.printf("%d leituras em %.2fs: %.0f req/s, p50 %dms, p99 %dms, máx %dms%n",
+                CONCURRENT_SCANS, seconds, CONCURRENT_SCANS / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1]);
+        assertThat(latencies).hasSize(CONCURRENT_SCANS);
+    }
+
+    // Dispara todas de uma vez e devolve a latência de cada uma em ms
+    private long[] scan(HttpClient client, List<UUID> petIds, int count) {
+        String base = "http://localhost:" + port + "/api/public/pet/";
+        List<CompletableFuture<Long>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + petIds.get(i % petIds.size())))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            long sent = System.nanoTime();
+            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> {
+                        assertThat(response.statusCode()).isEqualTo(200);
+                        return (System.nanoTime() - sent) / 1_000_000;
+                    }));
+        }
+        return futures.stream().mapToLong(CompletableFuture::join).toArray();
+    }
+
+    private List<UUID> createPets() {
+        User owner = new User();
+        owner.setName("Tutor");
+        owner.setEmail("benchmark-" + UUID.randomUUID() + "@example.com");
+        owner.setPassword("encodedPassword123");
+        owner.setPhone("11999999999");
+        userRepository.save(owner);
+
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < PETS; i++) {
+            Pet pet = new Pet();
+            pet.setName("Pet " + i);
+            pet.setSpecies("Cachorro");
+            pet.setIsMissing(true);
+            pet.setOwner(owner);
+            ids.add(petRepository.save(pet).getId());
+        }
+        return ids;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+}
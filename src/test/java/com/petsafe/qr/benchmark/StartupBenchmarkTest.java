@@ -0,0 +1,185 @@
+package com.petsafe.qr.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Tempo do "java -jar" até o primeiro 200 em /api/public/pet/{uuid}, que é o que o autoscaling
+// espera antes de mandar tráfego: subida padrão contra o perfil fast-startup (AOT + lazy init), com
+// e sem o arquivo CDS. Usa o jar fino do perfil, então precisa do pacote gerado antes:
+//   mvn -Pfast-startup -DskipTests package
+//   mvn -Pfast-startup test -Dtest.excludedGroups= -Dgroups=benchmark -Dtest=StartupBenchmarkTest
+// O banco é um H2 em arquivo já migrado, com um pet, para que cada subida só valide o schema
+@Tag("benchmark")
+@DisplayName("Startup time benchmark")
+class StartupBenchmarkTest {
+
+    private static final int RUNS = 3;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Path TARGET = Paths.get("target");
+    private static final Path JAR = TARGET.resolve("petsafe-qr-1.0.0.jar");
+    private static final Path CDS_ARCHIVE = TARGET.resolve("petsafe-qr.jsa");
+    private static final Path WORK_DIR = TARGET.resolve("startup-benchmark");
+
+    private record Mode(String name, List<String> jvmArgs, List<String> appArgs) {
+    }
+
+    @Test
+    @DisplayName("Time to first successful public pet response")
+    void timeToFirstScan() throws Exception {
+        assumeTrue(Files.exists(JAR) && Files.exists(CDS_ARCHIVE),
+                "Jar fino e arquivo CDS ausentes; rode antes: mvn -Pfast-startup -DskipTests package");
+        String databaseUrl = "jdbc:h2:file:" + WORK_DIR.toAbsolutePath().resolve("petsafe") + ";FILE_LOCK=NO";
+        UUID petId = prepareDatabase(databaseUrl);
+
+        List<Mode> modes = List.of(
+                new Mode("padrão", List.of(), List.of()),
+                new Mode("fast-startup", List.of("-Dspring.aot.enabled=true"),
+                        List.of("--spring.profiles.active=fast-startup")),
+                new Mode("fast-startup + CDS", List.of("-Dspring.aot.enabled=true",
+                        "-XX:SharedArchiveFile=" + CDS_ARCHIVE.toAbsolutePath()),
+                        List.of("--spring.profiles.active=fast-startup")));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        System.out.printf("%-20s %10s %10s %10s%n", "Modo", "mín ms", "mediana ms", "máx ms");
+        for (Mode mode : modes) {
+            long[] millis = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                millis[run] = timeToFirstScan(client, mode, databaseUrl, petId, run);
+            }
+            Arrays.sort(millis);
+            System.out.printf("%-20s %10d %10d %10d%n", mode.name(), millis[0], millis[RUNS / 2], millis[RUNS - 1]);
+            assertThat(millis[0]).isPositive();
+        }
+    }
+
+    // Do start do processo até o primeiro 200; o log de cada subida fica em target/startup-benchmark
+    private long timeToFirstScan(HttpClient client, Mode mode, String databaseUrl, UUID petId, int run) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(mode.jvmArgs());
+        command.addAll(List.of("-jar", JAR.toAbsolutePath().toString(),
+                "--server.port=" + port,
+                "--management.server.port=0",
+                "--spring.datasource.url=" + databaseUrl,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--app.storage.photo-dir=" + WORK_DIR.resolve("uploads").toAbsolutePath()));
+        command.addAll(mode.appArgs());
+        Path log = WORK_DIR.resolve(mode.name().toLowerCase().replaceAll("[^a-z]+", "-") + "-" + run + ".log");
+
+        HttpRequest scan = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/public/pet/" + petId))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("A aplicação terminou na subida; veja " + log);
+                }
+                try {
+                    if (client.send(scan, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        long millis = (System.nanoTime() - start) / 1_000_000;
+                        warnIfCdsRejected(mode, log);
+                        return millis;
+                    }
+                } catch (IOException ex) {
+                    // Porta ainda fechada: o Tomcat não subiu
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("Sem resposta 200 em " + STARTUP_TIMEOUT + "; veja " + log);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    // Caminho de classes diferente do treino faz a JVM ignorar o arquivo sem falhar a subida
+    private static void warnIfCdsRejected(Mode mode, Path log) throws IOException {
+        if (mode.jvmArgs().stream().anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile"))
+                && Files.readString(log).contains("[cds]")) {
+            System.out.printf("Atenção: a JVM reclamou do arquivo CDS em %s%n", log);
+        }
+    }
+
+    private static UUID prepareDatabase(String databaseUrl) throws Exception {
+        Files.createDirectories(WORK_DIR);
+        try (var files = Files.list(WORK_DIR)) {
+            for (Path file : files.toList()) {
+                if (file.getFileName().toString().startsWith("petsafe.")) {
+                    Files.delete(file);
+                }
+            }
+        }
+        Flyway.configure()
+                .dataSource(databaseUrl, "sa", "")
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+
+        UUID ownerId = UUID.randomUUID();
+        UUID petId = UUID.randomUUID();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (Connection connection = DriverManager.getConnection(databaseUrl, "sa", "")) {
+            try (PreparedStatement owner = connection.prepareStatement(
+                    "INSERT INTO users (id, name, email, password, phone, created_at) VALUES (?, ?, ?, ?, ?, ?)")) {
+                owner.setObject(1, ownerId);
+                owner.setString(2, "Tutor");
+                owner.setString(3, "startup@example.com");
+                owner.setString(4, "encodedPassword123");
+                owner.setString(5, "11999999999");
+                owner.setTimestamp(6, now);
+                owner.executeUpdate();
+            }
+            try (PreparedStatement pet = connection.prepareStatement(
+                    "INSERT INTO pets (id, name, species, is_missing, owner_id, created_at, updated_at, version) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?, 0)")) {
+                pet.setObject(1, petId);
+                pet.setString(2, "Rex");
+                pet.setString(3, "Cachorro");
+                pet.setBoolean(4, false);
+                pet.setObject(5, ownerId);
+                pet.setTimestamp(6, now);
+                pet.setTimestamp(7, now);
+                pet.executeUpdate();
+            }
+        }
+        return petId;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
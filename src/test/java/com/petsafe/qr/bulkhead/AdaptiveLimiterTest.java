@@ -0,0 +1,165 @@
+package com.petsafe.qr.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Simulação em tempo virtual: a cada rodada os clientes tentam entrar, os admitidos consultam um
+// repositório com poucas conexões (quem passa delas espera na fila) e todos terminam com a mesma latência
+@DisplayName("AdaptiveLimiter Tests")
+class AdaptiveLimiterTest {
+    
+    private static final String ROUTE = "GET /api/public/pet/{id}";
+    private static final int CLIENTS = 300;
+    
+    @Test
+    @DisplayName("Should shrink the limit and shed load when the repository slows down, then recover")
+    void testSlowRepositorySimulation() {
+        // Arrange
+        AdaptiveLimiter limiter = new AdaptiveLimiter(50, 8, 400, 1.5, 0.2, 0.8);
+        SlowRepository repository = new SlowRepository(40, 10);
+        
+        // Act & Assert: banco saudável, o limite acompanha a capacidade real
+        runRounds(limiter, repository, 200);
+        int healthyLimit = limiter.getLimit();
+        assertThat(healthyLimit).isBetween(30, 120);
+        
+        // Banco lento: cada consulta 5x mais cara
+        repository.serviceMillis = 50;
+        long rejectedBefore = limiter.getRejectedCalls();
+        int slowest = healthyLimit;
+        for (int i = 0; i < 50; i++) {
+            runRounds(limiter, repository, 1);
+            slowest = Math.min(slowest, limiter.getLimit());
+        }
+        assertThat(slowest).isLessThanOrEqualTo(healthyLimit / 2);
+        assertThat(limiter.getRejectedCalls()).isGreaterThan(rejectedBefore);
+        
+        // Banco volta ao normal
+        repository.serviceMillis = 10;
+        runRounds(limiter, repository, 300);
+        assertThat(limiter.getLimit()).isGreaterThan(slowest);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should shed owner traffic before public scans")
+    void testPublicPriority() {
+        // Arrange
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 10, 1.5, 0.2, 0.8);
+        for (int i = 0; i < 8; i++) {
+            assertThat(limiter.tryAcquire(RouteClass.PUBLIC)).isTrue();
+        }
+        
+        // Act & Assert: 80% do limite ocupado, só a leitura pública ainda entra
+        assertThat(limiter.tryAcquire(RouteClass.OWNER)).isFalse();
+        assertThat(limiter.tryAcquire(RouteClass.AUTH)).isFalse();
+        assertThat(limiter.tryAcquire(RouteClass.PUBLIC)).isTrue();
+        assertThat(limiter.tryAcquire(RouteClass.PUBLIC)).isTrue();
+        assertThat(limiter.tryAcquire(RouteClass.PUBLIC)).isFalse();
+        assertThat(limiter.getRejectedCalls()).isEqualTo(3);
+    }
+    
+    @Test
+    @DisplayName("Should keep counting correctly when many threads sample at once")
+    void testConcurrentSamples() throws Exception {
+        // Arrange
+        AdaptiveLimiter limiter = new AdaptiveLimiter(50, 8, 400, 1.5, 0.2, 0.8);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        
+        // Act
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String route = "GET /rota/" + (t % 3);
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 20_000; i++) {
+                    if (limiter.tryAcquire(RouteClass.PUBLIC)) {
+                        limiter.release(route, TimeUnit.MILLISECONDS.toNanos(10));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // Assert: latência constante nunca encolhe o limite
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getLimit()).isBetween(50, 400);
+    }
+    
+    @Test
+    @DisplayName("Should hold the limiter slot until an async response completes")
+    void testAsyncRequestHoldsSlot() throws Exception {
+        // Arrange
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 1.5, 0.2, 0.8);
+        AdaptiveLimitFilter filter = new AdaptiveLimitFilter(limiter,
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/api/public/pet/abc");
+        export.setAsyncSupported(true);
+        
+        // Act
+        filter.doFilter(export, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/public/pet/def"), rejected, (req, res) -> {
+            throw new AssertionError("Não deveria chegar ao controller");
+        });
+        int inFlightWhileStreaming = limiter.getInFlight();
+        export.getAsyncContext().complete();
+        
+        // Assert
+        assertThat(inFlightWhileStreaming).isEqualTo(1);
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+    
+    private static void runRounds(AdaptiveLimiter limiter, SlowRepository repository, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int admitted = 0;
+            for (int client = 0; client < CLIENTS; client++) {
+                if (limiter.tryAcquire(RouteClass.PUBLIC)) {
+                    admitted++;
+                }
+            }
+            long rtt = repository.latencyNanos(admitted);
+            for (int i = 0; i < admitted; i++) {
+                limiter.release(ROUTE, rtt);
+            }
+        }
+    }
+    
+    // Latência = tempo de uma consulta vezes quantas "ondas" o pool precisa para atender todos
+    private static final class SlowRepository {
+        private final int connections;
+        private long serviceMillis;
+        
+        private SlowRepository(int connections, long serviceMillis) {
+            this.connections = connections;
+            this.serviceMillis = serviceMillis;
+        }
+        
+        private long latencyNanos(int concurrent) {
+            long waves = Math.max(1, (concurrent + connections - 1) / connections);
+            return TimeUnit.MILLISECONDS.toNanos(serviceMillis * waves);
+        }
+    }
+}
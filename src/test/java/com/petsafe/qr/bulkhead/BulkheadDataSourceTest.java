@@ -0,0 +1,67 @@
+package com.petsafe.qr.bulkhead;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("BulkheadDataSource Tests")
+class BulkheadDataSourceTest {
+    
+    private BulkheadDataSource dataSource;
+    private Bulkhead publicBulkhead;
+    
+    @BeforeEach
+    void setUp() {
+        dataSource = new BulkheadDataSource(new DriverManagerDataSource("jdbc:h2:mem:bulkhead;DB_CLOSE_DELAY=-1", "sa", ""));
+        publicBulkhead = new Bulkhead("public", 10, 2, Duration.ofMillis(10));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        Bulkhead.unbind();
+    }
+    
+    @Test
+    @DisplayName("Should refuse connections beyond the class quota and release them on close")
+    void testConnectionQuota() throws Exception {
+        // Arrange
+        Bulkhead.bind(publicBulkhead);
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        
+        // Act & Assert
+        assertThat(publicBulkhead.getActiveConnections()).isEqualTo(2);
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        assertThat(publicBulkhead.getRejectedConnections()).isEqualTo(1);
+        
+        first.close();
+        // Fechar duas vezes não devolve a vaga em dobro
+        first.close();
+        assertThat(publicBulkhead.getActiveConnections()).isEqualTo(1);
+        
+        try (Connection third = dataSource.getConnection()) {
+            assertThat(third.isValid(1)).isTrue();
+        }
+        second.close();
+        assertThat(publicBulkhead.getActiveConnections()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should not limit connections outside a request")
+    void testNoBulkhead() throws Exception {
+        try (Connection a = dataSource.getConnection(); Connection b = dataSource.getConnection();
+             Connection c = dataSource.getConnection()) {
+            assertThat(c.isValid(1)).isTrue();
+        }
+        assertThat(publicBulkhead.getActiveConnections()).isZero();
+    }
+}
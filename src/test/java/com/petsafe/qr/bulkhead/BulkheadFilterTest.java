@@ -0,0 +1,163 @@
+package com.petsafe.qr.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("BulkheadFilter Tests")
+class BulkheadFilterTest {
+    
+    private BulkheadRegistry registry;
+    private BulkheadFilter filter;
+    
+    @BeforeEach
+    void setUp() {
+        Map<RouteClass, Bulkhead> bulkheads = new EnumMap<>(RouteClass.class);
+        bulkheads.put(RouteClass.PUBLIC, new Bulkhead("public", 1, 0, Duration.ofMillis(10)));
+        bulkheads.put(RouteClass.OWNER, new Bulkhead("owner", 1, 0, Duration.ofMillis(10)));
+        bulkheads.put(RouteClass.AUTH, new Bulkhead("auth", 1, 0, Duration.ofMillis(10)));
+        registry = new BulkheadRegistry(bulkheads);
+        filter = new BulkheadFilter(registry, new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+    
+    @Test
+    @DisplayName("Should classify routes with the SecurityConfig lists")
+    void testRouteClass() {
+        assertThat(RouteClass.of("/api/public/pet/abc")).isEqualTo(RouteClass.PUBLIC);
+        assertThat(RouteClass.of("/p/abc")).isEqualTo(RouteClass.PUBLIC);
+        assertThat(RouteClass.of("/uploads/pets/x.jpg")).isEqualTo(RouteClass.PUBLIC);
+        assertThat(RouteClass.of("/api/auth/login")).isEqualTo(RouteClass.AUTH);
+        assertThat(RouteClass.of("/api/pets")).isEqualTo(RouteClass.OWNER);
+    }
+    
+    @Test
+    @DisplayName("Should reject public overflow with 503 while owner requests still pass")
+    void testSaturatedPublicBulkhead() throws Exception {
+        // Arrange: uma leitura pública ocupa a única vaga da classe
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> slowScan = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(request("/api/public/pet/lento"), new MockHttpServletResponse(), (req, res) -> {
+                    entered.countDown();
+                    await(release);
+                });
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        // Act
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        long start = System.nanoTime();
+        filter.doFilter(request("/api/public/pet/outro"), rejected, (req, res) -> {
+            throw new AssertionError("Não deveria chegar ao controller");
+        });
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        MockHttpServletResponse owner = new MockHttpServletResponse();
+        AtomicReference<Bulkhead> seen = new AtomicReference<>();
+        filter.doFilter(request("/api/pets"), owner, (req, res) -> seen.set(Bulkhead.current()));
+        
+        // Assert
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).contains(BulkheadFilter.OVERLOADED_MESSAGE);
+        assertThat(elapsedMillis).isLessThan(1000);
+        assertThat(owner.getStatus()).isEqualTo(200);
+        assertThat(seen.get()).isSameAs(registry.get(RouteClass.OWNER));
+        assertThat(Bulkhead.current()).isNull();
+        
+        Bulkhead publicBulkhead = registry.get(RouteClass.PUBLIC);
+        assertThat(publicBulkhead.getSaturation()).isEqualTo(1.0);
+        assertThat(publicBulkhead.getRejectedCalls()).isEqualTo(1);
+        
+        release.countDown();
+        slowScan.get(5, TimeUnit.SECONDS);
+        assertThat(publicBulkhead.getActiveCalls()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should free the slot when the request fails")
+    void testReleaseOnError() {
+        FilterChain failing = (req, res) -> {
+            throw new IllegalStateException("falha");
+        };
+        
+        try {
+            filter.doFilter(request("/api/pets"), new MockHttpServletResponse(), failing);
+        } catch (Exception ignored) {
+            // esperado
+        }
+        
+        assertThat(registry.get(RouteClass.OWNER).getActiveCalls()).isZero();
+        assertThat(Bulkhead.current()).isNull();
+    }
+    
+    @Test
+    @DisplayName("Should hold the slot until an async response completes")
+    void testAsyncRequestHoldsSlot() throws Exception {
+        // Arrange: o controller devolve um StreamingResponseBody e a requisição fica assíncrona
+        MockHttpServletRequest export = request("/api/pets/export");
+        export.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<Runnable> body = new AtomicReference<>();
+        filter.doFilter(export, response, (req, res) -> {
+            req.startAsync();
+            body.set(Bulkhead.propagate(() -> assertThat(Bulkhead.current()).isSameAs(registry.get(RouteClass.OWNER))));
+        });
+        Bulkhead owner = registry.get(RouteClass.OWNER);
+        
+        // Act & Assert: enquanto o corpo é escrito a vaga continua ocupada e outra requisição é recusada
+        assertThat(Bulkhead.current()).isNull();
+        assertThat(owner.getActiveCalls()).isEqualTo(1);
+        CompletableFuture.runAsync(body.get()).get(5, TimeUnit.SECONDS);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("/api/pets"), rejected, (req, res) -> {
+            throw new AssertionError("Não deveria chegar ao controller");
+        });
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        
+        // O despacho de volta reaproveita a vaga em vez de pedir outra
+        export.setDispatcherType(DispatcherType.ASYNC);
+        AtomicReference<Bulkhead> seen = new AtomicReference<>();
+        filter.doFilter(export, response, (req, res) -> seen.set(Bulkhead.current()));
+        assertThat(seen.get()).isSameAs(owner);
+        assertThat(owner.getActiveCalls()).isEqualTo(1);
+        
+        export.getAsyncContext().complete();
+        assertThat(owner.getActiveCalls()).isZero();
+        assertThat(owner.getRejectedCalls()).isEqualTo(1);
+    }
+    
+    private static MockHttpServletRequest request(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRequestURI(uri);
+        return request;
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
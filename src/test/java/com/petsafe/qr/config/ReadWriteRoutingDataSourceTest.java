@@ -0,0 +1,182 @@
+package com.petsafe.qr.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Dois H2 em memória fazem o papel de primário e réplica; cada um responde com o próprio nome
+@DisplayName("ReadWriteRoutingDataSource Tests")
+class ReadWriteRoutingDataSourceTest {
+    
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+    
+    private final MutableClock clock = new MutableClock();
+    private DataSource primary;
+    private DataSource replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        useRouting(List.of(replica));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    @DisplayName("Should send readOnly transactions to the replica and the rest to the primary")
+    void testRouting() {
+        assertThat(readOnlySource()).isEqualTo("replica");
+        assertThat(readWriteSource()).isEqualTo("primary");
+        // Fora de transação também vai para o primário (migrações, jobs)
+        assertThat(source()).isEqualTo("primary");
+    }
+    
+    @Test
+    @DisplayName("Should keep a user's reads on the primary for max-lag after their own commit")
+    void testReadYourWrites() {
+        // Arrange
+        authenticate("tutor@example.com");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET touched = touched + 1"));
+        
+        // Act & Assert
+        assertThat(readOnlySource()).isEqualTo("primary");
+        
+        authenticate("outro@example.com");
+        assertThat(readOnlySource()).isEqualTo("replica");
+        
+        authenticate("tutor@example.com");
+        clock.advance(MAX_LAG.plusMillis(1));
+        assertThat(readOnlySource()).isEqualTo("replica");
+    }
+    
+    @Test
+    @DisplayName("Should not stick to the primary after a rolled back write")
+    void testRollbackDoesNotStick() {
+        // Arrange
+        authenticate("tutor@example.com");
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE marker SET touched = touched + 1");
+            status.setRollbackOnly();
+        });
+        
+        // Act & Assert
+        assertThat(readOnlySource()).isEqualTo("replica");
+    }
+    
+    @Test
+    @DisplayName("Should skip a replica that is down until retry-after and fall back to the primary")
+    void testReplicaDown() {
+        // Arrange: IFEXISTS faz o H2 recusar a conexão a um banco que não existe
+        AtomicInteger attempts = new AtomicInteger();
+        DataSource down = new DelegatingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";IFEXISTS=TRUE", "sa", "")) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                attempts.incrementAndGet();
+                return super.getConnection();
+            }
+        };
+        useRouting(List.of(down, replica));
+        
+        // Act & Assert: a outra réplica atende e a que caiu só é tentada uma vez
+        assertThat(readOnlySource()).isEqualTo("replica");
+        assertThat(readOnlySource()).isEqualTo("replica");
+        assertThat(readOnlySource()).isEqualTo("replica");
+        assertThat(attempts).hasValue(1);
+        
+        // Sem nenhuma réplica de pé, o primário atende
+        useRouting(List.of(down));
+        assertThat(readOnlySource()).isEqualTo("primary");
+    }
+    
+    private void useRouting(List<DataSource> replicas) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replicas, MAX_LAG,
+                Duration.ofSeconds(30), clock);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+    
+    private String readOnlySource() {
+        return readOnly.execute(status -> source());
+    }
+    
+    private String readWriteSource() {
+        return readWrite.execute(status -> source());
+    }
+    
+    private String source() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+    
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE marker (name VARCHAR(20), touched INT)");
+        jdbc.update("INSERT INTO marker VALUES (?, 0)", name);
+        return dataSource;
+    }
+    
+    private static void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                email, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+    
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+        
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+        
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -4,35 +4,57 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.petsafe.qr.dto.PetCreateRequest;
 import com.petsafe.qr.dto.PetResponse;
 import com.petsafe.qr.dto.PetUpdateRequest;
+import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.entity.User;
 import com.petsafe.qr.exception.GlobalExceptionHandler;
+import com.petsafe.qr.exception.PreconditionFailedException;
 import com.petsafe.qr.exception.ResourceNotFoundException;
 import com.petsafe.qr.exception.UnauthorizedException;
+import com.petsafe.qr.metrics.QueryCount;
+import com.petsafe.qr.repository.PetRepository;
+import com.petsafe.qr.repository.UserRepository;
 import com.petsafe.qr.security.JwtAuthenticationFilter;
 import com.petsafe.qr.security.JwtTokenProvider;
 import com.petsafe.qr.security.UserPrincipal;
+import com.petsafe.qr.service.PetExportFormat;
+import com.petsafe.qr.service.PetExportService;
 import com.petsafe.qr.service.PetService;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.NestedTestConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -52,6 +74,9 @@ class PetControllerTest {
     @MockBean
     private PetService petService;
 
+    @MockBean
+    private PetExportService petExportService;
+
     @MockBean
     private JwtTokenProvider jwtTokenProvider;
 
@@ -207,7 +232,7 @@ class PetControllerTest {
         updatedResponse.setCreatedAt(LocalDateTime.now());
         updatedResponse.setUpdatedAt(LocalDateTime.now());
 
-        when(petService.updatePet(eq(petId), any(PetUpdateRequest.class), any(UUID.class)))
+        when(petService.updatePet(eq(petId), any(PetUpdateRequest.class), any(UUID.class), any()))
                 .thenReturn(updatedResponse);
 
         // Act & Assert
@@ -224,7 +249,7 @@ class PetControllerTest {
     @DisplayName("PUT /api/pets/{id} - Should return 403 when not owner")
     void testUpdatePet_Unauthorized() throws Exception {
         // Arrange
-        when(petService.updatePet(eq(petId), any(PetUpdateRequest.class), any(UUID.class)))
+        when(petService.updatePet(eq(petId), any(PetUpdateRequest.class), any(UUID.class), any()))
                 .thenThrow(new UnauthorizedException("Você não tem permissão para editar este pet"));
 
         // Act & Assert
@@ -236,6 +261,70 @@ class PetControllerTest {
                 .andExpect(jsonPath("$.message").value("Você não tem permissão para editar este pet"));
     }
 
+    @Test
+    @DisplayName("PUT /api/pets/{id} - Should pass If-Match version and return new ETag")
+    void testUpdatePet_IfMatch() throws Exception {
+        // Arrange
+        petResponse.setVersion(4L);
+        when(petService.updatePet(eq(petId), any(PetUpdateRequest.class), any(UUID.class), eq(3L)))
+                .thenReturn(petResponse);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/pets/{id}", petId)
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateRequest))
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    @DisplayName("PUT /api/pets/{id} - Should return 412 when If-Match is stale")
+    void testUpdatePet_PreconditionFailed() throws Exception {
+        // Arrange
+        when(petService.updatePet(eq(petId), any(PetUpdateRequest.class), any(UUID.class), eq(2L)))
+                .thenThrow(new PreconditionFailedException("O pet foi modificado por outra requisição"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/pets/{id}", petId)
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateRequest))
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("O pet foi modificado por outra requisição"));
+    }
+
+    @Test
+    @DisplayName("PUT /api/pets/{id} - Should return 412 for a weak If-Match tag")
+    void testUpdatePet_WeakIfMatch() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/api/pets/{id}", petId)
+                        .header("If-Match", "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateRequest))
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isPreconditionFailed());
+
+        verifyNoInteractions(petService);
+    }
+
+    @Test
+    @DisplayName("GET /api/pets/{id} - Should return 304 when If-None-Match matches ETag")
+    void testGetPetById_NotModified() throws Exception {
+        // Arrange
+        petResponse.setVersion(5L);
+        when(petService.getPetById(eq(petId), any(UUID.class))).thenReturn(petResponse);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/pets/{id}", petId)
+                        .header("If-None-Match", "\"5\"")
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     @DisplayName("DELETE /api/pets/{id} - Should return 204 on success")
     void testDeletePet_Success() throws Exception {
@@ -262,7 +351,7 @@ class PetControllerTest {
         toggledResponse.setCreatedAt(LocalDateTime.now());
         toggledResponse.setUpdatedAt(LocalDateTime.now());
 
-        when(petService.toggleMissing(eq(petId), any(UUID.class))).thenReturn(toggledResponse);
+        when(petService.toggleMissing(eq(petId), any(UUID.class), any())).thenReturn(toggledResponse);
 
         // Act & Assert
         mockMvc.perform(patch("/api/pets/{id}/missing", petId)
@@ -270,4 +359,155 @@ class PetControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.isMissing").value(true));
     }
+
+    @Test
+    @DisplayName("GET /api/pets/export - Should stream NDJSON export")
+    void testExportPets_Ndjson() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(2);
+            out.write("{\"name\":\"Rex\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(petExportService).exportPets(eq(userId), eq(PetExportFormat.NDJSON), any(OutputStream.class));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/pets/export")
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"pets.ndjson\""))
+                .andExpect(content().string("{\"name\":\"Rex\"}\n"));
+    }
+
+    @Test
+    @DisplayName("GET /api/pets/export - Should return 400 for unknown format")
+    void testExportPets_InvalidFormat() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/pets/export")
+                        .param("format", "xml")
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Formato de exportação inválido: xml"));
+    }
+
+    @Test
+    @DisplayName("PUT /api/pets/{id}/photo - Should stream raw image body to service")
+    void testUploadPhotoStream_Success() throws Exception {
+        // Arrange
+        petResponse.setPhotoUrl("/uploads/pets/ab/cd/abcd.jpg");
+        when(petService.uploadPhoto(eq(petId), any(InputStream.class), eq(userId))).thenReturn(petResponse);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/pets/{id}/photo", petId)
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .content(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF})
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.photoUrl").value("/uploads/pets/ab/cd/abcd.jpg"));
+    }
+
+    @Test
+    @DisplayName("PUT /api/pets/{id}/photo - Should return 413 from Content-Length before calling the service")
+    void testUploadPhotoStream_TooLarge() throws Exception {
+        // Arrange: 1 byte acima do limite padrão de 10MB
+        byte[] body = new byte[10 * 1024 * 1024 + 1];
+
+        // Act & Assert
+        mockMvc.perform(put("/api/pets/{id}/photo", petId)
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .content(body)
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isPayloadTooLarge());
+        verifyNoInteractions(petService);
+    }
+
+    // Contexto completo (H2, Hibernate, filtros) em vez dos mocks: conta o SQL real de cada endpoint.
+    // O cache de segundo nível é esvaziado antes de cada medição para valer o pior caso
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest
+    @AutoConfigureMockMvc
+    @ActiveProfiles("test")
+    @DisplayName("Query budget")
+    class QueryBudget {
+
+        @Autowired
+        private MockMvc fullStack;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private PetRepository petRepository;
+
+        @Autowired
+        private JwtTokenProvider tokens;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @Test
+        @DisplayName("GET /api/pets - Should not issue more statements as the owner's pet count grows")
+        void testGetUserPets_NoNPlusOne() throws Exception {
+            // Arrange
+            User owner = owner();
+            addPets(owner, 2);
+            String token = "Bearer " + tokens.generateTokenFromUserId(owner.getId());
+
+            // Act
+            int withTwoPets = statements(get("/api/pets").header("Authorization", token));
+            addPets(owner, 8);
+            int withTenPets = statements(get("/api/pets").header("Authorization", token));
+
+            // Assert
+            assertThat(withTenPets).isEqualTo(withTwoPets);
+            assertThat(withTenPets).isLessThanOrEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("GET /api/pets/{id} - Should stay within the statement budget")
+        void testGetPetById_Budget() throws Exception {
+            // Arrange
+            User owner = owner();
+            UUID id = addPets(owner, 1).get(0).getId();
+            entityManagerFactory.getCache().evictAll();
+
+            // Act & Assert: usuário do token, pet e dono (já carregado)
+            fullStack.perform(get("/api/pets/{id}", id)
+                            .header("Authorization", "Bearer " + tokens.generateTokenFromUserId(owner.getId())))
+                    .andExpect(status().isOk())
+                    .andExpect(QueryCount.atMost(2));
+        }
+
+        private int statements(RequestBuilder request) throws Exception {
+            entityManagerFactory.getCache().evictAll();
+            return QueryCount.statements(fullStack.perform(request).andExpect(status().isOk()).andReturn());
+        }
+
+        private User owner() {
+            User owner = new User();
+            owner.setName("Tutor");
+            owner.setEmail("budget-" + UUID.randomUUID() + "@example.com");
+            owner.setPassword("encodedPassword123");
+            owner.setPhone("11999999999");
+            return userRepository.save(owner);
+        }
+
+        private List<Pet> addPets(User owner, int count) {
+            List<Pet> pets = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Pet pet = new Pet();
+                pet.setName("Pet " + i);
+                pet.setSpecies("Cachorro");
+                pet.setOwner(owner);
+                pets.add(petRepository.save(pet));
+            }
+            return pets;
+        }
+    }
 }
@@ -0,0 +1,190 @@
+package com.petsafe.qr.controller;
+
+import com.petsafe.qr.exception.GlobalExceptionHandler;
+import com.petsafe.qr.security.JwtAuthenticationFilter;
+import com.petsafe.qr.security.JwtTokenProvider;
+import com.petsafe.qr.service.HotPhotoCache;
+import com.petsafe.qr.service.PhotoStorageService;
+import com.petsafe.qr.service.PhotoVariantService;
+import com.petsafe.qr.storage.LocalPhotoStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PhotoController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@Import(GlobalExceptionHandler.class)
+@DisplayName("PhotoController Tests")
+class PhotoControllerTest {
+
+    private static final String HASH = "abcd" + "0".repeat(60);
+    private static final String PHOTO_URL = "/uploads/pets/ab/cd/" + HASH + ".jpg";
+    private static final String THUMB_URL = "/uploads/pets/ab/cd/" + HASH + "_thumb.jpg";
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path root;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PhotoStorageService photoStorageService;
+
+    @MockBean
+    private HotPhotoCache hotPhotoCache;
+
+    @MockBean
+    private PhotoVariantService photoVariantService;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path original = root.resolve("ab/cd/" + HASH + ".jpg");
+        Files.createDirectories(original.getParent());
+        Files.write(original, CONTENT);
+        LocalPhotoStorage storage = new LocalPhotoStorage(root);
+        when(photoStorageService.head(anyString())).thenAnswer(invocation -> storage.head(invocation.getArgument(0)));
+        when(photoStorageService.localPath(anyString())).thenAnswer(invocation -> storage.localPath(invocation.getArgument(0)));
+        when(photoStorageService.findOriginal(HASH)).thenReturn(Optional.of("ab/cd/" + HASH + ".jpg"));
+    }
+
+    @Test
+    @DisplayName("GET photo - Should return full content with immutable cache headers")
+    void testServePhoto_Full() throws Exception {
+        mockMvc.perform(get(PHOTO_URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"))
+                .andExpect(header().string("ETag", "\"" + HASH + "\""))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().longValue("Content-Length", CONTENT.length))
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    @DisplayName("GET photo - Should return 304 when ETag matches")
+    void testServePhoto_NotModified() throws Exception {
+        mockMvc.perform(get(PHOTO_URL).header("If-None-Match", "W/\"other\", \"" + HASH + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @DisplayName("GET photo - Should return 206 with requested byte range")
+    void testServePhoto_Range() throws Exception {
+        mockMvc.perform(get(PHOTO_URL).header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+
+        mockMvc.perform(get(PHOTO_URL).header("Range", "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("789"));
+    }
+
+    @Test
+    @DisplayName("GET photo - Should return 416 for range past end of file")
+    void testServePhoto_RangeNotSatisfiable() throws Exception {
+        mockMvc.perform(get(PHOTO_URL).header("Range", "bytes=50-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */10"));
+    }
+
+    @Test
+    @DisplayName("GET variant - Should fall back to uncached original while variant is pending")
+    void testServePhoto_PendingVariant() throws Exception {
+        mockMvc.perform(get(THUMB_URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(content().bytes(CONTENT));
+
+        // Um pedido descartado com a fila cheia volta para a fila
+        verify(photoVariantService).scheduleVariants(PHOTO_URL);
+    }
+
+    @Test
+    @DisplayName("GET photo - Should return 404 when hash does not match shard directories")
+    void testServePhoto_WrongShard() throws Exception {
+        mockMvc.perform(get("/uploads/pets/ff/ff/" + HASH + ".jpg"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET photo - Should serve hot photo from off-heap cache without touching disk")
+    void testServePhoto_CacheHit() throws Exception {
+        // Arrange
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CONTENT.length).put(CONTENT).flip();
+        when(hotPhotoCache.get("ab/cd/" + HASH + ".jpg")).thenReturn(buffer.duplicate(), buffer.duplicate());
+
+        // Act & Assert
+        mockMvc.perform(get(PHOTO_URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + HASH + "\""))
+                .andExpect(content().bytes(CONTENT));
+        mockMvc.perform(get(PHOTO_URL).header("Range", "bytes=7-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("789"));
+
+        verify(photoStorageService, never()).head(anyString());
+    }
+
+    @Test
+    @DisplayName("GET photo - Should redirect to signed URL when backend supports direct download")
+    void testServePhoto_SignedUrlRedirect() throws Exception {
+        // Arrange
+        when(photoStorageService.signedUrl("ab/cd/" + HASH + ".jpg"))
+                .thenReturn(Optional.of(URI.create("https://bucket.example.com/ab/cd/" + HASH + ".jpg?X-Amz-Signature=abc")));
+        when(photoStorageService.getSignedUrlTtl()).thenReturn(Duration.ofMinutes(10));
+
+        // Act & Assert
+        mockMvc.perform(get(PHOTO_URL))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://bucket.example.com/ab/cd/" + HASH + ".jpg?X-Amz-Signature=abc"))
+                .andExpect(header().string("Cache-Control", "private, max-age=300"));
+        verify(photoStorageService, never()).localPath(anyString());
+    }
+
+    @Test
+    @DisplayName("GET photo - Should stream only requested range from remote backend without signed URLs")
+    void testServePhoto_RemoteRange() throws Exception {
+        // Arrange
+        when(photoStorageService.localPath(anyString())).thenReturn(Optional.empty());
+        when(photoStorageService.open("ab/cd/" + HASH + ".jpg", 2, 4))
+                .thenReturn(new ByteArrayInputStream(CONTENT, 2, 4));
+
+        // Act & Assert
+        mockMvc.perform(get(PHOTO_URL).header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("2345"));
+    }
+}
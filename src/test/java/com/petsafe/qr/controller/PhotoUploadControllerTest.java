@@ -0,0 +1,166 @@
+package com.petsafe.qr.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petsafe.qr.dto.PetResponse;
+import com.petsafe.qr.dto.UploadSessionRequest;
+import com.petsafe.qr.dto.UploadSessionResponse;
+import com.petsafe.qr.exception.ConflictException;
+import com.petsafe.qr.exception.GlobalExceptionHandler;
+import com.petsafe.qr.security.JwtAuthenticationFilter;
+import com.petsafe.qr.security.JwtTokenProvider;
+import com.petsafe.qr.security.UserPrincipal;
+import com.petsafe.qr.service.PhotoUploadSessionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PhotoUploadController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@Import(GlobalExceptionHandler.class)
+@DisplayName("PhotoUploadController Tests")
+class PhotoUploadControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private PhotoUploadSessionService photoUploadSessionService;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    private UUID userId;
+    private UUID petId;
+    private UUID uploadId;
+    private UserPrincipal userPrincipal;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        petId = UUID.randomUUID();
+        uploadId = UUID.randomUUID();
+        userPrincipal = new UserPrincipal(
+                userId, "Test User", "test@example.com", "password",
+                Collections.emptyList()
+        );
+
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(userPrincipal, null, Collections.emptyList());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @Test
+    @DisplayName("POST /api/pets/{id}/photo/uploads - Should create session with Location")
+    void testCreateSession() throws Exception {
+        // Arrange
+        UploadSessionRequest request = new UploadSessionRequest(1024L, "image/jpeg", "a".repeat(64));
+        when(photoUploadSessionService.createSession(eq(petId), any(UploadSessionRequest.class), eq(userId)))
+                .thenReturn(new UploadSessionResponse(uploadId, 0L, 1024L, LocalDateTime.now()));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/pets/{id}/photo/uploads", petId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/api/pets/" + petId + "/photo/uploads/" + uploadId))
+                .andExpect(jsonPath("$.offset").value(0));
+    }
+
+    @Test
+    @DisplayName("POST /api/pets/{id}/photo/uploads - Should return 400 for malformed checksum")
+    void testCreateSession_InvalidChecksum() throws Exception {
+        // Arrange
+        UploadSessionRequest request = new UploadSessionRequest(1024L, "image/jpeg", "xyz");
+
+        // Act & Assert
+        mockMvc.perform(post("/api/pets/{id}/photo/uploads", petId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors.sha256").exists());
+        verifyNoInteractions(photoUploadSessionService);
+    }
+
+    @Test
+    @DisplayName("PUT /api/pets/{id}/photo/uploads/{uploadId} - Should append chunk at Content-Range start")
+    void testUploadChunk() throws Exception {
+        // Arrange
+        when(photoUploadSessionService.appendChunk(eq(petId), eq(uploadId), eq(512L), any(InputStream.class), eq(userId)))
+                .thenReturn(new UploadSessionResponse(uploadId, 1024L, 1024L, LocalDateTime.now()));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/pets/{id}/photo/uploads/{uploadId}", petId, uploadId)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header("Content-Range", "bytes 512-1023/1024")
+                        .content(new byte[512])
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(1024));
+    }
+
+    @Test
+    @DisplayName("PUT /api/pets/{id}/photo/uploads/{uploadId} - Should return 409 with expected offset")
+    void testUploadChunk_OffsetConflict() throws Exception {
+        // Arrange
+        when(photoUploadSessionService.appendChunk(eq(petId), eq(uploadId), anyLong(), any(InputStream.class), eq(userId)))
+                .thenThrow(new ConflictException("Offset esperado: 512"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/pets/{id}/photo/uploads/{uploadId}", petId, uploadId)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header("Content-Range", "bytes 0-511/1024")
+                        .content(new byte[512])
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Offset esperado: 512"));
+    }
+
+    @Test
+    @DisplayName("POST /api/pets/{id}/photo/uploads/{uploadId}/complete - Should return updated pet")
+    void testComplete() throws Exception {
+        // Arrange
+        PetResponse pet = new PetResponse();
+        pet.setId(petId);
+        pet.setPhotoUrl("/uploads/pets/ab/cd/abcd.jpg");
+        pet.setVersion(4L);
+        when(photoUploadSessionService.complete(petId, uploadId, userId)).thenReturn(pet);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/pets/{id}/photo/uploads/{uploadId}/complete", petId, uploadId)
+                        .principal(new UsernamePasswordAuthenticationToken(userPrincipal, null)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.photoUrl").value("/uploads/pets/ab/cd/abcd.jpg"));
+    }
+}
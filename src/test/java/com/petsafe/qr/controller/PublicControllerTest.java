@@ -1,26 +1,51 @@
 package com.petsafe.qr.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petsafe.qr.dto.FoundPetMatchResponse;
+import com.petsafe.qr.dto.FoundReportRequest;
+import com.petsafe.qr.dto.MissingPetSearchResponse;
+import com.petsafe.qr.dto.MissingPetSummary;
+import com.petsafe.qr.dto.PetCreateRequest;
 import com.petsafe.qr.dto.PublicPetResponse;
+import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.entity.User;
 import com.petsafe.qr.exception.GlobalExceptionHandler;
 import com.petsafe.qr.exception.ResourceNotFoundException;
+import com.petsafe.qr.metrics.QueryCount;
+import com.petsafe.qr.repository.PetRepository;
+import com.petsafe.qr.repository.UserRepository;
 import com.petsafe.qr.security.JwtAuthenticationFilter;
 import com.petsafe.qr.security.JwtTokenProvider;
+import com.petsafe.qr.service.PetSearchService;
 import com.petsafe.qr.service.PetService;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.NestedTestConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(PublicController.class)
@@ -38,12 +63,19 @@ class PublicControllerTest {
     @MockBean
     private PetService petService;
 
+    @MockBean
+    private PetSearchService petSearchService;
+
     @MockBean
     private JwtTokenProvider jwtTokenProvider;
 
     @MockBean
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    // Com o cache frio: um SELECT do pet e um do dono. O findById continua passando pelo cache de
+    // segundo nível, que zera as duas no scan repetido; um JOIN FETCH aqui pularia esse cache
+    private static final int PUBLIC_PET_BUDGET = 2;
+
     private PublicPetResponse publicPetResponse;
     private UUID petId;
 
@@ -121,4 +153,167 @@ class PublicControllerTest {
                 .andExpect(jsonPath("$.allergies").value("Nenhuma"))
                 .andExpect(jsonPath("$.medications").value("Vermifugo mensal"));
     }
+
+    @Test
+    @DisplayName("GET /api/public/missing-pets - Should return matches and facet counts")
+    void testSearchMissingPets_Success() throws Exception {
+        // Arrange
+        MissingPetSearchResponse response = new MissingPetSearchResponse(
+                1,
+                List.of(new MissingPetSummary(petId, "Rex", "Cachorro", "Labrador", "Preto", null)),
+                Map.of("species", Map.of("cachorro", 1))
+        );
+        when(petSearchService.searchMissing(eq(List.of("cachorro")), eq(List.of("preto")), eq(null), eq("all"), eq(20)))
+                .thenReturn(response);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/public/missing-pets")
+                        .param("species", "cachorro")
+                        .param("color", "preto"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.pets[0].name").value("Rex"))
+                .andExpect(jsonPath("$.facets.species.cachorro").value(1));
+    }
+
+    @Test
+    @DisplayName("POST /api/public/found-reports - Should return ranked matches")
+    void testReportFoundPet_Success() throws Exception {
+        // Arrange
+        FoundReportRequest request = new FoundReportRequest("Cachorro", "Labrador", "Preto", "large", -23.55, -46.63);
+        FoundPetMatchResponse match = new FoundPetMatchResponse(
+                petId, "Rex", "Cachorro", "Labrador", "Preto", null, 0.97, 0.4);
+        when(petSearchService.matchFoundReport(any(FoundReportRequest.class), eq(10))).thenReturn(List.of(match));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/public/found-reports")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(petId.toString()))
+                .andExpect(jsonPath("$[0].score").value(0.97));
+    }
+
+    @Test
+    @DisplayName("POST /api/public/found-reports - Should return 400 for invalid report")
+    void testReportFoundPet_InvalidData() throws Exception {
+        // Arrange
+        FoundReportRequest request = new FoundReportRequest("", null, null, "huge", 95.0, null);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/public/found-reports")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors.species").exists())
+                .andExpect(jsonPath("$.validationErrors.size").exists())
+                .andExpect(jsonPath("$.validationErrors.latitude").exists());
+    }
+
+    // Contexto completo com H2: conta o SQL real das rotas do scan do QR, as mais acessadas.
+    // O cache de segundo nível é esvaziado antes de cada medição para valer o pior caso
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest
+    @AutoConfigureMockMvc
+    @ActiveProfiles("test")
+    @DisplayName("Query budget")
+    class QueryBudget {
+
+        @Autowired
+        private MockMvc fullStack;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private PetRepository petRepository;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @Autowired
+        private PetService petService;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Test
+        @DisplayName("GET /api/public/pet/{uuid} - Should load pet and owner within the statement budget")
+        void testGetPublicPet_Budget() throws Exception {
+            // Arrange
+            Pet pet = addPet(owner(), false);
+            entityManagerFactory.getCache().evictAll();
+
+            // Act & Assert
+            fullStack.perform(get("/api/public/pet/{uuid}", pet.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(QueryCount.atMost(PUBLIC_PET_BUDGET));
+        }
+
+        @Test
+        @DisplayName("GET /api/public/missing-pets - Should not issue more statements as missing pets grow")
+        void testSearchMissingPets_NoNPlusOne() throws Exception {
+            // Arrange: raça exclusiva do teste, para a busca só ver estes pets. Eles passam pelo
+            // PetService, que mantém o índice em memória como na aplicação
+            String breed = "Vira-lata " + UUID.randomUUID();
+            List<UUID> petIds = new ArrayList<>();
+            petIds.add(addMissingPet(owner(), breed));
+
+            // Act: a busca lê o índice em memória, então nenhum pet novo pode virar um SELECT a mais
+            MvcResult withOnePet = searchMissing(breed);
+            for (int i = 0; i < 5; i++) {
+                petIds.add(addMissingPet(owner(), breed));
+            }
+            MvcResult withSixPets = searchMissing(breed);
+
+            // Assert
+            assertThat(foundIds(withOnePet)).containsExactly(petIds.get(0));
+            assertThat(foundIds(withSixPets)).containsExactlyInAnyOrderElementsOf(petIds);
+            assertThat(QueryCount.statements(withSixPets)).isLessThanOrEqualTo(QueryCount.statements(withOnePet));
+        }
+
+        private MvcResult searchMissing(String breed) throws Exception {
+            entityManagerFactory.getCache().evictAll();
+            return fullStack.perform(get("/api/public/missing-pets").param("species", "Cachorro").param("breed", breed))
+                    .andExpect(status().isOk())
+                    .andReturn();
+        }
+
+        private List<UUID> foundIds(MvcResult result) throws Exception {
+            MissingPetSearchResponse response = objectMapper.readValue(result.getResponse().getContentAsString(),
+                    MissingPetSearchResponse.class);
+            return response.getPets().stream().map(MissingPetSummary::getId).toList();
+        }
+
+        private UUID addMissingPet(User owner, String breed) {
+            PetCreateRequest request = new PetCreateRequest();
+            request.setName("Rex");
+            request.setSpecies("Cachorro");
+            request.setBreed(breed);
+            request.setColor("Dourado");
+            UUID petId = petService.createPet(request, owner.getId()).getId();
+            petService.toggleMissing(petId, owner.getId(), null);
+            return petId;
+        }
+
+        private User owner() {
+            User owner = new User();
+            owner.setName("Tutor");
+            owner.setEmail("budget-" + UUID.randomUUID() + "@example.com");
+            owner.setPassword("encodedPassword123");
+            owner.setPhone("11999999999");
+            return userRepository.save(owner);
+        }
+
+        private Pet addPet(User owner, boolean missing) {
+            Pet pet = new Pet();
+            pet.setName("Rex");
+            pet.setSpecies("Cachorro");
+            pet.setColor("Dourado");
+            pet.setIsMissing(missing);
+            pet.setOwner(owner);
+            return petRepository.save(pet);
+        }
+    }
 }
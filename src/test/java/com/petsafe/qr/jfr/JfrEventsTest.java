@@ -0,0 +1,177 @@
+package com.petsafe.qr.jfr;
+
+import com.petsafe.qr.config.JfrConfig;
+import com.petsafe.qr.dto.PetResponse;
+import com.petsafe.qr.dto.PublicPetResponse;
+import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.entity.User;
+import com.petsafe.qr.exception.ResourceNotFoundException;
+import com.petsafe.qr.security.CustomUserDetailsService;
+import com.petsafe.qr.security.JwtAuthenticationFilter;
+import com.petsafe.qr.security.JwtTokenProvider;
+import com.petsafe.qr.security.UserPrincipal;
+import com.petsafe.qr.service.PetService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("JFR events Tests")
+class JfrEventsTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    @DisplayName("Should keep events disabled without a recording")
+    void testDisabledByDefault() {
+        assertThat(new PetServiceEvent().isEnabled()).isFalse();
+        assertThat(new DtoMappingEvent().isEnabled()).isFalse();
+        assertThat(new ExceptionHandledEvent().isEnabled()).isFalse();
+    }
+    
+    @Test
+    @DisplayName("Should enable every application event in the settings profile")
+    void testSettingsProfile() throws Exception {
+        Configuration configuration;
+        try (Reader reader = new InputStreamReader(new ClassPathResource(JfrConfig.SETTINGS).getInputStream(),
+                StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        }
+        
+        assertThat(configuration.getSettings())
+                .containsEntry("com.petsafe.qr.JwtValidation#enabled", "true")
+                .containsEntry("com.petsafe.qr.UserPrincipalLoad#enabled", "true")
+                .containsEntry("com.petsafe.qr.PetServiceOperation#enabled", "true")
+                .containsEntry("com.petsafe.qr.DtoMapping#enabled", "true")
+                .containsEntry("com.petsafe.qr.PhotoWrite#enabled", "true")
+                .containsEntry("com.petsafe.qr.ExceptionHandled#enabled", "true");
+    }
+    
+    @Test
+    @DisplayName("Should record PetService operations and DTO mapping with pet and user ids")
+    void testRecordedEvents() throws Exception {
+        // Arrange
+        UUID petId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        Pet pet = pet(petId);
+        PetService target = mock(PetService.class);
+        when(target.getPetById(petId, userId)).thenAnswer(invocation -> PetResponse.fromEntity(pet));
+        when(target.getPublicPet(petId)).thenThrow(new ResourceNotFoundException("Pet não encontrado"));
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new PetServiceEventInterceptor());
+        PetService petService = (PetService) proxyFactory.getProxy();
+        Path file = tempDir.resolve("events.jfr");
+        
+        // Act
+        try (Recording recording = new Recording()) {
+            recording.enable(PetServiceEvent.class).withoutThreshold();
+            recording.enable(DtoMappingEvent.class).withoutThreshold();
+            recording.start();
+            petService.getPetById(petId, userId);
+            assertThatThrownBy(() -> petService.getPublicPet(petId)).isInstanceOf(ResourceNotFoundException.class);
+            PublicPetResponse.fromEntity(pet);
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> operations = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.petsafe.qr.PetServiceOperation"))
+                .toList();
+        
+        // Assert
+        assertThat(operations).anySatisfy(event -> {
+            assertThat(event.getString("operation")).isEqualTo("getPetById");
+            assertThat(event.getString("petId")).isEqualTo(petId.toString());
+            assertThat(event.getString("userId")).isEqualTo(userId.toString());
+            assertThat(event.getString("exception")).isNull();
+        });
+        assertThat(operations).anySatisfy(event -> {
+            assertThat(event.getString("operation")).isEqualTo("getPublicPet");
+            assertThat(event.getString("exception")).isEqualTo("ResourceNotFoundException");
+        });
+        assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("com.petsafe.qr.DtoMapping"))
+                .extracting(event -> event.getString("dto"))
+                .containsExactlyInAnyOrder("PetResponse", "PublicPetResponse");
+    }
+    
+    @Test
+    @DisplayName("Should record the token's user id on a valid JWT and none on an invalid one")
+    void testJwtValidationEvents() throws Exception {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        JwtTokenProvider tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "ThisIsAVeryLongSecretKeyForTestingPurposesItMustBeAtLeast256Bits");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpiration", 86400000L);
+        CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+        when(userDetailsService.loadUserById(userId)).thenReturn(
+                new UserPrincipal(userId, "Tutor", "tutor@example.com", "password", Collections.emptyList()));
+        JwtAuthenticationFilter filter =
+                new JwtAuthenticationFilter(tokenProvider, userDetailsService, new SimpleMeterRegistry());
+        Path file = tempDir.resolve("jwt.jfr");
+        
+        // Act
+        try (Recording recording = new Recording()) {
+            recording.enable(JwtValidationEvent.class).withoutThreshold();
+            recording.start();
+            filter.doFilter(bearer(tokenProvider.generateTokenFromUserId(userId)), new MockHttpServletResponse(),
+                    new MockFilterChain());
+            filter.doFilter(bearer("nao.e.um.token"), new MockHttpServletResponse(), new MockFilterChain());
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        
+        // Assert
+        assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("com.petsafe.qr.JwtValidation"))
+                .extracting(event -> event.getBoolean("valid"), event -> event.getString("userId"))
+                .containsExactlyInAnyOrder(tuple(true, userId.toString()), tuple(false, null));
+    }
+    
+    private static MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pets");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+    
+    private static Pet pet(UUID id) {
+        User owner = new User();
+        owner.setId(UUID.randomUUID());
+        owner.setName("Tutor");
+        Pet pet = new Pet();
+        pet.setId(id);
+        pet.setName("Rex");
+        pet.setOwner(owner);
+        return pet;
+    }
+}
@@ -0,0 +1,102 @@
+package com.petsafe.qr.metrics;
+
+import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.entity.User;
+import com.petsafe.qr.repository.PetRepository;
+import com.petsafe.qr.repository.UserRepository;
+import com.petsafe.qr.security.JwtTokenProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Contexto completo com o registro do Prometheus ligado (nos testes o Spring Boot o desliga por padrão)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@DisplayName("Prometheus endpoint Tests")
+class PrometheusEndpointTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PetRepository petRepository;
+    
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    
+    @Test
+    @DisplayName("Should expose per-handler latency, JWT, query, Hikari and Hibernate metrics")
+    void testScrape() throws Exception {
+        // Arrange
+        User owner = new User();
+        owner.setName("Tutor");
+        owner.setEmail("metrics-" + UUID.randomUUID() + "@example.com");
+        owner.setPassword("encodedPassword123");
+        owner.setPhone("11999999999");
+        userRepository.save(owner);
+        Pet pet = new Pet();
+        pet.setName("Rex");
+        pet.setSpecies("Cachorro");
+        pet.setOwner(owner);
+        UUID petId = petRepository.save(pet).getId();
+        String token = jwtTokenProvider.generateTokenFromUserId(owner.getId());
+        
+        // Act
+        mockMvc.perform(get("/api/public/pet/" + petId)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/pets").header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        
+        // Assert
+        assertThat(scrape).containsPattern("http_server_requests_seconds_bucket\\{.*handler=\"PublicController.getPublicPet\"");
+        assertThat(scrape).containsPattern("http_server_requests_seconds_bucket\\{.*handler=\"PetController.getUserPets\"");
+        assertThat(scrape).containsPattern("petsafe_jwt_verification_seconds_bucket\\{.*outcome=\"valid\"");
+        assertThat(scrape).containsPattern("petsafe_db_queries_count\\{.*handler=\"PublicController.getPublicPet\"");
+        assertThat(scrape).containsPattern("petsafe_db_queries_sum\\{[^}]*handler=\"PetController.getUserPets\"[^}]*} [1-9]");
+        assertThat(scrape).contains("petsafe_db_entity_loads_count");
+        assertThat(scrape).contains("hikaricp_connections_active");
+        assertThat(scrape).contains("hibernate_query_executions_total");
+        assertThat(scrape).contains("hibernate_entities_loads_total");
+    }
+    
+    @Test
+    @DisplayName("Should refuse the scrape from outside the allowed addresses, even with a valid token")
+    void testScrapeFromPublicAddress() throws Exception {
+        // Arrange
+        String token = jwtTokenProvider.generateTokenFromUserId(UUID.randomUUID());
+        
+        // Act & Assert
+        mockMvc.perform(get("/actuator/prometheus").with(fromAddress("203.0.113.10")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/prometheus").with(fromAddress("203.0.113.10"))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/health").with(fromAddress("203.0.113.10")))
+                .andExpect(status().isOk());
+    }
+    
+    private static RequestPostProcessor fromAddress(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.petsafe.qr.metrics;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Orçamento de SQL por endpoint nos testes com MockMvc e contexto completo: lê a contagem que o
+// RequestMetricsFilter deixa na requisição. Para pegar um N+1, compare a contagem com poucos e com
+// muitos registros; ela não pode crescer junto
+public final class QueryCount {
+    
+    private QueryCount() {
+    }
+    
+    public static int statements(MvcResult result) {
+        Object statements = result.getRequest().getAttribute(RequestMetricsFilter.STATEMENTS_ATTRIBUTE);
+        assertThat(statements)
+                .as("Contagem de SQL ausente; o teste precisa do contexto completo com os filtros")
+                .isNotNull();
+        return (Integer) statements;
+    }
+    
+    public static ResultMatcher atMost(int budget) {
+        return result -> assertThat(statements(result))
+                .as("Comandos SQL em %s %s", result.getRequest().getMethod(), result.getRequest().getRequestURI())
+                .isLessThanOrEqualTo(budget);
+    }
+}
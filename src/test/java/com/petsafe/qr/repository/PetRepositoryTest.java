@@ -1,6 +1,7 @@
 package com.petsafe.qr.repository;
 
 import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.repository.PetRepositoryCustom.DeletedPet;
 import com.petsafe.qr.entity.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,6 +14,7 @@ import org.springframework.test.context.ActiveProfiles;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -193,4 +195,121 @@ class PetRepositoryTest {
         assertThat(updated.get().getAge()).isEqualTo(4);
         assertThat(updated.get().getIsMissing()).isTrue();
     }
+
+    @Test
+    @DisplayName("Should stream pets by owner with owner fetched")
+    void testStreamByOwnerId() {
+        // Arrange
+        entityManager.persist(pet1);
+        entityManager.persist(pet2);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        List<Pet> pets;
+        try (Stream<Pet> stream = petRepository.streamByOwnerId(owner.getId())) {
+            pets = stream.toList();
+        }
+
+        // Assert
+        assertThat(pets).extracting(Pet::getName).containsExactlyInAnyOrder("Rex", "Mia");
+        assertThat(pets).allSatisfy(pet -> assertThat(pet.getOwner().getName()).isEqualTo("Owner"));
+    }
+
+    @Test
+    @DisplayName("Should increment version on every update")
+    void testVersionIncrementsOnUpdate() {
+        // Arrange
+        entityManager.persist(pet1);
+        entityManager.flush();
+        Long initialVersion = pet1.getVersion();
+
+        // Act
+        pet1.setOwnerNotes("Atualizado");
+        petRepository.saveAndFlush(pet1);
+
+        // Assert
+        assertThat(initialVersion).isEqualTo(0L);
+        assertThat(pet1.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should delete only when the owner matches")
+    void testDeleteByIdAndOwnerId() {
+        // Arrange
+        pet1.setPhotoUrl("/uploads/pets/aa/bb/rex.jpg");
+        entityManager.persist(pet1);
+        entityManager.flush();
+
+        // Act
+        Optional<DeletedPet> deletedByOther = petRepository.deleteByIdAndOwnerId(pet1.getId(), otherOwner.getId());
+        Optional<DeletedPet> deletedByOwner = petRepository.deleteByIdAndOwnerId(pet1.getId(), owner.getId());
+        entityManager.clear();
+
+        // Assert
+        assertThat(deletedByOther).isEmpty();
+        assertThat(deletedByOwner).hasValueSatisfying(deleted -> {
+            assertThat(deleted.photoUrl()).isEqualTo("/uploads/pets/aa/bb/rex.jpg");
+            assertThat(deleted.version()).isZero();
+        });
+        assertThat(petRepository.findById(pet1.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should toggle missing atomically and return the updated row")
+    void testToggleMissing() {
+        // Arrange
+        entityManager.persist(pet1);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        Optional<Pet> toggled = petRepository.toggleMissing(pet1.getId(), owner.getId(), 0L);
+
+        // Assert
+        assertThat(toggled).isPresent();
+        assertThat(toggled.get().getIsMissing()).isTrue();
+        assertThat(toggled.get().getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should not toggle when owner or version do not match")
+    void testToggleMissing_Rejected() {
+        // Arrange
+        entityManager.persist(pet1);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        Optional<Pet> byOther = petRepository.toggleMissing(pet1.getId(), otherOwner.getId(), null);
+        Optional<Pet> staleVersion = petRepository.toggleMissing(pet1.getId(), owner.getId(), 5L);
+
+        // Assert
+        assertThat(byOther).isEmpty();
+        assertThat(staleVersion).isEmpty();
+        assertThat(petRepository.findById(pet1.getId()).get().getIsMissing()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should stream photo references of one storage shard")
+    void testPhotoReferenceQueries() {
+        // Arrange
+        pet1.setPhotoUrl("/uploads/pets/ab/cd/" + "a".repeat(64) + ".jpg");
+        pet2.setPhotoUrl("/uploads/pets/legacy_1700000000000.jpg");
+        entityManager.persist(pet1);
+        entityManager.persist(pet2);
+        entityManager.flush();
+
+        // Act
+        List<String> shard;
+        try (Stream<String> urls = petRepository.streamPhotoUrlsLike("/uploads/pets/ab/%")) {
+            shard = urls.toList();
+        }
+
+        // Assert
+        assertThat(shard).containsExactly(pet1.getPhotoUrl());
+        assertThat(petRepository.existsByPhotoUrlStartingWith("/uploads/pets/ab/cd/" + "a".repeat(64))).isTrue();
+        assertThat(petRepository.existsByPhotoUrlStartingWith("/uploads/pets/ab/cd/" + "b".repeat(64))).isFalse();
+        assertThat(petRepository.existsByPhotoUrl("/uploads/pets/legacy_1700000000000.jpg")).isTrue();
+    }
 }
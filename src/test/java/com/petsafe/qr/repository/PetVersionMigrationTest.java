@@ -0,0 +1,65 @@
+package com.petsafe.qr.repository;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Banco próprio, fora do contexto Spring: precisa parar na V3 para gravar uma linha com version
+// NULL, como as que existiam antes do @Version, e só então aplicar o resto das migrações
+@DisplayName("Pet version migration Tests")
+class PetVersionMigrationTest {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:version-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    @DisplayName("Should backfill NULL versions so legacy pets can be updated again")
+    void testLegacyNullVersionUpdatable() {
+        // Arrange
+        flyway("3").migrate();
+        UUID ownerId = UUID.randomUUID();
+        UUID petId = UUID.randomUUID();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO users (id, name, email, password, phone, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                ownerId, "Tutor", "tutor@example.com", "encodedPassword123", "11999999999", now);
+        jdbcTemplate.update("INSERT INTO pets (id, name, species, is_missing, owner_id, created_at, updated_at, version) "
+                + "VALUES (?, ?, ?, FALSE, ?, ?, ?, NULL)", petId, "Rex", "Cachorro", ownerId, now, now);
+
+        // Act
+        flyway(null).migrate();
+        int updated = jdbcTemplate.update("UPDATE pets SET is_missing = NOT is_missing, version = version + 1 "
+                + "WHERE id = ? AND version = ?", petId, 0L);
+
+        // Assert
+        assertThat(updated).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM pets WHERE id = ?", Long.class, petId)).isEqualTo(1L);
+        assertThatThrownBy(() -> jdbcTemplate.update("UPDATE pets SET version = NULL WHERE id = ?", petId))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .target(target != null ? target : "latest")
+                .load();
+    }
+}
@@ -0,0 +1,99 @@
+package com.petsafe.qr.repository;
+
+import com.petsafe.qr.entity.PhotoBlob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Cada upload roda na sua própria transação, como em produção: a corrida só aparece entre commits
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("PhotoBlobRepository Tests")
+class PhotoBlobRepositoryTest {
+
+    private static final String HASH = "ab" + "1".repeat(62);
+    private static final String PATH = "ab/11/" + HASH + ".jpg";
+
+    @Autowired
+    private PhotoBlobRepository photoBlobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> photoBlobRepository.deleteAllInBatch());
+    }
+
+    @Test
+    @DisplayName("Should create the blob with one reference and increment it afterwards")
+    void testAcquire() {
+        // Act
+        String first = tx.execute(status -> photoBlobRepository.acquire(HASH, PATH, 42));
+        String second = tx.execute(status -> photoBlobRepository.acquire(HASH, "ab/11/" + HASH + ".png", 42));
+
+        // Assert: o caminho gravado primeiro prevalece
+        assertThat(first).isEqualTo(PATH);
+        assertThat(second).isEqualTo(PATH);
+        PhotoBlob blob = photoBlobRepository.findById(HASH).orElseThrow();
+        assertThat(blob.getRefCount()).isEqualTo(2);
+        assertThat(blob.getSize()).isEqualTo(42);
+        assertThat(blob.getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should count both references when two uploads of new content race")
+    void testConcurrentAcquire() throws Exception {
+        // Arrange: o primeiro upload cria a linha e segura a transação aberta
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> tx.execute(status -> {
+            String path = photoBlobRepository.acquire(HASH, PATH, 42);
+            inserted.countDown();
+            await(release);
+            return path;
+        }));
+        assertThat(inserted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Act: o segundo não encontra a linha confirmada e tenta criá-la também
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(
+                () -> tx.execute(status -> photoBlobRepository.acquire(HASH, PATH, 42)));
+        Thread.sleep(200);
+        release.countDown();
+
+        // Assert: nenhum dos dois falha com violação de chave primária
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(PATH);
+        assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(PATH);
+        assertThat(photoBlobRepository.findById(HASH).orElseThrow().getRefCount()).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.petsafe.qr.repository;
+
+import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.repository.PetRepositoryCustom.DeletedPet;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Primário e réplica são dois H2 distintos e nada replica entre eles: a réplica fica parada na linha
+// de antes da escrita, como uma réplica atrasada. A leitura anônima (scan público) vai para ela
+@SpringBootTest(properties = "app.datasource.replica.urls=" + ReplicaCacheTest.REPLICA_URL)
+@ActiveProfiles("test")
+@DisplayName("Second-level cache with a lagging replica Tests")
+class ReplicaCacheTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-cache;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private UUID ownerId;
+    private UUID petId;
+
+    // Antes do contexto subir: a aplicação já lê da réplica na inicialização
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(replicaDataSource())
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(dataSource);
+        replica = new JdbcTemplate(replicaDataSource());
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        ownerId = UUID.randomUUID();
+        petId = UUID.randomUUID();
+        insertPet(primary);
+        insertPet(replica);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (JdbcTemplate database : new JdbcTemplate[] {primary, replica}) {
+            database.update("DELETE FROM pets WHERE owner_id = ?", ownerId);
+            database.update("DELETE FROM users WHERE id = ?", ownerId);
+        }
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Should not cache the replica's pre-toggle pet after the native toggleMissing")
+    void testStaleReplicaReadAfterToggle() {
+        // Act
+        readWrite.executeWithoutResult(status -> petRepository.toggleMissing(petId, ownerId, null).orElseThrow());
+        Pet stale = readOnly.execute(status -> petRepository.findById(petId).orElseThrow());
+
+        // Assert: a réplica ainda mostra o pet como não desaparecido, mas isso não fica no cache
+        assertThat(stale.getIsMissing()).isFalse();
+        Pet reloaded = readWrite.execute(status -> petRepository.findById(petId).orElseThrow());
+        assertThat(reloaded.getIsMissing()).isTrue();
+        assertThat(reloaded.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should not cache the replica's copy of a deleted pet")
+    void testStaleReplicaReadAfterDelete() {
+        // Act
+        Optional<DeletedPet> deleted = readWrite.execute(status -> petRepository.deleteByIdAndOwnerId(petId, ownerId));
+        Optional<Pet> stale = readOnly.execute(status -> petRepository.findById(petId));
+
+        // Assert
+        assertThat(deleted).isPresent();
+        assertThat(stale).isPresent();
+        Optional<Pet> reloaded = readWrite.execute(status -> petRepository.findById(petId));
+        assertThat(reloaded).isEmpty();
+    }
+
+    private static JdbcDataSource replicaDataSource() {
+        JdbcDataSource replicaDataSource = new JdbcDataSource();
+        replicaDataSource.setURL(REPLICA_URL);
+        // Mesmo usuário do pool da réplica, que herda spring.datasource.username
+        replicaDataSource.setUser("sa");
+        return replicaDataSource;
+    }
+
+    private void insertPet(JdbcTemplate database) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        database.update("INSERT INTO users (id, name, email, password, phone, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                ownerId, "Tutor", "replica-" + ownerId + "@example.com", "encodedPassword123", "11999999999", now);
+        database.update("INSERT INTO pets (id, name, species, is_missing, owner_id, created_at, updated_at, version) "
+                + "VALUES (?, ?, ?, FALSE, ?, ?, ?, 0)", petId, "Rex", "Cachorro", ownerId, now, now);
+    }
+}
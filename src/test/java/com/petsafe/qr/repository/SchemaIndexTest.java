@@ -0,0 +1,143 @@
+package com.petsafe.qr.repository;
+
+import com.petsafe.qr.entity.Pet;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Roda EXPLAIN sobre o SQL que o Hibernate gera para as consultas quentes do repositório, no schema
+// criado pelas migrações. Se alguém remover um índice ou mudar a consulta de forma que ele deixe de
+// servir, o plano volta a ser varredura da tabela e o teste falha
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Schema index usage Tests")
+class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PhotoBlobRepository photoBlobRepository;
+
+    @Autowired
+    private CapturedStatements statements;
+
+    @Test
+    @DisplayName("Should apply every migration on top of an empty database")
+    void testMigrationsApplied() {
+        // Act
+        Integer applied = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"success\" = TRUE AND \"version\" IS NOT NULL",
+                Integer.class);
+
+        // Assert
+        assertThat(applied).isEqualTo(4);
+    }
+
+    // O H2 cria sozinho um índice para cada chave estrangeira (o PostgreSQL não), então aqui o plano
+    // pode escolher o dele; o que importa é a busca por owner_id não varrer a tabela
+    @Test
+    @DisplayName("findByOwnerId and streamByOwnerId should seek by owner_id")
+    void testOwnerQueriesUseIndex() {
+        UUID ownerId = UUID.randomUUID();
+        assertThat(explain(generated(() -> petRepository.findByOwnerId(ownerId)), ownerId))
+                .doesNotContain("tableScan")
+                .containsPattern("/\\* PUBLIC\\.\\w+: OWNER_ID = \\?1 \\*/");
+        assertThat(explain(generated(() -> consume(petRepository.streamByOwnerId(ownerId))), ownerId))
+                .doesNotContain("tableScan")
+                .containsPattern("/\\* PUBLIC\\.\\w+: OWNER_ID = \\?1 \\*/");
+    }
+
+    @Test
+    @DisplayName("streamMissing should use the missing index")
+    void testMissingQueryUsesIndex() {
+        assertThat(explain(generated(() -> consume(petRepository.streamMissing()))))
+                .contains("IDX_PETS_MISSING");
+    }
+
+    @Test
+    @DisplayName("Login, photo reference and blob lookups should use their indexes")
+    void testLookupQueriesUseIndex() {
+        String email = "index-" + UUID.randomUUID() + "@example.com";
+        assertThat(explain(generated(() -> userRepository.findByEmail(email)), email))
+                .contains("UK_USERS_EMAIL");
+        String photoUrl = "/uploads/pets/ab/cd/x.jpg";
+        assertThat(explain(generated(() -> petRepository.existsByPhotoUrl(photoUrl)), photoUrl, 1))
+                .contains("IDX_PETS_PHOTO_URL");
+        assertThat(explain(generated(() -> photoBlobRepository.findByPath("ab/cd/x.jpg")), "ab/cd/x.jpg"))
+                .contains("IDX_PHOTO_BLOBS_PATH");
+    }
+
+    // O único SQL que o Hibernate mandou para o banco durante a chamada
+    private String generated(Runnable call) {
+        statements.clear();
+        call.run();
+        assertThat(statements.captured()).hasSize(1);
+        return statements.captured().get(0);
+    }
+
+    private static void consume(Stream<Pet> pets) {
+        try (pets) {
+            pets.forEach(pet -> { });
+        }
+    }
+
+    private String explain(String sql, Object... args) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+    }
+
+    @TestConfiguration
+    static class StatementCaptureConfig {
+
+        @Bean
+        CapturedStatements capturedStatements() {
+            return new CapturedStatements();
+        }
+
+        // Mesmo gancho do RequestQueryCounter em produção
+        @Bean
+        HibernatePropertiesCustomizer statementCaptureCustomizer(CapturedStatements statements) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statements);
+        }
+    }
+
+    static class CapturedStatements implements StatementInspector {
+
+        private final List<String> captured = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            captured.add(sql);
+            return sql;
+        }
+
+        List<String> captured() {
+            return captured;
+        }
+
+        void clear() {
+            captured.clear();
+        }
+    }
+}
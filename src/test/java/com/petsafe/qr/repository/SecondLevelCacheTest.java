@@ -0,0 +1,229 @@
+package com.petsafe.qr.repository;
+
+import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.repository.PetRepositoryCustom.DeletedPet;
+import com.petsafe.qr.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Cada passo roda em uma transação própria (e portanto em um EntityManager novo): só o cache de
+// segundo nível sobrevive entre eles, que é exatamente o que se quer verificar
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Second-level cache Tests")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private Statistics statistics;
+    private UUID ownerId;
+    private UUID petId;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User owner = new User();
+        owner.setName("Tutor");
+        owner.setEmail("tutor@example.com");
+        owner.setPassword("encodedPassword123");
+        owner.setPhone("11999999999");
+        ownerId = tx.execute(status -> userRepository.save(owner).getId());
+
+        Pet pet = new Pet();
+        pet.setName("Rex");
+        pet.setSpecies("Cachorro");
+        pet.setIsMissing(false);
+        pet.setOwner(userRepository.getReferenceById(ownerId));
+        petId = tx.execute(status -> petRepository.save(pet).getId());
+
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            petRepository.deleteAllInBatch();
+            userRepository.deleteAllInBatch();
+        });
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Should serve repeated User and Pet reads from the cache")
+    void testRepeatedReadsHitCache() {
+        // Act
+        for (int i = 0; i < 3; i++) {
+            tx.executeWithoutResult(status -> {
+                Pet pet = petRepository.findById(petId).orElseThrow();
+                assertThat(pet.getOwner().getName()).isEqualTo("Tutor");
+            });
+        }
+
+        // Assert: a primeira leitura vai ao banco, as outras duas não
+        assertThat(region(User.class).getHitCount()).isEqualTo(2);
+        assertThat(region(Pet.class).getHitCount()).isEqualTo(2);
+        assertThat(region(Pet.class).getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not return a stale pet after an update through the repository")
+    void testUpdateInvalidates() {
+        // Arrange
+        warmPet();
+
+        // Act
+        tx.executeWithoutResult(status -> {
+            Pet pet = petRepository.findById(petId).orElseThrow();
+            pet.setName("Rex II");
+            petRepository.saveAndFlush(pet);
+        });
+
+        // Assert
+        Pet reloaded = tx.execute(status -> petRepository.findById(petId).orElseThrow());
+        assertThat(reloaded.getName()).isEqualTo("Rex II");
+        assertThat(reloaded.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should not return a stale pet after the native toggleMissing update")
+    void testNativeToggleInvalidates() {
+        // Arrange
+        warmPet();
+
+        // Act
+        tx.executeWithoutResult(status -> petRepository.toggleMissing(petId, ownerId, 0L).orElseThrow());
+
+        // Assert
+        Pet reloaded = tx.execute(status -> petRepository.findById(petId).orElseThrow());
+        assertThat(reloaded.getIsMissing()).isTrue();
+        assertThat(reloaded.getVersion()).isEqualTo(1L);
+
+        // E a versão nova volta a ser cacheada normalmente
+        tx.executeWithoutResult(status -> petRepository.findById(petId));
+        assertThat(region(Pet.class).getHitCount()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should keep the committed state when a native toggleMissing is rolled back")
+    void testRolledBackToggle() {
+        // Arrange
+        warmPet();
+
+        // Act
+        tx.executeWithoutResult(status -> {
+            petRepository.toggleMissing(petId, ownerId, null);
+            status.setRollbackOnly();
+        });
+
+        // Assert
+        Pet reloaded = tx.execute(status -> petRepository.findById(petId).orElseThrow());
+        assertThat(reloaded.getIsMissing()).isFalse();
+        assertThat(reloaded.getVersion()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not find a pet removed by the bulk delete")
+    void testBulkDeleteInvalidates() {
+        // Arrange
+        warmPet();
+
+        // Act
+        tx.executeWithoutResult(status -> petRepository.deleteByIdAndOwnerId(petId, ownerId));
+
+        // Assert
+        Optional<Pet> reloaded = tx.execute(status -> petRepository.findById(petId));
+        assertThat(reloaded).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep other cached pets when one pet is deleted")
+    void testDeleteKeepsOtherPetsCached() {
+        // Arrange
+        Pet other = new Pet();
+        other.setName("Mia");
+        other.setSpecies("Gato");
+        other.setIsMissing(false);
+        other.setOwner(userRepository.getReferenceById(ownerId));
+        UUID otherId = tx.execute(status -> petRepository.save(other).getId());
+        warmPet();
+        tx.executeWithoutResult(status -> petRepository.findById(otherId).orElseThrow());
+        statistics.clear();
+
+        // Act
+        Optional<DeletedPet> deleted = tx.execute(status -> petRepository.deleteByIdAndOwnerId(petId, ownerId));
+
+        // Assert
+        assertThat(deleted).isPresent();
+        assertThat(entityManagerFactory.getCache().contains(Pet.class, otherId)).isTrue();
+        Pet reloaded = tx.execute(status -> petRepository.findById(otherId).orElseThrow());
+        assertThat(reloaded.getName()).isEqualTo("Mia");
+        assertThat(region(Pet.class).getHitCount()).isEqualTo(1);
+        assertThat(region(Pet.class).getMissCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should invalidate the cached findByEmail result when a user registers")
+    void testQueryCacheInvalidatedByInsert() {
+        // Arrange: resultado vazio fica no cache de consultas
+        for (int i = 0; i < 2; i++) {
+            Optional<User> missing = tx.execute(status -> userRepository.findByEmail("novo@example.com"));
+            assertThat(missing).isEmpty();
+        }
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        // Act
+        User user = new User();
+        user.setName("Novo");
+        user.setEmail("novo@example.com");
+        user.setPassword("encodedPassword123");
+        user.setPhone("11777777777");
+        tx.executeWithoutResult(status -> userRepository.save(user));
+
+        // Assert
+        Optional<User> found = tx.execute(status -> userRepository.findByEmail("novo@example.com"));
+        assertThat(found).isPresent();
+        assertThat(found.get().getName()).isEqualTo("Novo");
+    }
+
+    private void warmPet() {
+        tx.executeWithoutResult(status -> petRepository.findById(petId).orElseThrow());
+        assertThat(entityManagerFactory.getCache().contains(Pet.class, petId)).isTrue();
+    }
+
+    private CacheRegionStatistics region(Class<?> entity) {
+        return statistics.getDomainDataRegionStatistics(entity.getName());
+    }
+}
@@ -0,0 +1,115 @@
+package com.petsafe.qr.search;
+
+import com.petsafe.qr.entity.Pet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("FoundPetMatcher Tests")
+class FoundPetMatcherTest {
+
+    private MissingPetIndex index;
+    private FoundPetMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        index = new MissingPetIndex();
+        matcher = new FoundPetMatcher(index);
+    }
+
+    private Pet missingPet(String name, String species, String breed, String color, Double weight,
+                           Double latitude, Double longitude) {
+        Pet pet = new Pet();
+        pet.setId(UUID.randomUUID());
+        pet.setName(name);
+        pet.setSpecies(species);
+        pet.setBreed(breed);
+        pet.setColor(color);
+        pet.setWeight(weight);
+        pet.setLastSeenLatitude(latitude);
+        pet.setLastSeenLongitude(longitude);
+        pet.setIsMissing(true);
+        return pet;
+    }
+
+    @Test
+    @DisplayName("Should rank the closest attribute match first despite typos")
+    void testMatch_RanksBestCandidateFirst() {
+        // Arrange
+        index.rebuild(Stream.of(
+                missingPet("Rex", "Cachorro", "Labrador", "Preto", 30.0, -23.55, -46.63),
+                missingPet("Thor", "Cachorro", "Golden Retriever", "Dourado", 32.0, -23.56, -46.64),
+                missingPet("Mia", "Gato", "Siamês", "Preta", 4.0, -23.55, -46.63)
+        ));
+        FoundPetQuery query = FoundPetQuery.of("cachorro", "labradro", "preta", PetSize.LARGE, -23.551, -46.631);
+
+        // Act
+        List<FoundPetMatch> matches = matcher.match(query, 3);
+
+        // Assert
+        assertThat(matches).isNotEmpty();
+        assertThat(matches.get(0).pet().name()).isEqualTo("Rex");
+        assertThat(matches.get(0).distanceKm()).isLessThan(1.0);
+        assertThat(matches).extracting(FoundPetMatch::score).isSortedAccordingTo((a, b) -> Double.compare(b, a));
+    }
+
+    @Test
+    @DisplayName("Should match partial breed and multi-color descriptions by token")
+    void testTextSimilarity_Tokens() {
+        // Assert
+        assertThat(FoundPetMatcher.textSimilarity("golden", "golden retriever")).isGreaterThanOrEqualTo(0.9);
+        assertThat(FoundPetMatcher.textSimilarity("preta", "preto e branco")).isGreaterThanOrEqualTo(0.6);
+        assertThat(FoundPetMatcher.textSimilarity("poodle", "pastor alemao")).isLessThan(0.6);
+    }
+
+    @Test
+    @DisplayName("Should score only the attributes the finder reported")
+    void testMatch_IgnoresMissingAttributes() {
+        // Arrange
+        index.rebuild(Stream.of(missingPet("Rex", "Cachorro", null, null, null, null, null)));
+
+        // Act
+        List<FoundPetMatch> matches = matcher.match(FoundPetQuery.of("Cachorro", null, null, null, null, null), 5);
+
+        // Assert
+        assertThat(matches).hasSize(1);
+        assertThat(matches.get(0).score()).isEqualTo(1.0);
+        assertThat(matches.get(0).distanceKm()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should scan 100k missing pets quickly and still find the planted match")
+    void testMatch_LargeCandidateSet() {
+        // Arrange
+        Random random = new Random(42);
+        String[] species = {"Cachorro", "Gato"};
+        String[] breeds = {"Vira-lata", "Poodle", "Pastor Alemão", "Siamês", "Persa", "Bulldog", "Beagle", "Pug"};
+        String[] colors = {"Branco", "Caramelo", "Cinza", "Marrom", "Tigrado"};
+        Stream<Pet> noise = IntStream.range(0, 100_000).mapToObj(i -> missingPet("Pet " + i,
+                species[random.nextInt(species.length)], breeds[random.nextInt(breeds.length)],
+                colors[random.nextInt(colors.length)], 2 + random.nextDouble() * 40,
+                -23 - random.nextDouble() * 2, -46 - random.nextDouble() * 2));
+        Pet planted = missingPet("Rex", "Cachorro", "Labrador", "Preto", 30.0, -23.55, -46.63);
+        index.rebuild(Stream.concat(noise, Stream.of(planted)));
+        FoundPetQuery query = FoundPetQuery.of("cachorro", "labrador", "preto", PetSize.LARGE, -23.55, -46.63);
+        matcher.match(query, 10);
+
+        // Act
+        long start = System.nanoTime();
+        List<FoundPetMatch> matches = matcher.match(query, 10);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        assertThat(matches).hasSize(10);
+        assertThat(matches.get(0).pet().id()).isEqualTo(planted.getId());
+        assertThat(elapsedMillis).isLessThan(1000);
+    }
+}
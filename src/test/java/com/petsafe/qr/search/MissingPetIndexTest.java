@@ -0,0 +1,112 @@
+package com.petsafe.qr.search;
+
+import com.petsafe.qr.entity.Pet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MissingPetIndex Tests")
+class MissingPetIndexTest {
+
+    private MissingPetIndex index;
+    private Pet rex;
+    private Pet thor;
+    private Pet mia;
+
+    @BeforeEach
+    void setUp() {
+        index = new MissingPetIndex();
+        rex = missingPet("Rex", "Cachorro", "Preto", "Labrador");
+        thor = missingPet("Thor", "cachorro ", "Dourado", "Golden Retriever");
+        mia = missingPet("Mia", "Gato", "Preto", "Siamês");
+        index.rebuild(Stream.of(rex, thor, mia));
+    }
+
+    private Pet missingPet(String name, String species, String color, String breed) {
+        Pet pet = new Pet();
+        pet.setId(UUID.randomUUID());
+        pet.setName(name);
+        pet.setSpecies(species);
+        pet.setColor(color);
+        pet.setBreed(breed);
+        pet.setIsMissing(true);
+        return pet;
+    }
+
+    private Map<PetFacet, List<String>> filters(List<String> species, List<String> colors, List<String> breeds) {
+        Map<PetFacet, List<String>> filters = new EnumMap<>(PetFacet.class);
+        filters.put(PetFacet.SPECIES, species);
+        filters.put(PetFacet.COLOR, colors);
+        filters.put(PetFacet.BREED, breeds);
+        return filters;
+    }
+
+    @Test
+    @DisplayName("Should AND different facets and ignore case and accents")
+    void testSearch_MatchAll() {
+        // Act
+        MissingPetSearchResult result = index.search(filters(List.of("CACHORRO"), List.of("preto"), null), true, 10);
+
+        // Assert
+        assertThat(result.total()).isEqualTo(1);
+        assertThat(result.pets()).extracting(IndexedPet::name).containsExactly("Rex");
+    }
+
+    @Test
+    @DisplayName("Should OR values within a facet and across facets in any mode")
+    void testSearch_MatchAny() {
+        // Act
+        MissingPetSearchResult sameFacet = index.search(filters(null, null, List.of("labrador", "siames")), true, 10);
+        MissingPetSearchResult anyFacet = index.search(filters(List.of("gato"), List.of("dourado"), null), false, 10);
+
+        // Assert
+        assertThat(sameFacet.pets()).extracting(IndexedPet::name).containsExactlyInAnyOrder("Rex", "Mia");
+        assertThat(anyFacet.pets()).extracting(IndexedPet::name).containsExactlyInAnyOrder("Thor", "Mia");
+    }
+
+    @Test
+    @DisplayName("Should return facet counts for the matching set")
+    void testSearch_FacetCounts() {
+        // Act
+        MissingPetSearchResult result = index.search(filters(null, List.of("Preto"), null), true, 10);
+
+        // Assert
+        assertThat(result.facets().get(PetFacet.SPECIES)).containsEntry("cachorro", 1).containsEntry("gato", 1);
+        assertThat(result.facets().get(PetFacet.COLOR)).containsOnlyKeys("preto");
+    }
+
+    @Test
+    @DisplayName("Should drop pets that are no longer missing and reuse their slots")
+    void testUpsertAndRemove() {
+        // Act
+        rex.setIsMissing(false);
+        index.upsert(rex);
+        index.remove(mia.getId());
+        Pet bob = missingPet("Bob", "Cachorro", "Preto", "Vira-lata");
+        index.upsert(bob);
+        MissingPetSearchResult result = index.search(filters(List.of("cachorro"), null, null), true, 10);
+
+        // Assert
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(result.pets()).extracting(IndexedPet::name).containsExactlyInAnyOrder("Thor", "Bob");
+    }
+
+    @Test
+    @DisplayName("Should respect the result limit but report the full total")
+    void testSearch_Limit() {
+        // Act
+        MissingPetSearchResult result = index.search(Map.of(), true, 2);
+
+        // Assert
+        assertThat(result.total()).isEqualTo(3);
+        assertThat(result.pets()).hasSize(2);
+    }
+}
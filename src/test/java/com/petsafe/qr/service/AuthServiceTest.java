@@ -22,7 +22,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Collections;
-import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -129,7 +128,6 @@ class AuthServiceTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
         when(tokenProvider.generateToken(authentication)).thenReturn("jwt-token");
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
 
         // Act
         AuthResponse response = authService.login(loginRequest);
@@ -154,11 +152,11 @@ class AuthServiceTest {
     }
 
     @Test
-    @DisplayName("Should throw exception when user not found after authentication")
-    void testLogin_UserNotFound() {
+    @DisplayName("Should build the login response from the authenticated principal without a second lookup")
+    void testLogin_UsesAuthenticatedPrincipal() {
         // Arrange
         UserPrincipal userPrincipal = new UserPrincipal(
-                userId, "Test User", "test@example.com", "encodedPassword",
+                userId, "Nome Atual", "test@example.com", "encodedPassword",
                 Collections.emptyList()
         );
         Authentication authentication = new UsernamePasswordAuthenticationToken(
@@ -168,11 +166,13 @@ class AuthServiceTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
         when(tokenProvider.generateToken(authentication)).thenReturn("jwt-token");
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.empty());
 
-        // Act & Assert
-        assertThatThrownBy(() -> authService.login(loginRequest))
-                .isInstanceOf(BadRequestException.class)
-                .hasMessage("Usuário não encontrado");
+        // Act
+        AuthResponse response = authService.login(loginRequest);
+
+        // Assert
+        assertThat(response.getUserId()).isEqualTo(userId);
+        assertThat(response.getName()).isEqualTo("Nome Atual");
+        verifyNoInteractions(userRepository);
     }
 }
@@ -0,0 +1,133 @@
+package com.petsafe.qr.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("HotPhotoCache Tests")
+class HotPhotoCacheTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    @DisplayName("Should admit only after repeated access and serve direct read-only views")
+    void testAdmitAndGet() throws Exception {
+        // Arrange
+        HotPhotoCache cache = new HotPhotoCache(DataSize.ofKilobytes(10), DataSize.ofKilobytes(4));
+        Path file = write("a.jpg", 1000);
+
+        // Act
+        assertThat(cache.get("a")).isNull();
+        ByteBuffer firstAdmit = cache.admit("a", 1000, loader(file));
+        cache.get("a");
+        ByteBuffer secondAdmit = cache.admit("a", 1000, loader(file));
+        ByteBuffer hit = cache.get("a");
+
+        // Assert
+        assertThat(firstAdmit).isNull();
+        assertThat(secondAdmit).isNotNull();
+        assertThat(hit.isDirect()).isTrue();
+        assertThat(hit.isReadOnly()).isTrue();
+        assertThat(hit.remaining()).isEqualTo(1000);
+        assertThat(cache.getResidentBytes()).isEqualTo(1000);
+        assertThat(cache.getHitRatio()).isEqualTo(1.0 / 3);
+    }
+
+    @Test
+    @DisplayName("Should evict less frequent entry and reject candidates colder than residents")
+    void testFrequencyEviction() throws Exception {
+        // Arrange: cabem só duas entradas de 4KB
+        HotPhotoCache cache = new HotPhotoCache(DataSize.ofKilobytes(8), DataSize.ofKilobytes(4));
+        Path hot = write("hot.jpg", 4096);
+        Path warm = write("warm.jpg", 4096);
+        Path cold = write("cold.jpg", 4096);
+        Path viral = write("viral.jpg", 4096);
+        access(cache, "hot", 10);
+        access(cache, "warm", 3);
+        cache.admit("hot", 4096, loader(hot));
+        cache.admit("warm", 4096, loader(warm));
+
+        // Act
+        access(cache, "cold", 2);
+        ByteBuffer coldAdmit = cache.admit("cold", 4096, loader(cold));
+        access(cache, "viral", 8);
+        ByteBuffer viralAdmit = cache.admit("viral", 4096, loader(viral));
+
+        // Assert
+        assertThat(coldAdmit).isNull();
+        assertThat(viralAdmit).isNotNull();
+        assertThat(cache.get("hot")).isNotNull();
+        assertThat(cache.get("warm")).isNull();
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.getResidentBytes()).isEqualTo(8192);
+    }
+
+    @Test
+    @DisplayName("Should decide admission before allocating or reading the candidate")
+    void testAdmissionBeforeLoad() throws Exception {
+        // Arrange: o cache está cheio de uma foto mais popular que o candidato
+        HotPhotoCache cache = new HotPhotoCache(DataSize.ofKilobytes(4), DataSize.ofKilobytes(4));
+        access(cache, "hot", 10);
+        cache.admit("hot", 4096, loader(write("hot.jpg", 4096)));
+        access(cache, "cold", 2);
+
+        // Act
+        ByteBuffer coldAdmit = cache.admit("cold", 4096, () -> {
+            throw new AssertionError("O candidato perdedor não deveria ser lido");
+        });
+        access(cache, "broken", 20);
+        ByteBuffer brokenAdmit = cache.admit("broken", 4096, () -> {
+            throw new IOException("backend fora do ar");
+        });
+
+        // Assert: a carga que falhou devolve a reserva
+        assertThat(coldAdmit).isNull();
+        assertThat(brokenAdmit).isNull();
+        assertThat(cache.getEntryCount()).isZero();
+        assertThat(cache.getResidentBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should skip files larger than the per-entry limit and release on invalidate")
+    void testLimitsAndInvalidate() throws Exception {
+        // Arrange
+        HotPhotoCache cache = new HotPhotoCache(DataSize.ofKilobytes(64), DataSize.ofKilobytes(1));
+        Path large = write("large.jpg", 2048);
+        Path small = write("small.jpg", 512);
+        access(cache, "large", 5);
+        access(cache, "small", 5);
+
+        // Act
+        ByteBuffer largeAdmit = cache.admit("large", 2048, loader(large));
+        cache.admit("small", 512, loader(small));
+        cache.invalidate("small");
+
+        // Assert
+        assertThat(largeAdmit).isNull();
+        assertThat(cache.getEntryCount()).isZero();
+        assertThat(cache.getResidentBytes()).isZero();
+    }
+
+    private Path write(String name, int size) throws Exception {
+        return Files.write(root.resolve(name), new byte[size]);
+    }
+
+    private static HotPhotoCache.Loader loader(Path file) {
+        return () -> Files.newInputStream(file);
+    }
+
+    private static void access(HotPhotoCache cache, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            cache.get(key);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.exception.BadRequestException;
+import com.petsafe.qr.exception.UnsupportedMediaTypeException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ImageSniffer Tests")
+class ImageSnifferTest {
+    
+    @Test
+    @DisplayName("Should read JPEG dimensions from SOF and consume only the header")
+    void testJpeg() throws Exception {
+        // Arrange
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB), "jpeg", jpeg);
+        byte[] bytes = jpeg.toByteArray();
+        InputStream in = new ByteArrayInputStream(bytes);
+        
+        // Act
+        ImageSniffer.ImageHeader header = ImageSniffer.read(in);
+        
+        // Assert
+        assertThat(header.format()).isEqualTo(PhotoFormat.JPEG);
+        assertThat(header.width()).isEqualTo(640);
+        assertThat(header.height()).isEqualTo(480);
+        assertThat(header.prefix()).isEqualTo(Arrays.copyOf(bytes, header.prefix().length));
+        assertThat(header.prefix().length + in.available()).isEqualTo(bytes.length);
+    }
+    
+    @Test
+    @DisplayName("Should read PNG, GIF, WebP and HEIC dimensions from their headers")
+    void testOtherFormats() throws Exception {
+        // Arrange
+        ByteArrayOutputStream gif = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(33, 17, BufferedImage.TYPE_BYTE_INDEXED), "gif", gif);
+        
+        // Act
+        ImageSniffer.ImageHeader png = ImageSniffer.read(new ByteArrayInputStream(PhotoStorageServiceTest.png(1920, 1080, "")));
+        ImageSniffer.ImageHeader gifHeader = ImageSniffer.read(new ByteArrayInputStream(gif.toByteArray()));
+        ImageSniffer.ImageHeader webp = ImageSniffer.read(new ByteArrayInputStream(webpExtended(4000, 3000)));
+        ImageSniffer.ImageHeader heic = ImageSniffer.read(new ByteArrayInputStream(heic(4032, 3024)));
+        
+        // Assert
+        assertThat(png.format()).isEqualTo(PhotoFormat.PNG);
+        assertThat(new int[]{png.width(), png.height()}).containsExactly(1920, 1080);
+        assertThat(gifHeader.format()).isEqualTo(PhotoFormat.GIF);
+        assertThat(new int[]{gifHeader.width(), gifHeader.height()}).containsExactly(33, 17);
+        assertThat(webp.format()).isEqualTo(PhotoFormat.WEBP);
+        assertThat(new int[]{webp.width(), webp.height()}).containsExactly(4000, 3000);
+        assertThat(heic.format()).isEqualTo(PhotoFormat.HEIC);
+        assertThat(new int[]{heic.width(), heic.height()}).containsExactly(4032, 3024);
+    }
+    
+    @Test
+    @DisplayName("Should take the primary HEIC extent even when a thumbnail ispe comes first")
+    void testHeicThumbnailFirst() throws Exception {
+        // Arrange: miniatura 320x240, blocos 512x512 da grade e a imagem principal
+        byte[] bytes = heic(320, 240, 512, 512, 4032, 3024, 512, 512);
+        
+        // Act
+        ImageSniffer.ImageHeader header = ImageSniffer.read(new ByteArrayInputStream(bytes));
+        
+        // Assert
+        assertThat(header.format()).isEqualTo(PhotoFormat.HEIC);
+        assertThat(new int[]{header.width(), header.height()}).containsExactly(4032, 3024);
+    }
+    
+    @Test
+    @DisplayName("Should reject unknown signatures, truncated headers and empty input")
+    void testRejections() {
+        byte[] html = "<html><body>oi</body></html>".getBytes(StandardCharsets.US_ASCII);
+        byte[] truncatedJpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0x00, 0x10, 'J', 'F'};
+        
+        assertThatThrownBy(() -> ImageSniffer.read(new ByteArrayInputStream(html)))
+                .isInstanceOf(UnsupportedMediaTypeException.class);
+        assertThatThrownBy(() -> ImageSniffer.read(new ByteArrayInputStream(truncatedJpeg)))
+                .isInstanceOf(UnsupportedMediaTypeException.class);
+        assertThatThrownBy(() -> ImageSniffer.read(InputStream.nullInputStream()))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Arquivo vazio");
+        assertThat(ImageSniffer.detect(html, html.length)).isNull();
+    }
+    
+    // RIFF/WEBP com chunk VP8X: largura e altura menos um em 24 bits little-endian
+    private static byte[] webpExtended(int width, int height) {
+        ByteBuffer buffer = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(22).put("WEBP".getBytes(StandardCharsets.US_ASCII));
+        buffer.put("VP8X".getBytes(StandardCharsets.US_ASCII)).putInt(10).putInt(0);
+        buffer.put((byte) (width - 1)).put((byte) ((width - 1) >> 8)).put((byte) ((width - 1) >> 16));
+        buffer.put((byte) (height - 1)).put((byte) ((height - 1) >> 8)).put((byte) ((height - 1) >> 16));
+        return buffer.array();
+    }
+    
+    // ftyp heic seguido de meta/iprp/ipco com uma caixa ispe por par {largura, altura}
+    private static byte[] heic(int... extents) {
+        int ipco = 8 + 20 * (extents.length / 2);
+        ByteBuffer buffer = ByteBuffer.allocate(24 + 12 + 8 + ipco);
+        buffer.putInt(24).put("ftypheic".getBytes(StandardCharsets.US_ASCII)).putInt(0)
+                .put("mif1heic".getBytes(StandardCharsets.US_ASCII));
+        buffer.putInt(12 + 8 + ipco).put("meta".getBytes(StandardCharsets.US_ASCII)).putInt(0);
+        buffer.putInt(8 + ipco).put("iprp".getBytes(StandardCharsets.US_ASCII));
+        buffer.putInt(ipco).put("ipco".getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i + 1 < extents.length; i += 2) {
+            buffer.putInt(20).put("ispe".getBytes(StandardCharsets.US_ASCII)).putInt(0).putInt(extents[i]).putInt(extents[i + 1]);
+        }
+        return buffer.array();
+    }
+}
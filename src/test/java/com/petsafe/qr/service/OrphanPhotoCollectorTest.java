@@ -0,0 +1,161 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.repository.PetRepository;
+import com.petsafe.qr.storage.LocalPhotoStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OrphanPhotoCollector Tests")
+class OrphanPhotoCollectorTest {
+
+    private static final String REFERENCED = "ab" + "1".repeat(62);
+    private static final String ORPHAN = "ab" + "2".repeat(62);
+    private static final String FRESH = "ab" + "3".repeat(62);
+
+    @TempDir
+    Path root;
+
+    @Mock
+    private PetRepository petRepository;
+
+    @Mock
+    private PhotoStorageService photoStorageService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrphanPhotoCollector collector;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        collector = new OrphanPhotoCollector(petRepository, photoStorageService, transactionManager);
+        ReflectionTestUtils.setField(collector, "gracePeriod", Duration.ofHours(1));
+        ReflectionTestUtils.setField(collector, "batchSize", 100);
+        ReflectionTestUtils.setField(collector, "maxDeletesPerSecond", 1000);
+        LocalPhotoStorage storage = new LocalPhotoStorage(root);
+        lenient().when(photoStorageService.list(anyString(), anyBoolean()))
+                .thenAnswer(invocation -> storage.list(invocation.getArgument(0), invocation.getArgument(1)));
+        lenient().when(photoStorageService.stagingDir()).thenReturn(root.resolve(LocalPhotoStorage.STAGING_DIR));
+    }
+
+    @Test
+    @DisplayName("Should delete unreferenced hash group older than grace period")
+    void testCollectShard() throws Exception {
+        // Arrange
+        Path referenced = write("ab/11/" + REFERENCED + ".jpg", true);
+        write("ab/22/" + ORPHAN + ".jpg", true);
+        write("ab/22/" + ORPHAN + "_thumb.jpg", true);
+        write("ab/33/" + FRESH + ".jpg", false);
+        when(petRepository.streamPhotoUrlsLike("/uploads/pets/ab/%"))
+                .thenReturn(Stream.of("/uploads/pets/ab/11/" + REFERENCED + ".jpg"));
+        when(photoStorageService.deleteOrphan(eq(ORPHAN), anyList())).thenReturn(true);
+
+        // Act
+        int deleted = collector.collectShard("ab");
+
+        // Assert
+        assertThat(deleted).isEqualTo(2);
+        verify(photoStorageService).deleteOrphan(eq(ORPHAN), argThat(files ->
+                files.size() == 2 && files.containsAll(List.of("ab/22/" + ORPHAN + ".jpg", "ab/22/" + ORPHAN + "_thumb.jpg"))));
+        verify(photoStorageService, times(1)).deleteOrphan(anyString(), anyList());
+        assertThat(referenced).exists();
+    }
+
+    @Test
+    @DisplayName("Should delete old unreferenced legacy files and abandoned staging parts")
+    void testCollectLegacy() throws Exception {
+        // Arrange
+        write("pet1_1700000000000.jpg", true);
+        write("pet1_1600000000000.jpg", true);
+        Path abandoned = write(".staging/upload-1.part", true);
+        Path uploading = write(".staging/upload-2.part", false);
+        when(petRepository.findReferencedPhotoUrls(anyCollection()))
+                .thenReturn(List.of("/uploads/pets/pet1_1700000000000.jpg"));
+        when(photoStorageService.deleteLegacyOrphan("pet1_1600000000000.jpg")).thenReturn(true);
+
+        // Act
+        int deleted = collector.collectLegacy();
+
+        // Assert
+        assertThat(deleted).isEqualTo(1);
+        verify(photoStorageService, never()).deleteLegacyOrphan("pet1_1700000000000.jpg");
+        assertThat(abandoned).doesNotExist();
+        assertThat(uploading).exists();
+    }
+
+    @Test
+    @DisplayName("Should check legacy references in pages instead of loading every URL")
+    void testCollectLegacy_Paged() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(collector, "batchSize", 2);
+        for (int i = 0; i < 5; i++) {
+            write("pet" + i + "_1600000000000.jpg", true);
+        }
+        when(petRepository.findReferencedPhotoUrls(anyCollection())).thenReturn(List.of());
+        when(photoStorageService.deleteLegacyOrphan(anyString())).thenReturn(true);
+
+        // Act
+        int deleted = collector.collectLegacy();
+
+        // Assert: 2 + 2 + 1, sem nenhuma consulta pela tabela inteira
+        assertThat(deleted).isEqualTo(5);
+        verify(petRepository, times(3)).findReferencedPhotoUrls(argThat(urls -> urls.size() <= 2));
+        verify(petRepository, never()).streamPhotoUrlsLike(anyString());
+    }
+
+    @Test
+    @DisplayName("Should run collection passes on its own thread, not the shared scheduler")
+    void testScheduleRunsOnOwnThread() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(collector, "enabled", true);
+        CompletableFuture<String> thread = new CompletableFuture<>();
+        when(photoStorageService.list("", false)).thenAnswer(invocation -> {
+            thread.complete(Thread.currentThread().getName());
+            return Stream.empty();
+        });
+        collector.start();
+
+        // Act
+        collector.scheduleNextShard();
+
+        // Assert
+        assertThat(thread.get(5, TimeUnit.SECONDS)).isEqualTo("orphan-photo-gc");
+        collector.stop();
+    }
+
+    private Path write(String relativePath, boolean old) throws Exception {
+        Path file = root.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[]{1});
+        if (old) {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        }
+        return file;
+    }
+}
@@ -0,0 +1,128 @@
+package com.petsafe.qr.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.petsafe.qr.entity.Pet;
+import com.petsafe.qr.entity.User;
+import com.petsafe.qr.repository.PetRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PetExportService Tests")
+class PetExportServiceTest {
+
+    @Mock
+    private PetRepository petRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private PetExportService petExportService;
+    private ObjectMapper objectMapper;
+    private User owner;
+    private UUID ownerId;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+        petExportService = new PetExportService(petRepository, entityManager, objectMapper);
+
+        ownerId = UUID.randomUUID();
+        owner = new User();
+        owner.setId(ownerId);
+        owner.setName("Owner");
+    }
+
+    private Pet pet(String name) {
+        Pet pet = new Pet();
+        pet.setId(UUID.randomUUID());
+        pet.setName(name);
+        pet.setSpecies("Cachorro");
+        pet.setOwner(owner);
+        pet.setIsMissing(false);
+        return pet;
+    }
+
+    @Test
+    @DisplayName("Should write one JSON document per line")
+    void testExportNdjson() throws Exception {
+        // Arrange
+        when(petRepository.streamByOwnerId(ownerId)).thenReturn(Stream.of(pet("Rex"), pet("Mia")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = petExportService.exportPets(ownerId, PetExportFormat.NDJSON, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("name").asText()).isEqualTo("Rex");
+        assertThat(objectMapper.readTree(lines[1]).get("name").asText()).isEqualTo("Mia");
+    }
+
+    @Test
+    @DisplayName("Should write CSV with header and escaped values")
+    void testExportCsv() throws Exception {
+        // Arrange
+        Pet pet = pet("Rex");
+        pet.setOwnerNotes("Dócil, mas \"medroso\"");
+        when(petRepository.streamByOwnerId(ownerId)).thenReturn(Stream.of(pet));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        petExportService.exportPets(ownerId, PetExportFormat.CSV, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("id,name,species,breed");
+        assertThat(lines[1]).contains(",Rex,Cachorro,").contains("\"Dócil, mas \"\"medroso\"\"\"");
+    }
+
+    @Test
+    @DisplayName("Should neutralize values that a spreadsheet would run as formulas")
+    void testEscapeCsvFormulaInjection() {
+        assertThat(PetExportService.escapeCsv("=HYPERLINK(\"http://x\")")).isEqualTo("\"'=HYPERLINK(\"\"http://x\"\")\"");
+        assertThat(PetExportService.escapeCsv("+5511999999999")).isEqualTo("'+5511999999999");
+        assertThat(PetExportService.escapeCsv("-2+3")).isEqualTo("'-2+3");
+        assertThat(PetExportService.escapeCsv("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+        assertThat(PetExportService.escapeCsv("\tcmd")).isEqualTo("'\tcmd");
+        assertThat(PetExportService.escapeCsv("\r=1")).isEqualTo("\"'\r=1\"");
+        // Números e texto comum não mudam
+        assertThat(PetExportService.escapeCsv(-46.6333)).isEqualTo("-46.6333");
+        assertThat(PetExportService.escapeCsv("Rex")).isEqualTo("Rex");
+    }
+
+    @Test
+    @DisplayName("Should detach entities after each chunk")
+    void testExportClearsPersistenceContextPerChunk() throws Exception {
+        // Arrange
+        int total = PetExportService.CHUNK_SIZE * 2 + 1;
+        when(petRepository.streamByOwnerId(ownerId))
+                .thenReturn(IntStream.range(0, total).mapToObj(i -> pet("Pet " + i)));
+
+        // Act
+        long count = petExportService.exportPets(ownerId, PetExportFormat.NDJSON, new ByteArrayOutputStream());
+
+        // Assert
+        assertThat(count).isEqualTo(total);
+        verify(entityManager, times(2)).clear();
+    }
+}
@@ -6,18 +6,28 @@ import com.petsafe.qr.dto.PetUpdateRequest;
 import com.petsafe.qr.dto.PublicPetResponse;
 import com.petsafe.qr.entity.Pet;
 import com.petsafe.qr.entity.User;
+import com.petsafe.qr.exception.PreconditionFailedException;
 import com.petsafe.qr.exception.ResourceNotFoundException;
 import com.petsafe.qr.exception.UnauthorizedException;
 import com.petsafe.qr.repository.PetRepository;
+import com.petsafe.qr.repository.PetRepositoryCustom.DeletedPet;
 import com.petsafe.qr.repository.UserRepository;
+import com.petsafe.qr.search.MissingPetIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -39,6 +49,18 @@ class PetServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private MissingPetIndex missingPetIndex;
+
+    @Mock
+    private PhotoStorageService photoStorageService;
+
+    @Mock
+    private PhotoVariantService photoVariantService;
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private PetService petService;
 
@@ -189,10 +211,10 @@ class PetServiceTest {
         updatedPet.setUpdatedAt(LocalDateTime.now());
 
         when(petRepository.findById(petId)).thenReturn(Optional.of(pet));
-        when(petRepository.save(any(Pet.class))).thenReturn(updatedPet);
+        when(petRepository.saveAndFlush(any(Pet.class))).thenReturn(updatedPet);
 
         // Act
-        PetResponse response = petService.updatePet(petId, updateRequest, ownerId);
+        PetResponse response = petService.updatePet(petId, updateRequest, ownerId, null);
 
         // Assert
         assertThat(response).isNotNull();
@@ -207,23 +229,56 @@ class PetServiceTest {
         when(petRepository.findById(petId)).thenReturn(Optional.of(pet));
 
         // Act & Assert
-        assertThatThrownBy(() -> petService.updatePet(petId, updateRequest, otherUserId))
+        assertThatThrownBy(() -> petService.updatePet(petId, updateRequest, otherUserId, null))
                 .isInstanceOf(UnauthorizedException.class)
                 .hasMessage("Você não tem permissão para editar este pet");
     }
 
+    @Test
+    @DisplayName("Should reject update when If-Match version is stale")
+    void testUpdatePet_StaleVersion() {
+        // Arrange
+        pet.setVersion(3L);
+        when(petRepository.findById(petId)).thenReturn(Optional.of(pet));
+
+        // Act & Assert
+        assertThatThrownBy(() -> petService.updatePet(petId, updateRequest, ownerId, 2L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("O pet foi modificado por outra requisição");
+
+        verify(petRepository, never()).saveAndFlush(any(Pet.class));
+    }
+
     @Test
     @DisplayName("Should delete pet successfully")
     void testDeletePet_Success() {
         // Arrange
-        when(petRepository.findById(petId)).thenReturn(Optional.of(pet));
-        doNothing().when(petRepository).delete(pet);
+        when(petRepository.deleteByIdAndOwnerId(petId, ownerId)).thenReturn(Optional.of(new DeletedPet(null, 0L)));
 
         // Act
         petService.deletePet(petId, ownerId);
 
         // Assert
-        verify(petRepository).delete(pet);
+        verify(petRepository).deleteByIdAndOwnerId(petId, ownerId);
+        verify(missingPetIndex).remove(petId);
+        verify(petRepository, never()).findById(any(UUID.class));
+        verify(photoStorageService, never()).release(any());
+    }
+
+    @Test
+    @DisplayName("Should release the photo returned by the delete")
+    void testDeletePet_ReleasesPhoto() {
+        // Arrange
+        when(petRepository.deleteByIdAndOwnerId(petId, ownerId))
+                .thenReturn(Optional.of(new DeletedPet("/uploads/pets/aa/bb/rex.jpg", 2L)));
+
+        // Act
+        petService.deletePet(petId, ownerId);
+
+        // Assert: a URL vem do próprio DELETE, sem outra leitura do pet
+        verify(photoStorageService).release("/uploads/pets/aa/bb/rex.jpg");
+        verify(petRepository).deleteByIdAndOwnerId(petId, ownerId);
+        verifyNoMoreInteractions(petRepository);
     }
 
     @Test
@@ -240,6 +295,18 @@ class PetServiceTest {
         verify(petRepository, never()).delete(any(Pet.class));
     }
 
+    @Test
+    @DisplayName("Should throw not found when deleting missing pet")
+    void testDeletePet_NotFound() {
+        // Arrange
+        when(petRepository.findById(petId)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> petService.deletePet(petId, ownerId))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Pet não encontrado");
+    }
+
     @Test
     @DisplayName("Should toggle missing status correctly")
     void testToggleMissing_Success() {
@@ -253,14 +320,40 @@ class PetServiceTest {
         toggledPet.setCreatedAt(LocalDateTime.now());
         toggledPet.setUpdatedAt(LocalDateTime.now());
 
-        when(petRepository.findById(petId)).thenReturn(Optional.of(pet));
-        when(petRepository.save(any(Pet.class))).thenReturn(toggledPet);
+        when(petRepository.toggleMissing(petId, ownerId, null)).thenReturn(Optional.of(toggledPet));
 
         // Act
-        PetResponse response = petService.toggleMissing(petId, ownerId);
+        PetResponse response = petService.toggleMissing(petId, ownerId, null);
 
         // Assert
         assertThat(response.getIsMissing()).isTrue();
+        verify(petRepository, never()).findById(any(UUID.class));
+        verify(missingPetIndex).upsert(toggledPet);
+    }
+
+    @Test
+    @DisplayName("Should throw exception when toggling pet without authorization")
+    void testToggleMissing_Unauthorized() {
+        // Arrange
+        when(petRepository.toggleMissing(petId, otherUserId, null)).thenReturn(Optional.empty());
+        when(petRepository.findById(petId)).thenReturn(Optional.of(pet));
+
+        // Act & Assert
+        assertThatThrownBy(() -> petService.toggleMissing(petId, otherUserId, null))
+                .isInstanceOf(UnauthorizedException.class)
+                .hasMessage("Você não tem permissão para modificar este pet");
+    }
+
+    @Test
+    @DisplayName("Should reject toggle when If-Match version is stale")
+    void testToggleMissing_StaleVersion() {
+        // Arrange
+        when(petRepository.toggleMissing(petId, ownerId, 7L)).thenReturn(Optional.empty());
+        when(petRepository.findById(petId)).thenReturn(Optional.of(pet));
+
+        // Act & Assert
+        assertThatThrownBy(() -> petService.toggleMissing(petId, ownerId, 7L))
+                .isInstanceOf(PreconditionFailedException.class);
     }
 
     @Test
@@ -279,6 +372,27 @@ class PetServiceTest {
         assertThat(response.getOwnerName()).isEqualTo("Owner");
     }
 
+    @Test
+    @DisplayName("Should expose last seen coordinates only while the pet is missing")
+    void testGetPublicPet_CoordinatesOnlyWhenMissing() {
+        // Arrange
+        pet.setLastSeenLatitude(-23.55);
+        pet.setLastSeenLongitude(-46.63);
+        pet.setIsMissing(false);
+        when(petRepository.findById(petId)).thenReturn(Optional.of(pet));
+
+        // Act
+        PublicPetResponse atHome = petService.getPublicPet(petId);
+        pet.setIsMissing(true);
+        PublicPetResponse missing = petService.getPublicPet(petId);
+
+        // Assert
+        assertThat(atHome.getLastSeenLatitude()).isNull();
+        assertThat(atHome.getLastSeenLongitude()).isNull();
+        assertThat(missing.getLastSeenLatitude()).isEqualTo(-23.55);
+        assertThat(missing.getLastSeenLongitude()).isEqualTo(-46.63);
+    }
+
     @Test
     @DisplayName("Should throw exception when public pet not found")
     void testGetPublicPet_NotFound() {
@@ -290,4 +404,67 @@ class PetServiceTest {
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Pet não encontrado");
     }
+
+    @Test
+    @DisplayName("Should store photo by content and release previous one")
+    void testUploadPhoto_ReplacesPrevious() throws Exception {
+        // Arrange
+        pet.setPhotoUrl("/uploads/pets/aa/bb/old.jpg");
+        InputStream content = new ByteArrayInputStream(new byte[]{1, 2, 3});
+        PhotoStorageService.StagedPhoto staged = new PhotoStorageService.StagedPhoto(
+                Path.of("staging", "upload-1.part"), "cc", 3, "jpg");
+        PhotoStorageService.PublishedPhoto published = new PhotoStorageService.PublishedPhoto(staged, "cc/dd/new.jpg", true);
+        when(petRepository.findById(petId)).thenReturn(Optional.of(pet));
+        when(photoStorageService.stage(content)).thenReturn(staged);
+        when(photoStorageService.publish(staged)).thenReturn(published);
+        when(photoStorageService.acquire(published)).thenReturn("/uploads/pets/cc/dd/new.jpg");
+        when(petRepository.save(pet)).thenReturn(pet);
+
+        // Act
+        PetResponse response = petService.uploadPhoto(petId, content, ownerId);
+
+        // Assert
+        assertThat(response.getPhotoUrl()).isEqualTo("/uploads/pets/cc/dd/new.jpg");
+        verify(photoStorageService).release("/uploads/pets/aa/bb/old.jpg");
+        verify(photoVariantService).scheduleVariants("/uploads/pets/cc/dd/new.jpg");
+        verify(photoStorageService).recordUpload(eq("direct"), eq(3L), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should stage and publish the photo outside the transaction that swaps it")
+    void testUploadPhoto_ShortTransaction() throws Exception {
+        // Arrange: a transação só pode começar depois que o corpo foi lido e enviado ao backend
+        InputStream content = new ByteArrayInputStream(new byte[]{1, 2, 3});
+        PhotoStorageService.StagedPhoto staged = new PhotoStorageService.StagedPhoto(
+                Path.of("staging", "upload-2.part"), "cc", 3, "jpg");
+        PhotoStorageService.PublishedPhoto published = new PhotoStorageService.PublishedPhoto(staged, "cc/dd/new.jpg", true);
+        when(petRepository.findById(petId)).thenReturn(Optional.of(pet));
+        when(photoStorageService.stage(content)).thenReturn(staged);
+        when(photoStorageService.publish(staged)).thenReturn(published);
+        when(photoStorageService.acquire(published)).thenReturn("/uploads/pets/cc/dd/new.jpg");
+        when(petRepository.save(pet)).thenReturn(pet);
+
+        // Act
+        petService.uploadPhoto(petId, content, ownerId);
+
+        // Assert
+        InOrder order = inOrder(photoStorageService, transactionOperations);
+        order.verify(photoStorageService).stage(content);
+        order.verify(photoStorageService).publish(staged);
+        order.verify(transactionOperations).execute(any());
+        order.verify(photoStorageService).acquire(published);
+    }
+
+    @Test
+    @DisplayName("Should not store photo when user is not owner")
+    void testUploadPhoto_Unauthorized() {
+        // Arrange
+        when(petRepository.findById(petId)).thenReturn(Optional.of(pet));
+
+        // Act & Assert
+        assertThatThrownBy(() -> petService.uploadPhoto(petId, InputStream.nullInputStream(), otherUserId))
+                .isInstanceOf(UnauthorizedException.class);
+
+        verifyNoInteractions(photoStorageService);
+    }
 }
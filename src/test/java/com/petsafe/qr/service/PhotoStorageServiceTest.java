@@ -0,0 +1,256 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.entity.PhotoBlob;
+import com.petsafe.qr.exception.BadRequestException;
+import com.petsafe.qr.exception.PayloadTooLargeException;
+import com.petsafe.qr.exception.UnsupportedMediaTypeException;
+import com.petsafe.qr.repository.PetRepository;
+import com.petsafe.qr.repository.PhotoBlobRepository;
+import com.petsafe.qr.storage.LocalPhotoStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PhotoStorageService Tests")
+class PhotoStorageServiceTest {
+    
+    private static final byte[] CONTENT = png(1, 1, "foto do rex");
+    
+    @TempDir
+    Path root;
+    
+    @Mock
+    private PhotoBlobRepository photoBlobRepository;
+    
+    @Mock
+    private PetRepository petRepository;
+    
+    @Mock
+    private HotPhotoCache hotPhotoCache;
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PhotoStorageService photoStorageService;
+    
+    @BeforeEach
+    void setUp() {
+        photoStorageService = new PhotoStorageService(photoBlobRepository, petRepository, hotPhotoCache,
+                new LocalPhotoStorage(root), meterRegistry);
+        ReflectionTestUtils.setField(photoStorageService, "photoDir", root.toString());
+        ReflectionTestUtils.setField(photoStorageService, "maxPhotoSize", DataSize.ofBytes(64));
+        ReflectionTestUtils.setField(photoStorageService, "maxPhotoPixels", 50_000_000L);
+    }
+    
+    @Test
+    @DisplayName("Should store new content under sharded hash path")
+    void testStore_NewContent() throws Exception {
+        // Arrange
+        when(photoBlobRepository.findById(any())).thenReturn(Optional.empty());
+        when(photoBlobRepository.acquire(any(), any(), anyLong())).thenAnswer(invocation -> invocation.getArgument(1));
+        
+        // Act
+        String url = store(CONTENT);
+        
+        // Assert
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> path = ArgumentCaptor.forClass(String.class);
+        verify(photoBlobRepository).acquire(hash.capture(), path.capture(), eq((long) CONTENT.length));
+        assertThat(hash.getValue()).hasSize(64);
+        String h = hash.getValue();
+        assertThat(url).isEqualTo("/uploads/pets/" + h.substring(0, 2) + "/" + h.substring(2, 4) + "/" + h + ".png");
+        assertThat(root.resolve(path.getValue())).hasBinaryContent(CONTENT);
+        assertThat(stagingFiles()).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should deduplicate identical content and skip the second write")
+    void testStore_Duplicate() throws Exception {
+        // Arrange
+        when(photoBlobRepository.findById(any())).thenReturn(Optional.empty());
+        when(photoBlobRepository.acquire(any(), any(), anyLong())).thenAnswer(invocation -> invocation.getArgument(1));
+        String firstUrl = store(CONTENT);
+        String path = firstUrl.substring(PhotoStorageService.URL_PREFIX.length());
+        String hash = Path.of(path).getFileName().toString().replace(".png", "");
+        when(photoBlobRepository.findById(hash))
+                .thenReturn(Optional.of(new PhotoBlob(hash, path, (long) CONTENT.length, 1, null)));
+        
+        // Act
+        PhotoStorageService.StagedPhoto staged = photoStorageService.stage(new ByteArrayInputStream(CONTENT));
+        PhotoStorageService.PublishedPhoto published = photoStorageService.publish(staged);
+        String secondUrl = photoStorageService.acquire(published);
+        Files.delete(staged.file());
+        
+        // Assert
+        assertThat(published.written()).isFalse();
+        assertThat(secondUrl).isEqualTo(firstUrl);
+        verify(photoBlobRepository, times(2)).acquire(hash, path, CONTENT.length);
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(1);
+        }
+    }
+    
+    @Test
+    @DisplayName("Should store fresh copy when orphan collector removed the blob concurrently")
+    void testStore_BlobCollectedConcurrently() throws Exception {
+        // Arrange: o objeto existia quando foi publicado, mas a coleta o apagou antes da transação
+        Path gone = Files.createDirectories(root.resolve("ab/cd")).resolve("gone.jpg");
+        Files.write(gone, CONTENT);
+        when(photoBlobRepository.findById(any()))
+                .thenAnswer(invocation -> Optional.of(new PhotoBlob(invocation.getArgument(0), "ab/cd/gone.jpg", 1L, 1, null)));
+        when(photoBlobRepository.acquire(any(), eq("ab/cd/gone.jpg"), anyLong())).thenReturn("ab/cd/gone.jpg");
+        PhotoStorageService.StagedPhoto staged = photoStorageService.stage(new ByteArrayInputStream(CONTENT));
+        PhotoStorageService.PublishedPhoto published = photoStorageService.publish(staged);
+        Files.delete(gone);
+        
+        // Act
+        String url = photoStorageService.acquire(published);
+        
+        // Assert
+        assertThat(published.written()).isFalse();
+        assertThat(url).isEqualTo("/uploads/pets/ab/cd/gone.jpg");
+        assertThat(gone).hasBinaryContent(CONTENT);
+    }
+    
+    @Test
+    @DisplayName("Should delete orphan files and blob only when no pet references the hash")
+    void testDeleteOrphan() throws Exception {
+        // Arrange
+        String hash = "ab" + "0".repeat(62);
+        Path original = Files.createDirectories(root.resolve("ab/00")).resolve(hash + ".jpg");
+        Path thumb = root.resolve("ab/00/" + hash + "_thumb.jpg");
+        Files.write(original, CONTENT);
+        Files.write(thumb, CONTENT);
+        PhotoBlob blob = new PhotoBlob(hash, "ab/00/" + hash + ".jpg", 1L, 0, null);
+        when(photoBlobRepository.findByHashForUpdate(hash)).thenReturn(Optional.of(blob));
+        when(petRepository.existsByPhotoUrlStartingWith("/uploads/pets/ab/00/" + hash))
+                .thenReturn(true, false);
+        
+        // Act
+        List<String> keys = List.of("ab/00/" + hash + ".jpg", "ab/00/" + hash + "_thumb.jpg");
+        boolean whileReferenced = photoStorageService.deleteOrphan(hash, keys);
+        boolean afterRelease = photoStorageService.deleteOrphan(hash, keys);
+        
+        // Assert
+        assertThat(whileReferenced).isFalse();
+        assertThat(afterRelease).isTrue();
+        assertThat(original).doesNotExist();
+        assertThat(thumb).doesNotExist();
+        verify(photoBlobRepository).delete(blob);
+        verify(hotPhotoCache).invalidate("ab/00/" + hash + "_thumb.jpg");
+    }
+    
+    @Test
+    @DisplayName("Should reject oversized upload and discard staging file")
+    void testStore_TooLarge() throws Exception {
+        // Arrange
+        byte[] tooLarge = png(1, 1, "x".repeat(40));
+        
+        // Act & Assert
+        assertThatThrownBy(() -> photoStorageService.stage(new ByteArrayInputStream(tooLarge)))
+                .isInstanceOf(PayloadTooLargeException.class)
+                .isInstanceOf(BadRequestException.class);
+        
+        assertThat(stagingFiles()).isEmpty();
+        verifyNoInteractions(photoBlobRepository);
+    }
+    
+    @Test
+    @DisplayName("Should release only content-addressed photo URLs")
+    void testRelease() {
+        // Act
+        photoStorageService.release("/uploads/pets/ab/cd/abcd.jpg");
+        photoStorageService.release(null);
+        photoStorageService.release("https://example.com/rex.jpg");
+        
+        // Assert
+        verify(photoBlobRepository).decrementRefCount("ab/cd/abcd.jpg");
+        verifyNoMoreInteractions(photoBlobRepository);
+    }
+    
+    @Test
+    @DisplayName("Should map content types to safe extensions")
+    void testExtensions() {
+        assertThat(PhotoStorageService.extensionForContentType("image/jpeg; charset=binary")).isEqualTo("jpg");
+        assertThat(PhotoStorageService.extensionForContentType("application/pdf")).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should reject non-image content from its first bytes whatever the declared type")
+    void testStore_NotAnImage() {
+        // Arrange: um PDF renomeado para .jpg
+        byte[] pdf = "%PDF-1.7 documento".getBytes(StandardCharsets.US_ASCII);
+        
+        // Act & Assert
+        assertThatThrownBy(() -> photoStorageService.stage(new ByteArrayInputStream(pdf)))
+                .isInstanceOf(UnsupportedMediaTypeException.class);
+        assertThat(root.resolve(LocalPhotoStorage.STAGING_DIR)).doesNotExist();
+        verifyNoInteractions(photoBlobRepository);
+    }
+    
+    @Test
+    @DisplayName("Should reject images whose header declares too many pixels before reading the body")
+    void testStore_TooManyPixels() {
+        // Arrange: cabeçalho de 100000x100000 seguido de um corpo que não pode ser lido
+        InputStream body = new SequenceInputStream(new ByteArrayInputStream(png(100_000, 100_000, "")),
+                new InputStream() {
+                    @Override
+                    public int read() {
+                        throw new AssertionError("O corpo não deveria ser lido");
+                    }
+                });
+        
+        // Act & Assert
+        assertThatThrownBy(() -> photoStorageService.stage(body))
+                .isInstanceOf(PayloadTooLargeException.class)
+                .hasMessageContaining("50 megapixels");
+    }
+    
+    // Assinatura PNG + chunk IHDR (sem CRC válido: só o cabeçalho é lido) + bytes quaisquer
+    static byte[] png(int width, int height, String tail) {
+        ByteBuffer buffer = ByteBuffer.allocate(33 + tail.length());
+        buffer.put(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A});
+        buffer.putInt(13).put("IHDR".getBytes(StandardCharsets.US_ASCII)).putInt(width).putInt(height);
+        buffer.put(new byte[]{8, 2, 0, 0, 0}).putInt(0);
+        buffer.put(tail.getBytes(StandardCharsets.US_ASCII));
+        return buffer.array();
+    }
+    
+    // O caminho completo de um upload direto, sem a transação que o PetService abre em volta do acquire
+    private String store(byte[] content) throws Exception {
+        PhotoStorageService.StagedPhoto staged = photoStorageService.stage(new ByteArrayInputStream(content));
+        try {
+            return photoStorageService.acquire(photoStorageService.publish(staged));
+        } finally {
+            Files.deleteIfExists(staged.file());
+        }
+    }
+    
+    private Stream<Path> stagingFiles() throws Exception {
+        Path staging = root.resolve(LocalPhotoStorage.STAGING_DIR);
+        return Files.exists(staging) ? Files.list(staging).toList().stream() : Stream.empty();
+    }
+}
@@ -0,0 +1,210 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.dto.PetResponse;
+import com.petsafe.qr.dto.UploadSessionRequest;
+import com.petsafe.qr.dto.UploadSessionResponse;
+import com.petsafe.qr.exception.BadRequestException;
+import com.petsafe.qr.exception.ConflictException;
+import com.petsafe.qr.exception.ResourceNotFoundException;
+import com.petsafe.qr.exception.UnsupportedMediaTypeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PhotoUploadSessionService Tests")
+class PhotoUploadSessionServiceTest {
+    
+    @TempDir
+    Path stagingDir;
+    
+    @Mock
+    private PetService petService;
+    
+    @Mock
+    private PhotoStorageService photoStorageService;
+    
+    private PhotoUploadSessionService photoUploadSessionService;
+    private UUID petId;
+    private UUID userId;
+    private byte[] content;
+    
+    @BeforeEach
+    void setUp() {
+        photoUploadSessionService = new PhotoUploadSessionService(petService, photoStorageService);
+        ReflectionTestUtils.setField(photoUploadSessionService, "sessionTtl", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(photoUploadSessionService, "maxSessionsPerUser", 5);
+        lenient().when(photoStorageService.stagingDir()).thenReturn(stagingDir);
+        lenient().when(photoStorageService.getMaxPhotoSize()).thenReturn(DataSize.ofMegabytes(1));
+        petId = UUID.randomUUID();
+        userId = UUID.randomUUID();
+        content = new byte[200_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        byte[] header = PhotoStorageServiceTest.png(1000, 800, "");
+        System.arraycopy(header, 0, content, 0, header.length);
+    }
+    
+    @Test
+    @DisplayName("Should keep bytes received before a dropped connection and resume from that offset")
+    void testResumeAfterInterruptedChunk() throws Exception {
+        // Arrange
+        UploadSessionResponse session = photoUploadSessionService.createSession(petId, request(content), userId);
+        when(photoStorageService.inspect(any(InputStream.class)))
+                .thenReturn(new ImageSniffer.ImageHeader(PhotoFormat.PNG, 1000, 800, new byte[0]));
+        when(petService.attachUploadedPhoto(eq(petId), any(Path.class), anyString(), anyLong(), eq("png"), eq(userId)))
+                .thenAnswer(invocation -> {
+                    assertThat((Path) invocation.getArgument(1)).hasBinaryContent(content);
+                    return new PetResponse();
+                });
+        
+        // Act: a conexão cai depois de 70000 bytes do primeiro pedaço
+        assertThatThrownBy(() -> photoUploadSessionService.appendChunk(
+                petId, session.getId(), 0, droppingAfter(content, 70_000), userId))
+                .isInstanceOf(IOException.class);
+        long resumeAt = photoUploadSessionService.getSession(petId, session.getId(), userId).getOffset();
+        UploadSessionResponse afterResume = photoUploadSessionService.appendChunk(petId, session.getId(), resumeAt,
+                new ByteArrayInputStream(Arrays.copyOfRange(content, (int) resumeAt, content.length)), userId);
+        photoUploadSessionService.complete(petId, session.getId(), userId);
+        
+        // Assert
+        assertThat(resumeAt).isEqualTo(70_000);
+        assertThat(afterResume.getOffset()).isEqualTo(content.length);
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(petService).attachUploadedPhoto(eq(petId), any(Path.class), hash.capture(), eq((long) content.length),
+                eq("png"), eq(userId));
+        assertThat(hash.getValue()).isEqualTo(sha256(content));
+        assertThat(Files.list(stagingDir)).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should reject chunk that does not start at the current offset")
+    void testAppendChunk_OffsetMismatch() throws Exception {
+        // Arrange
+        UploadSessionResponse session = photoUploadSessionService.createSession(petId, request(content), userId);
+        photoUploadSessionService.appendChunk(petId, session.getId(), 0,
+                new ByteArrayInputStream(content, 0, 1000), userId);
+        
+        // Act & Assert
+        assertThatThrownBy(() -> photoUploadSessionService.appendChunk(petId, session.getId(), 0,
+                new ByteArrayInputStream(content, 0, 1000), userId))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Offset esperado: 1000");
+    }
+    
+    @Test
+    @DisplayName("Should discard upload when final checksum does not match")
+    void testComplete_ChecksumMismatch() throws Exception {
+        // Arrange
+        UploadSessionRequest request = request(content);
+        request.setSha256("0".repeat(64));
+        UploadSessionResponse session = photoUploadSessionService.createSession(petId, request, userId);
+        photoUploadSessionService.appendChunk(petId, session.getId(), 0, new ByteArrayInputStream(content), userId);
+        
+        // Act & Assert
+        assertThatThrownBy(() -> photoUploadSessionService.complete(petId, session.getId(), userId))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> photoUploadSessionService.getSession(petId, session.getId(), userId))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(Files.list(stagingDir)).isEmpty();
+        verify(petService, never()).attachUploadedPhoto(any(), any(), any(), anyLong(), any(), any());
+    }
+    
+    @Test
+    @DisplayName("Should reject oversized declaration and data beyond the declared size")
+    void testSizeLimits() throws Exception {
+        // Arrange
+        UploadSessionRequest tooLarge = request(content);
+        tooLarge.setSize(DataSize.ofMegabytes(2).toBytes());
+        UploadSessionRequest small = request(Arrays.copyOf(content, 10));
+        
+        // Act & Assert
+        assertThatThrownBy(() -> photoUploadSessionService.createSession(petId, tooLarge, userId))
+                .isInstanceOf(BadRequestException.class);
+        UploadSessionResponse session = photoUploadSessionService.createSession(petId, small, userId);
+        assertThatThrownBy(() -> photoUploadSessionService.appendChunk(petId, session.getId(), 0,
+                new ByteArrayInputStream(content, 0, 11), userId))
+                .isInstanceOf(BadRequestException.class);
+    }
+    
+    @Test
+    @DisplayName("Should reject first chunk whose magic bytes are not an image")
+    void testAppendChunk_NotAnImage() throws Exception {
+        // Arrange
+        byte[] executable = Arrays.copyOf("MZ\u0090\u0000 executável".getBytes(), 1000);
+        UploadSessionResponse session = photoUploadSessionService.createSession(petId, request(executable), userId);
+        
+        // Act & Assert
+        assertThatThrownBy(() -> photoUploadSessionService.appendChunk(petId, session.getId(), 0,
+                new ByteArrayInputStream(executable), userId))
+                .isInstanceOf(UnsupportedMediaTypeException.class);
+        assertThat(photoUploadSessionService.getSession(petId, session.getId(), userId).getOffset()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should expire idle sessions and delete their partial files")
+    void testExpireSessions() throws Exception {
+        // Arrange
+        UploadSessionResponse session = photoUploadSessionService.createSession(petId, request(content), userId);
+        photoUploadSessionService.appendChunk(petId, session.getId(), 0, new ByteArrayInputStream(content, 0, 100), userId);
+        ReflectionTestUtils.setField(photoUploadSessionService, "sessionTtl", Duration.ofMillis(-1));
+        
+        // Act
+        photoUploadSessionService.expireSessions();
+        
+        // Assert
+        assertThatThrownBy(() -> photoUploadSessionService.getSession(petId, session.getId(), userId))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(Files.list(stagingDir)).isEmpty();
+    }
+    
+    private static UploadSessionRequest request(byte[] data) throws Exception {
+        return new UploadSessionRequest((long) data.length, "image/jpeg", sha256(data));
+    }
+    
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+    
+    // Simula a queda da conexão: entrega "limit" bytes e então falha
+    private static InputStream droppingAfter(byte[] data, int limit) {
+        return new FilterInputStream(new ByteArrayInputStream(data, 0, limit)) {
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read == -1) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+        };
+    }
+}
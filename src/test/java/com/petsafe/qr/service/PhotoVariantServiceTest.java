@@ -0,0 +1,120 @@
+package com.petsafe.qr.service;
+
+import com.petsafe.qr.storage.LocalPhotoStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PhotoVariantService Tests")
+class PhotoVariantServiceTest {
+
+    private static final String HASH = "ab".repeat(32);
+    private static final String PHOTO_URL = "/uploads/pets/ab/ab/" + HASH + ".png";
+
+    @TempDir
+    Path root;
+
+    private PhotoVariantService photoVariantService;
+
+    @BeforeEach
+    void setUp() {
+        photoVariantService = new PhotoVariantService(new LocalPhotoStorage(root));
+        ReflectionTestUtils.setField(photoVariantService, "photoDir", root.toString());
+    }
+
+    @Test
+    @DisplayName("Should generate JPEG variants bounded by max dimension")
+    void testGenerateVariants() throws Exception {
+        // Arrange
+        Path original = root.resolve("ab/ab/" + HASH + ".png");
+        Files.createDirectories(original.getParent());
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_ARGB), "png", original.toFile());
+
+        // Act
+        photoVariantService.generateVariants(PHOTO_URL);
+
+        // Assert
+        BufferedImage medium = ImageIO.read(root.resolve("ab/ab/" + HASH + "_medium.jpg").toFile());
+        BufferedImage small = ImageIO.read(root.resolve("ab/ab/" + HASH + "_small.jpg").toFile());
+        BufferedImage thumb = ImageIO.read(root.resolve("ab/ab/" + HASH + "_thumb.jpg").toFile());
+        assertThat(medium.getWidth()).isEqualTo(1080);
+        assertThat(medium.getHeight()).isEqualTo(540);
+        assertThat(small.getWidth()).isEqualTo(480);
+        assertThat(thumb.getWidth()).isEqualTo(160);
+        assertThat(thumb.getHeight()).isEqualTo(80);
+        assertThat(Files.list(root.resolve(LocalPhotoStorage.STAGING_DIR))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should not upscale small images")
+    void testScale_NoUpscale() {
+        // Act
+        BufferedImage scaled = PhotoVariantService.scale(new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB), 480);
+
+        // Assert
+        assertThat(scaled.getWidth()).isEqualTo(100);
+        assertThat(scaled.getHeight()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Should expose deterministic variant URLs only for content-addressed photos")
+    void testUrlsFor() {
+        // Act
+        Map<String, String> urls = PhotoVariant.urlsFor(PHOTO_URL);
+
+        // Assert
+        assertThat(urls).containsExactly(
+                Map.entry("thumb", "/uploads/pets/ab/ab/" + HASH + "_thumb.jpg"),
+                Map.entry("small", "/uploads/pets/ab/ab/" + HASH + "_small.jpg"),
+                Map.entry("medium", "/uploads/pets/ab/ab/" + HASH + "_medium.jpg"));
+        assertThat(PhotoVariant.urlsFor("/uploads/pets/123_456.jpg")).isEmpty();
+        assertThat(PhotoVariant.urlsFor(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should not advertise variants for formats that cannot be decoded")
+    void testUrlsFor_Undecodable() {
+        assertThat(PhotoVariant.urlsFor("/uploads/pets/ab/ab/" + HASH + ".webp")).isEmpty();
+        assertThat(PhotoVariant.urlsFor("/uploads/pets/ab/ab/" + HASH + ".heic")).isEmpty();
+        assertThat(PhotoVariant.urlsFor("/uploads/pets/ab/ab/" + HASH)).isEmpty();
+        assertThat(PhotoVariant.urlsFor("/uploads/pets/ab/ab/" + HASH + ".jpg")).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Should read EXIF orientation and rotate pixels accordingly")
+    void testExifOrientation() {
+        // Arrange: SOI + APP1 "Exif" com TIFF big-endian e uma única entrada Orientation = 6
+        byte[] jpeg = {
+                (byte) 0xFF, (byte) 0xD8,
+                (byte) 0xFF, (byte) 0xE1, 0x00, 0x22,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0x00, 0x2A, 0x00, 0x00, 0x00, 0x08,
+                0x00, 0x01,
+                0x01, 0x12, 0x00, 0x03, 0x00, 0x00, 0x00, 0x01, 0x00, 0x06, 0x00, 0x00,
+                0x00, 0x00, 0x00, 0x00
+        };
+        BufferedImage image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, Color.RED.getRGB());
+
+        // Act
+        int orientation = ExifOrientation.read(jpeg);
+        BufferedImage rotated = ExifOrientation.apply(image, orientation);
+
+        // Assert: 90° horário leva o canto superior esquerdo para o superior direito
+        assertThat(orientation).isEqualTo(6);
+        assertThat(rotated.getWidth()).isEqualTo(2);
+        assertThat(rotated.getHeight()).isEqualTo(3);
+        assertThat(rotated.getRGB(1, 0)).isEqualTo(Color.RED.getRGB());
+    }
+}
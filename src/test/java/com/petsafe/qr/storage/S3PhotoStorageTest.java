@@ -0,0 +1,293 @@
+package com.petsafe.qr.storage;
+
+import com.petsafe.qr.config.StorageConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("S3PhotoStorage Tests")
+class S3PhotoStorageTest {
+
+    private static final String BUCKET = "photos";
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path staging;
+
+    private FakeS3 s3;
+    private S3PhotoStorage storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = new FakeS3();
+        storage = new StorageConfig().s3PhotoStorage(BUCKET, "us-east-1",
+                "http://localhost:" + s3.port(), true, "test-key", "test-secret");
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.close();
+        s3.stop();
+    }
+
+    @Test
+    @DisplayName("Should upload staged file with immutable cache headers and remove local copy")
+    void testPutFile() throws Exception {
+        // Arrange
+        Path file = Files.write(staging.resolve("upload.part"), CONTENT);
+
+        // Act
+        storage.putFile("ab/cd/rex.jpg", file, "image/jpeg");
+
+        // Assert
+        assertThat(s3.objects.get("ab/cd/rex.jpg").content).isEqualTo(CONTENT);
+        assertThat(s3.objects.get("ab/cd/rex.jpg").contentType).isEqualTo("image/jpeg");
+        assertThat(s3.objects.get("ab/cd/rex.jpg").cacheControl).isEqualTo("public, max-age=31536000, immutable");
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should read whole objects, byte ranges and metadata")
+    void testGetAndHead() throws Exception {
+        // Arrange
+        storage.put("ab/cd/rex.jpg", new ByteArrayInputStream(CONTENT), CONTENT.length, "image/jpeg");
+
+        // Act
+        Optional<PhotoObject> head = storage.head("ab/cd/rex.jpg");
+        Optional<PhotoObject> missing = storage.head("ab/cd/nada.jpg");
+        byte[] whole;
+        byte[] range;
+        try (InputStream in = storage.get("ab/cd/rex.jpg")) {
+            whole = in.readAllBytes();
+        }
+        try (InputStream in = storage.get("ab/cd/rex.jpg", 2, 4)) {
+            range = in.readAllBytes();
+        }
+
+        // Assert
+        assertThat(head).get().extracting(PhotoObject::size).isEqualTo((long) CONTENT.length);
+        assertThat(missing).isEmpty();
+        assertThat(whole).isEqualTo(CONTENT);
+        assertThat(new String(range, StandardCharsets.US_ASCII)).isEqualTo("2345");
+        assertThat(s3.lastRange).isEqualTo("bytes=2-5");
+        assertThatThrownBy(() -> storage.get("ab/cd/nada.jpg")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("Should list recursively or one level deep and delete objects")
+    void testListAndDelete() throws Exception {
+        // Arrange
+        for (String key : List.of("ab/cd/a.jpg", "ab/cd/a_thumb.jpg", "ab/ef/b.jpg", "legacy_1.jpg")) {
+            storage.put(key, new ByteArrayInputStream(CONTENT), CONTENT.length, "image/jpeg");
+        }
+
+        // Act
+        List<String> shard;
+        List<String> rootLevel;
+        try (Stream<PhotoObject> objects = storage.list("ab/", true)) {
+            shard = objects.map(PhotoObject::key).toList();
+        }
+        try (Stream<PhotoObject> objects = storage.list("", false)) {
+            rootLevel = objects.map(PhotoObject::key).toList();
+        }
+        storage.delete("ab/cd/a_thumb.jpg");
+
+        // Assert
+        assertThat(shard).containsExactly("ab/cd/a.jpg", "ab/cd/a_thumb.jpg", "ab/ef/b.jpg");
+        assertThat(rootLevel).containsExactly("legacy_1.jpg");
+        assertThat(s3.objects).doesNotContainKey("ab/cd/a_thumb.jpg");
+    }
+
+    @Test
+    @DisplayName("Should presign expiring download URL that the store accepts without the application")
+    void testSignedUrl() throws Exception {
+        // Arrange
+        storage.put("ab/cd/rex.jpg", new ByteArrayInputStream(CONTENT), CONTENT.length, "image/jpeg");
+
+        // Act
+        URI url = storage.signedUrl("ab/cd/rex.jpg", Duration.ofMinutes(10)).orElseThrow();
+
+        // Assert
+        assertThat(url.getPath()).isEqualTo("/" + BUCKET + "/ab/cd/rex.jpg");
+        assertThat(url.getQuery()).contains("X-Amz-Expires=600").contains("X-Amz-Signature=");
+        try (InputStream in = url.toURL().openStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    // Servidor mínimo com o subconjunto da API S3 (path-style) usado pelo backend
+    private static final class FakeS3 {
+
+        private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+        private final HttpServer server;
+        private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+        private volatile String lastRange;
+
+        FakeS3() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/" + BUCKET, this::handle);
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                String path = exchange.getRequestURI().getRawPath();
+                String key = URLDecoder.decode(path.substring(Math.min(path.length(), BUCKET.length() + 2)), StandardCharsets.UTF_8);
+                switch (exchange.getRequestMethod()) {
+                    case "PUT" -> put(exchange, key);
+                    case "HEAD" -> head(exchange, key);
+                    case "GET" -> {
+                        if (key.isEmpty()) {
+                            list(exchange);
+                        } else {
+                            get(exchange, key);
+                        }
+                    }
+                    case "DELETE" -> {
+                        objects.remove(key);
+                        exchange.sendResponseHeaders(204, -1);
+                    }
+                    default -> exchange.sendResponseHeaders(405, -1);
+                }
+            }
+        }
+
+        private void put(HttpExchange exchange, String key) throws IOException {
+            byte[] content = exchange.getRequestBody().readAllBytes();
+            StoredObject object = new StoredObject(content, exchange.getRequestHeaders().getFirst("Content-Type"),
+                    exchange.getRequestHeaders().getFirst("Cache-Control"), Instant.now());
+            objects.put(key, object);
+            exchange.getResponseHeaders().add("ETag", object.etag());
+            exchange.sendResponseHeaders(200, -1);
+        }
+
+        private void head(HttpExchange exchange, String key) throws IOException {
+            StoredObject object = objects.get(key);
+            if (object == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            headers(exchange, object);
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(object.content.length));
+            exchange.sendResponseHeaders(200, -1);
+        }
+
+        private void get(HttpExchange exchange, String key) throws IOException {
+            StoredObject object = objects.get(key);
+            if (object == null) {
+                byte[] error = ("<Error><Code>NoSuchKey</Code><Message>not found</Message><Key>" + key + "</Key></Error>")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/xml");
+                exchange.sendResponseHeaders(404, error.length);
+                exchange.getResponseBody().write(error);
+                return;
+            }
+            headers(exchange, object);
+            byte[] body = object.content;
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            lastRange = range;
+            int status = 200;
+            if (range != null) {
+                String[] bounds = range.substring("bytes=".length()).split("-");
+                int start = Integer.parseInt(bounds[0]);
+                int end = Math.min(Integer.parseInt(bounds[1]), body.length - 1);
+                exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + body.length);
+                body = java.util.Arrays.copyOfRange(body, start, end + 1);
+                status = 206;
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+
+        private void list(HttpExchange exchange) throws IOException {
+            Map<String, String> query = new HashMap<>();
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            for (String pair : rawQuery == null ? new String[0] : rawQuery.split("&")) {
+                String[] parts = pair.split("=", 2);
+                query.put(parts[0], parts.length > 1 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+            }
+            String prefix = query.getOrDefault("prefix", "");
+            String delimiter = query.get("delimiter");
+            StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                    .append("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                    .append("<Name>").append(BUCKET).append("</Name><Prefix>").append(prefix).append("</Prefix>")
+                    .append("<MaxKeys>1000</MaxKeys><IsTruncated>false</IsTruncated>");
+            new TreeMap<>(objects).forEach((key, object) -> {
+                if (!key.startsWith(prefix) || (delimiter != null && key.indexOf(delimiter, prefix.length()) >= 0)) {
+                    return;
+                }
+                xml.append("<Contents><Key>").append(key).append("</Key>")
+                        .append("<LastModified>").append(object.lastModified).append("</LastModified>")
+                        .append("<ETag>").append(object.etag()).append("</ETag>")
+                        .append("<Size>").append(object.content.length).append("</Size>")
+                        .append("<StorageClass>STANDARD</StorageClass></Contents>");
+            });
+            byte[] body = xml.append("</ListBucketResult>").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+
+        private static void headers(HttpExchange exchange, StoredObject object) {
+            exchange.getResponseHeaders().add("ETag", object.etag());
+            exchange.getResponseHeaders().add("Last-Modified", HTTP_DATE.format(object.lastModified));
+            exchange.getResponseHeaders().add("Content-Type", object.contentType);
+        }
+    }
+
+    private record StoredObject(byte[] content, String contentType, String cacheControl, Instant lastModified) {
+
+        // Como no S3, o ETag de um upload simples é o MD5 do conteúdo (o SDK confere)
+        String etag() {
+            try {
+                return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content)) + "\"";
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}